@@ -0,0 +1,125 @@
+package edu.neuralnet.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.encog.engine.network.activation.ActivationSigmoid;
+import org.encog.neural.networks.BasicNetwork;
+import org.encog.neural.networks.layers.BasicLayer;
+import org.neuroph.nnet.MultiLayerPerceptron;
+import org.neuroph.util.TransferFunctionType;
+
+import edu.neuralnet.core.NeuralNetLayer;
+import edu.neuralnet.core.Neuron;
+import edu.neuralnet.core.function.activation.SigmoidActivationFunction;
+import edu.neuralnet.core.function.input.WeightedSumFunction;
+import edu.neuralnet.core.nn.NeuralNet;
+import edu.neuralnet.core.nn.WeightInitialization;
+import edu.neuralnet.core.nn.WeightInitializer;
+
+/**
+ * Builds the same network shape with each engine. Shapes are written as
+ * layer sizes separated by dashes, e.g. <code>784-1024-10</code>, and have
+ * exactly one hidden layer, the only shape {@link NeuralNet} supports.
+ */
+final class Engines {
+
+	/**
+	 * Network shapes from the XOR demo up to MNIST sized networks
+	 */
+	static final String SHAPES = "2-4-1,64-128-10,256-512-10,784-1024-10";
+
+	private Engines() {
+		throw new AssertionError();
+	}
+
+	static int[] parseShape(String shape) {
+		String[] parts = shape.split("-");
+		if (parts.length != 3) {
+			throw new IllegalArgumentException("Expected input-hidden-output shape: " + shape);
+		}
+		int[] sizes = new int[parts.length];
+		for (int i = 0; i < parts.length; i++) {
+			sizes[i] = Integer.parseInt(parts[i]);
+		}
+		return sizes;
+	}
+
+	static double[][] randomRows(Random random, int rows, int size) {
+		double[][] data = new double[rows][size];
+		for (double[] row : data) {
+			for (int i = 0; i < size; i++) {
+				row[i] = random.nextDouble();
+			}
+		}
+		return data;
+	}
+
+	/**
+	 * Creates the object model network with seeded weights.
+	 */
+	static NeuralNet objectModel(int[] sizes) {
+		return new NeuralNet(sizes[0], sizes[1], sizes[2], new SigmoidActivationFunction(),
+				new WeightInitializer(WeightInitialization.UNIFORM, 42));
+	}
+
+	/**
+	 * Creates a layered network of the graph model. The returned list holds
+	 * the input layer first; its neurons are {@link InputNeuron}s.
+	 */
+	static List<NeuralNetLayer> graphModel(int[] sizes, Random random) {
+		List<NeuralNetLayer> layers = new ArrayList<>();
+		NeuralNetLayer inputLayer = new NeuralNetLayer("input", sizes[0]);
+		for (int i = 0; i < sizes[0]; i++) {
+			inputLayer.addNeuron(new InputNeuron());
+		}
+		layers.add(inputLayer);
+
+		for (int l = 1; l < sizes.length; l++) {
+			NeuralNetLayer layer = new NeuralNetLayer("layer" + l, sizes[l]);
+			for (int j = 0; j < sizes[l]; j++) {
+				Neuron neuron = new Neuron(new WeightedSumFunction(), new SigmoidActivationFunction());
+				for (Neuron from : layers.get(l - 1).getNeurons()) {
+					neuron.addInputConnection(from, random.nextDouble() * 2 - 1);
+				}
+				layer.addNeuron(neuron);
+			}
+			layers.add(layer);
+		}
+		return layers;
+	}
+
+	static BasicNetwork encog(int[] sizes) {
+		BasicNetwork network = new BasicNetwork();
+		network.addLayer(new BasicLayer(null, true, sizes[0]));
+		network.addLayer(new BasicLayer(new ActivationSigmoid(), true, sizes[1]));
+		network.addLayer(new BasicLayer(new ActivationSigmoid(), false, sizes[2]));
+		network.getStructure().finalizeStructure();
+		network.reset(42);
+		return network;
+	}
+
+	static MultiLayerPerceptron neuroph(int[] sizes) {
+		MultiLayerPerceptron network = new MultiLayerPerceptron(TransferFunctionType.SIGMOID, sizes[0], sizes[1],
+				sizes[2]);
+		network.randomizeWeights(new Random(42));
+		return network;
+	}
+
+	/**
+	 * Input neuron of the graph model, which has no other way to receive an
+	 * input value.
+	 */
+	static class InputNeuron extends Neuron {
+
+		double value;
+
+		@Override
+		public double calculateOutput() {
+			return value;
+		}
+
+	}
+
+}
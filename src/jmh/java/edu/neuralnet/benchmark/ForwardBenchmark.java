@@ -0,0 +1,237 @@
+package edu.neuralnet.benchmark;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.encog.ml.data.basic.BasicMLData;
+import org.encog.neural.networks.BasicNetwork;
+import org.neuroph.nnet.MultiLayerPerceptron;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import edu.neuralnet.core.CompiledGraph;
+import edu.neuralnet.core.EvaluationPlan;
+import edu.neuralnet.core.NeuralNetLayer;
+import edu.neuralnet.core.Neuron;
+import edu.neuralnet.core.nn.DenseNet;
+import edu.neuralnet.core.nn.NeuralNet;
+
+/**
+ * Latency of a single forward pass for every engine and network shape. Run
+ * with <code>-prof gc</code> to also report the allocation rate.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ForwardBenchmark {
+
+	@State(Scope.Benchmark)
+	public static class ObjectModel {
+
+		@Param({ Engines.SHAPES })
+		String shape;
+
+		NeuralNet net;
+
+		double[] input;
+
+		@Setup
+		public void setUp() {
+			int[] sizes = Engines.parseShape(shape);
+			net = Engines.objectModel(sizes);
+			input = Engines.randomRows(new Random(42), 1, sizes[0])[0];
+		}
+
+	}
+
+	@State(Scope.Benchmark)
+	public static class Compiled {
+
+		@Param({ Engines.SHAPES })
+		String shape;
+
+		DenseNet net;
+
+		double[] input;
+
+		@Setup
+		public void setUp() {
+			int[] sizes = Engines.parseShape(shape);
+			net = Engines.objectModel(sizes).compile();
+			input = Engines.randomRows(new Random(42), 1, sizes[0])[0];
+		}
+
+	}
+
+	@State(Scope.Benchmark)
+	public static class GraphModel {
+
+		@Param({ Engines.SHAPES })
+		String shape;
+
+		List<NeuralNetLayer> layers;
+
+		double[] input;
+
+		@Setup
+		public void setUp() {
+			int[] sizes = Engines.parseShape(shape);
+			layers = Engines.graphModel(sizes, new Random(42));
+			input = Engines.randomRows(new Random(42), 1, sizes[0])[0];
+		}
+
+	}
+
+	@State(Scope.Benchmark)
+	public static class PlannedGraphModel {
+
+		@Param({ Engines.SHAPES })
+		String shape;
+
+		EvaluationPlan plan;
+
+		double[] outputs;
+
+		double[] input;
+
+		@Setup
+		public void setUp() {
+			int[] sizes = Engines.parseShape(shape);
+			List<NeuralNetLayer> layers = Engines.graphModel(sizes, new Random(42));
+			plan = new edu.neuralnet.core.NeuralNet("planned", layers.get(0), layers.subList(1, 2), layers.get(2))
+					.getEvaluationPlan();
+			outputs = plan.newBuffer();
+			input = Engines.randomRows(new Random(42), 1, sizes[0])[0];
+		}
+
+	}
+
+	@State(Scope.Benchmark)
+	public static class CompiledGraphModel {
+
+		@Param({ Engines.SHAPES })
+		String shape;
+
+		CompiledGraph graph;
+
+		double[] outputs;
+
+		double[] input;
+
+		@Setup
+		public void setUp() {
+			int[] sizes = Engines.parseShape(shape);
+			List<NeuralNetLayer> layers = Engines.graphModel(sizes, new Random(42));
+			graph = new edu.neuralnet.core.NeuralNet("compiled", layers.get(0), layers.subList(1, 2), layers.get(2))
+					.compile();
+			outputs = graph.newBuffer();
+			input = Engines.randomRows(new Random(42), 1, sizes[0])[0];
+		}
+
+	}
+
+	@State(Scope.Benchmark)
+	public static class Encog {
+
+		@Param({ Engines.SHAPES })
+		String shape;
+
+		BasicNetwork network;
+
+		BasicMLData input;
+
+		@Setup
+		public void setUp() {
+			int[] sizes = Engines.parseShape(shape);
+			network = Engines.encog(sizes);
+			input = new BasicMLData(Engines.randomRows(new Random(42), 1, sizes[0])[0]);
+		}
+
+	}
+
+	@State(Scope.Benchmark)
+	public static class Neuroph {
+
+		@Param({ Engines.SHAPES })
+		String shape;
+
+		MultiLayerPerceptron network;
+
+		double[] input;
+
+		@Setup
+		public void setUp() {
+			int[] sizes = Engines.parseShape(shape);
+			network = Engines.neuroph(sizes);
+			input = Engines.randomRows(new Random(42), 1, sizes[0])[0];
+		}
+
+	}
+
+	@Benchmark
+	public double[] objectModel(ObjectModel state) {
+		state.net.setInput(state.input);
+		state.net.activate();
+		return state.net.getOutput();
+	}
+
+	@Benchmark
+	public double[] compiled(Compiled state) {
+		state.net.setInput(state.input);
+		state.net.activate();
+		return state.net.getOutput();
+	}
+
+	/**
+	 * The graph model recomputes the upstream network for every connection,
+	 * so each output neuron evaluates the whole hidden layer again.
+	 */
+	@Benchmark
+	public void graphModel(GraphModel state, Blackhole blackhole) {
+		List<Neuron> inputNeurons = state.layers.get(0).getNeurons();
+		for (int i = 0; i < inputNeurons.size(); i++) {
+			((Engines.InputNeuron) inputNeurons.get(i)).value = state.input[i];
+		}
+		for (Neuron neuron : state.layers.get(state.layers.size() - 1).getNeurons()) {
+			blackhole.consume(neuron.calculateOutput());
+		}
+	}
+
+	@Benchmark
+	public double[] plannedGraphModel(PlannedGraphModel state) {
+		state.plan.evaluate(state.input, state.outputs);
+		return state.outputs;
+	}
+
+	@Benchmark
+	public double[] compiledGraphModel(CompiledGraphModel state) {
+		state.graph.evaluate(state.input, state.outputs);
+		return state.outputs;
+	}
+
+	@Benchmark
+	public Object encog(Encog state) {
+		return state.network.compute(state.input);
+	}
+
+	@Benchmark
+	public double[] neuroph(Neuroph state) {
+		state.network.setInput(state.input);
+		state.network.calculate();
+		return state.network.getOutput();
+	}
+
+}
@@ -0,0 +1,208 @@
+package edu.neuralnet.benchmark;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.encog.ml.data.basic.BasicMLDataSet;
+import org.encog.neural.networks.BasicNetwork;
+import org.encog.neural.networks.training.propagation.back.Backpropagation;
+import org.neuroph.core.data.DataSet;
+import org.neuroph.core.data.DataSetRow;
+import org.neuroph.nnet.MultiLayerPerceptron;
+import org.neuroph.nnet.learning.MomentumBackpropagation;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import edu.neuralnet.core.NeuralNetLayer;
+import edu.neuralnet.core.nn.DenseNet;
+import edu.neuralnet.core.nn.NeuralNet;
+import edu.neuralnet.core.nn.train.ArrayTrainingSet;
+import edu.neuralnet.core.nn.train.BatchTrainer;
+import edu.neuralnet.core.nn.train.ParallelTrainer;
+import edu.neuralnet.core.nn.train.TrainingResult;
+import edu.neuralnet.core.nn.train.TrainingSet;
+
+/**
+ * Training throughput in epochs per second for every engine and network
+ * shape. An epoch is one online backpropagation pass over
+ * {@link #SAMPLES} random samples on a single thread, except for
+ * {@link #compiledParallel}, which trains them as one mini-batch on the common
+ * fork-join pool. Run with <code>-prof gc</code> to also report the allocation
+ * rate.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TrainingEpochBenchmark {
+
+	static final int SAMPLES = 32;
+
+	@State(Scope.Benchmark)
+	public static class Data {
+
+		@Param({ Engines.SHAPES })
+		String shape;
+
+		int[] sizes;
+
+		double[][] inputs;
+
+		double[][] expectedOutputs;
+
+		@Setup
+		public void setUp() {
+			sizes = Engines.parseShape(shape);
+			Random random = new Random(42);
+			inputs = Engines.randomRows(random, SAMPLES, sizes[0]);
+			expectedOutputs = new double[SAMPLES][sizes[2]];
+			for (double[] row : expectedOutputs) {
+				row[random.nextInt(row.length)] = 1;
+			}
+		}
+
+	}
+
+	@State(Scope.Benchmark)
+	public static class ObjectModel {
+
+		NeuralNet net;
+
+		@Setup
+		public void setUp(Data data) {
+			net = Engines.objectModel(data.sizes);
+		}
+
+	}
+
+	@State(Scope.Benchmark)
+	public static class Compiled {
+
+		DenseNet net;
+
+		TrainingSet trainingSet;
+
+		@Setup
+		public void setUp(Data data) {
+			net = Engines.objectModel(data.sizes).compile();
+			trainingSet = new ArrayTrainingSet(data.inputs, data.expectedOutputs);
+		}
+
+	}
+
+	@State(Scope.Benchmark)
+	public static class GraphModel {
+
+		edu.neuralnet.core.Backpropagation backpropagation;
+
+		@Setup
+		public void setUp(Data data) {
+			List<NeuralNetLayer> layers = Engines.graphModel(data.sizes, new Random(42));
+			backpropagation = new edu.neuralnet.core.Backpropagation(
+					new edu.neuralnet.core.NeuralNet("graph", layers.get(0), layers.subList(1, 2), layers.get(2)), 0.7,
+					0.3);
+		}
+
+	}
+
+	@State(Scope.Benchmark)
+	public static class Encog {
+
+		Backpropagation train;
+
+		@Setup
+		public void setUp(Data data) {
+			BasicNetwork network = Engines.encog(data.sizes);
+			train = new Backpropagation(network, new BasicMLDataSet(data.inputs, data.expectedOutputs), 0.7, 0.3);
+			train.setBatchSize(1);
+			train.setThreadCount(1);
+		}
+
+	}
+
+	@State(Scope.Benchmark)
+	public static class Neuroph {
+
+		Learning learning;
+
+		DataSet dataSet;
+
+		@Setup
+		public void setUp(Data data) {
+			MultiLayerPerceptron network = Engines.neuroph(data.sizes);
+			dataSet = new DataSet(data.sizes[0], data.sizes[2]);
+			for (int p = 0; p < SAMPLES; p++) {
+				dataSet.addRow(new DataSetRow(data.inputs[p], data.expectedOutputs[p]));
+			}
+			learning = new Learning();
+			learning.setNeuralNetwork(network);
+			learning.start();
+		}
+
+	}
+
+	/**
+	 * Exposes the initialization Neuroph otherwise only runs from
+	 * <code>learn</code>.
+	 */
+	static class Learning extends MomentumBackpropagation {
+
+		private static final long serialVersionUID = 1L;
+
+		void start() {
+			onStart();
+		}
+
+	}
+
+	@Benchmark
+	public double objectModel(ObjectModel state, Data data) {
+		double error = 0;
+		for (int p = 0; p < SAMPLES; p++) {
+			state.net.setInput(data.inputs[p]);
+			state.net.activate();
+			error += state.net.getOutput()[0];
+			state.net.applyBackpropagation(data.expectedOutputs[p]);
+		}
+		return error;
+	}
+
+	@Benchmark
+	public TrainingResult compiled(Compiled state) {
+		return new BatchTrainer(1).train(state.net, state.trainingSet, 1, 0);
+	}
+
+	@Benchmark
+	public TrainingResult compiledParallel(Compiled state) {
+		return new ParallelTrainer(SAMPLES).train(state.net, state.trainingSet, 1, 0);
+	}
+
+	@Benchmark
+	public edu.neuralnet.core.TrainingResult graphModel(GraphModel state, Data data) {
+		return state.backpropagation.train(data.inputs, data.expectedOutputs, 1, 0);
+	}
+
+	@Benchmark
+	public double encog(Encog state) {
+		state.train.iteration();
+		return state.train.getError();
+	}
+
+	@Benchmark
+	public double neuroph(Neuroph state) {
+		state.learning.doLearningEpoch(state.dataSet);
+		return state.learning.getTotalNetworkError();
+	}
+
+}
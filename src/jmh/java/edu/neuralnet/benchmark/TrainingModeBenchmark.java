@@ -0,0 +1,186 @@
+package edu.neuralnet.benchmark;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import edu.neuralnet.core.function.activation.ActivationFunction;
+import edu.neuralnet.core.function.activation.SigmoidActivationFunction;
+import edu.neuralnet.core.nn.DenseNet;
+import edu.neuralnet.core.nn.train.ArrayTrainingSet;
+import edu.neuralnet.core.nn.train.Trainer;
+import edu.neuralnet.core.nn.train.TrainingMode;
+import edu.neuralnet.core.nn.train.TrainingResult;
+import edu.neuralnet.core.nn.train.TrainingSet;
+
+/**
+ * Convergence speed of each {@link TrainingMode} on a synthetic wide,
+ * sparse-input regression problem: random binary inputs with
+ * {@link #DENSITY} non-zero values, labelled by a random teacher network.
+ * Every invocation restores the same initial weights and trains until the
+ * sum of squared errors of an epoch reaches {@link #targetError}, or for at
+ * most {@link #MAX_EPOCHS} epochs; its time is the time to converge.
+ * 
+ * The epochs needed and the error reached are reported as the
+ * {@link Convergence} counters <code>epochs</code> and <code>error</code>.
+ * JMH sums such counters over the measured invocations, so divide them by the
+ * sample count for the mean of a single run.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TrainingModeBenchmark {
+
+	/**
+	 * Fraction of non-zero input values
+	 */
+	static final double DENSITY = 0.02;
+
+	static final int INPUTS = 2000;
+
+	static final int HIDDEN = 64;
+
+	static final int SAMPLES = 20000;
+
+	static final int BATCH_SIZE = 64;
+
+	static final int MAX_EPOCHS = 50;
+
+	@Param({ "DETERMINISTIC", "HOGWILD" })
+	TrainingMode mode;
+
+	@Param({ "4" })
+	int threads;
+
+	/**
+	 * Sum of squared errors of an epoch at which training stops
+	 */
+	@Param({ "250" })
+	double targetError;
+
+	DenseNet net;
+
+	/**
+	 * Weights every invocation starts from
+	 */
+	double[] initialParameters;
+
+	TrainingSet trainingSet;
+
+	ForkJoinPool pool;
+
+	Trainer trainer;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		Random random = new Random(42);
+		int[] layerSizes = { INPUTS, HIDDEN, 1 };
+		DenseNet teacher = newNet(layerSizes, random, 1.0);
+		trainingSet = sparseTrainingSet(teacher, random);
+		net = newNet(layerSizes, random, 0.1);
+		initialParameters = net.getParameters().clone();
+		pool = new ForkJoinPool(threads);
+		trainer = mode.newTrainer(BATCH_SIZE, pool);
+	}
+
+	/**
+	 * Restores the initial weights and clears the momentum state, so that
+	 * every run starts from the same point.
+	 */
+	@Setup(Level.Invocation)
+	public void restoreWeights() {
+		System.arraycopy(initialParameters, 0, net.getParameters(), 0, initialParameters.length);
+		Arrays.fill(net.getDeltas(), 0);
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		pool.shutdown();
+	}
+
+	/**
+	 * Epochs needed and error reached, summed over the measured runs.
+	 */
+	@State(Scope.Thread)
+	@AuxCounters(AuxCounters.Type.EVENTS)
+	public static class Convergence {
+
+		public double epochs;
+
+		public double error;
+
+		@Setup(Level.Iteration)
+		public void reset() {
+			epochs = 0;
+			error = 0;
+		}
+
+	}
+
+	/**
+	 * Trains one epoch at a time, since the trainers' own stopping condition
+	 * only applies to errors below one.
+	 */
+	@Benchmark
+	public TrainingResult converge(Convergence convergence) {
+		TrainingResult result;
+		int epochs = 0;
+		do {
+			result = trainer.train(net, trainingSet, 1, 0);
+			epochs++;
+		} while (epochs < MAX_EPOCHS && result.getError() > targetError);
+		convergence.epochs += epochs;
+		convergence.error += result.getError();
+		return result;
+	}
+
+	private static DenseNet newNet(int[] layerSizes, Random random, double range) {
+		ActivationFunction[] activationFunctions = new ActivationFunction[layerSizes.length];
+		Arrays.fill(activationFunctions, new SigmoidActivationFunction());
+		DenseNet net = new DenseNet(layerSizes, activationFunctions, 0, 0.5, 0.7);
+		double[] parameters = net.getParameters();
+		for (int k = 0; k < parameters.length; k++) {
+			parameters[k] = range * (random.nextDouble() * 2 - 1);
+		}
+		return net;
+	}
+
+	/**
+	 * Labels random sparse binary inputs with the teacher network's output.
+	 */
+	private static TrainingSet sparseTrainingSet(DenseNet teacher, Random random) {
+		double[][] input = new double[SAMPLES][INPUTS];
+		double[][] expectedOutput = new double[SAMPLES][];
+		for (int p = 0; p < SAMPLES; p++) {
+			for (int i = 0; i < INPUTS; i++) {
+				if (random.nextDouble() < DENSITY) {
+					input[p][i] = 1;
+				}
+			}
+			teacher.setInput(input[p]);
+			teacher.activate();
+			expectedOutput[p] = teacher.getOutput();
+		}
+		return new ArrayTrainingSet(input, expectedOutput);
+	}
+
+}
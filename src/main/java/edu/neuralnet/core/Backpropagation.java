@@ -0,0 +1,169 @@
+package edu.neuralnet.core;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import edu.neuralnet.core.function.activation.RectifiedLinearActivationFunction;
+import edu.neuralnet.core.function.activation.SigmoidActivationFunction;
+import edu.neuralnet.core.function.activation.StepActivationFunction;
+import edu.neuralnet.core.function.input.WeightedSumFunction;
+
+/**
+ * Online backpropagation with momentum for a {@link NeuralNet} of any depth.
+ * Works on the network's {@link EvaluationPlan}, so any acyclic topology is
+ * supported, including connections that skip layers. Derivatives come from
+ * each neuron's own activation function, evaluated at the total input and
+ * output cached by the forward pass.
+ */
+public class Backpropagation {
+
+	private final EvaluationPlan plan;
+
+	private final double learningRate;
+
+	private final double momentum;
+
+	private final double[] netInputs;
+
+	private final double[] outputs;
+
+	private final double[] derivatives;
+
+	private final double[] errors;
+
+	/**
+	 * Target neuron number per connection index of the plan
+	 */
+	private final int[] targets;
+
+	/**
+	 * Last weight change per connection index of the plan (for momentum)
+	 */
+	private final double[] deltas;
+
+	/**
+	 * Creates a trainer for the given network.
+	 *
+	 * @param net
+	 *            network to train
+	 * @param learningRate
+	 *            step size of the weight updates
+	 * @param momentum
+	 *            fraction of the previous weight change added to each update
+	 */
+	public Backpropagation(NeuralNet net, double learningRate, double momentum) {
+		this.plan = net.getEvaluationPlan();
+		this.learningRate = learningRate;
+		this.momentum = momentum;
+		netInputs = plan.newBuffer();
+		outputs = plan.newBuffer();
+		derivatives = plan.newBuffer();
+		errors = plan.newBuffer();
+		targets = plan.getTargets();
+		deltas = new double[targets.length];
+	}
+
+	public static void main(String[] args) {
+		double[][] inputs = { { 1, 1 }, { 1, 0 }, { 0, 1 }, { 0, 0 } };
+		double[][] expectedOutputs = { { 0 }, { 1 }, { 1 }, { 0 } };
+
+		NeuralNet net = layeredNet(new int[] { 2, 4, 4, 1 }, new Random(42));
+		TrainingResult result = new Backpropagation(net, 0.1, 0.7).train(inputs, expectedOutputs, 50000, 0.001);
+
+		System.out.println("Deep multilayer perceptron with XOR training");
+		for (int p = 0; p < inputs.length; p++) {
+			System.out.println("INPUTS: " + Arrays.toString(inputs[p]) + " EXPECTED: "
+					+ Arrays.toString(expectedOutputs[p]) + " ACTUAL: " + Arrays.toString(net.calculate(inputs[p])));
+		}
+		System.out.println(result);
+	}
+
+	/**
+	 * Builds a fully connected network with rectified linear hidden layers, a
+	 * sigmoid output layer and a bias neuron feeding every layer, with
+	 * weights drawn from the given generator.
+	 */
+	private static NeuralNet layeredNet(int[] layerSizes, Random random) {
+		Neuron bias = new Neuron(new WeightedSumFunction(), new StepActivationFunction(0));
+		List<NeuralNetLayer> layers = new ArrayList<>();
+		for (int l = 0; l < layerSizes.length; l++) {
+			NeuralNetLayer layer = new NeuralNetLayer("layer" + l, layerSizes[l]);
+			for (int j = 0; j < layerSizes[l]; j++) {
+				Neuron neuron;
+				if (l == 0) {
+					neuron = new Neuron();
+				} else {
+					neuron = new Neuron(new WeightedSumFunction(), l == layerSizes.length - 1
+							? new SigmoidActivationFunction() : new RectifiedLinearActivationFunction());
+					for (Neuron from : layers.get(l - 1).getNeurons()) {
+						neuron.addInputConnection(from, random.nextDouble() * 2 - 1);
+					}
+					neuron.addInputConnection(bias, random.nextDouble() * 2 - 1);
+				}
+				layer.addNeuron(neuron);
+			}
+			layers.add(layer);
+		}
+		return new NeuralNet("deep", layers.get(0), layers.subList(1, layers.size() - 1),
+				layers.get(layers.size() - 1));
+	}
+
+	/**
+	 * Runs the forward pass for one sample and updates every weight towards
+	 * its expected output.
+	 *
+	 * @param input
+	 *            one value per input layer neuron
+	 * @param expectedOutput
+	 *            expected output of each output layer neuron
+	 * @return sum of squared errors of the sample before the update
+	 */
+	public double learn(double[] input, double[] expectedOutput) {
+		plan.evaluate(input, netInputs, outputs);
+		double[] output = plan.getOutput(outputs);
+		double error = 0;
+		for (int j = 0; j < output.length; j++) {
+			error += Math.pow(output[j] - expectedOutput[j], 2);
+		}
+
+		plan.calculateErrors(netInputs, outputs, expectedOutput, derivatives, errors);
+
+		int[] sources = plan.getSources();
+		NeuronsConnection[] connections = plan.getConnections();
+		for (int c = 0; c < connections.length; c++) {
+			double deltaWeight = -learningRate * errors[targets[c]] * outputs[sources[c]];
+			connections[c].setWeight(connections[c].getWeight() + deltaWeight + momentum * deltas[c]);
+			deltas[c] = deltaWeight;
+		}
+		return error;
+	}
+
+	/**
+	 * Trains on all samples until the sum of squared errors of an epoch drops
+	 * to the minimum error or the maximum number of epochs is reached.
+	 *
+	 * @param inputs
+	 *            one input row per sample
+	 * @param expectedOutputs
+	 *            one expected output row per sample
+	 * @param maxSteps
+	 *            maximum number of epochs
+	 * @param minError
+	 *            error at which training stops
+	 * @return number of epochs run and error of the last one
+	 */
+	public TrainingResult train(double[][] inputs, double[][] expectedOutputs, int maxSteps, double minError) {
+		int i;
+		double error = 1;
+		for (i = 0; i < maxSteps && error > minError; i++) {
+			error = 0;
+			for (int p = 0; p < inputs.length; p++) {
+				error += learn(inputs[p], expectedOutputs[p]);
+			}
+		}
+		return new TrainingResult(i, error);
+	}
+
+}
@@ -0,0 +1,228 @@
+package edu.neuralnet.core;
+
+import java.util.Arrays;
+
+import edu.neuralnet.core.function.activation.ActivationFunction;
+
+/**
+ * Executable plan of a {@link NeuralNet}'s neurons built by the
+ * {@link GraphCompiler}. Neurons are grouped into dense blocks, each a weight
+ * matrix with one row per neuron over the outputs of a shared list of input
+ * neurons, and the blocks are evaluated level by level: the block's inputs are
+ * gathered into a contiguous vector, multiplied with the matrix, passed
+ * through the activation function in one bulk call and scattered into the
+ * neuron outputs.
+ *
+ * The weights are copied from the connections when compiling; call
+ * {@link #updateWeights()} after they have been changed, e.g. by
+ * {@link Backpropagation}. Changes to the neurons or connections themselves
+ * require compiling again. Evaluation is thread-safe as long as the weights
+ * are not updated concurrently.
+ */
+public final class CompiledGraph {
+
+	private final int neuronCount;
+
+	private final int inputCount;
+
+	/**
+	 * Neurons without input connections, whose output is the activation of a
+	 * zero input
+	 */
+	private final int[] constants;
+
+	private final ActivationFunction[] constantFunctions;
+
+	/**
+	 * Blocks in evaluation order, sorted by level
+	 */
+	private final Block[] blocks;
+
+	private final int[] outputIndexes;
+
+	/**
+	 * Gathered inputs and weighted sums of a block per calling thread
+	 */
+	private final ThreadLocal<double[][]> scratch;
+
+	CompiledGraph(int neuronCount, int inputCount, int[] constants, ActivationFunction[] constantFunctions,
+			Block[] blocks, int[] outputIndexes) {
+		this.neuronCount = neuronCount;
+		this.inputCount = inputCount;
+		this.constants = constants;
+		this.constantFunctions = constantFunctions;
+		this.blocks = blocks;
+		this.outputIndexes = outputIndexes;
+
+		int maxInputs = 0;
+		int maxOutputs = 0;
+		for (Block block : blocks) {
+			maxInputs = Math.max(maxInputs, block.inputs.length);
+			maxOutputs = Math.max(maxOutputs, block.outputs.length);
+		}
+		int inputSize = maxInputs;
+		int outputSize = maxOutputs;
+		scratch = new ThreadLocal<double[][]>() {
+			@Override
+			protected double[][] initialValue() {
+				return new double[][] { new double[inputSize], new double[outputSize] };
+			}
+		};
+	}
+
+	/**
+	 * Creates a buffer for the outputs of all neurons.
+	 *
+	 * @return buffer indexed by neuron number
+	 */
+	public double[] newBuffer() {
+		return new double[neuronCount];
+	}
+
+	/**
+	 * Evaluates every neuron once for the given input.
+	 *
+	 * @param input
+	 *            one value per input layer neuron
+	 * @param outputs
+	 *            buffer from {@link #newBuffer()}, receives the output of every
+	 *            neuron
+	 */
+	public void evaluate(double[] input, double[] outputs) {
+		System.arraycopy(input, 0, outputs, 0, inputCount);
+		for (int c = 0; c < constants.length; c++) {
+			outputs[constants[c]] = constantFunctions[c].calculateOutput(0d);
+		}
+		double[][] buffers = scratch.get();
+		for (Block block : blocks) {
+			block.evaluate(outputs, buffers[0], buffers[1]);
+		}
+	}
+
+	/**
+	 * Evaluates the network and returns the output layer's outputs.
+	 *
+	 * @param input
+	 *            one value per input layer neuron
+	 * @return output of each output layer neuron
+	 */
+	public double[] calculate(double[] input) {
+		double[] outputs = newBuffer();
+		evaluate(input, outputs);
+		double[] result = new double[outputIndexes.length];
+		for (int o = 0; o < outputIndexes.length; o++) {
+			result[o] = outputs[outputIndexes[o]];
+		}
+		return result;
+	}
+
+	/**
+	 * Copies the current weights of all connections into the blocks.
+	 */
+	public void updateWeights() {
+		for (Block block : blocks) {
+			block.updateWeights();
+		}
+	}
+
+	public int getNeuronCount() {
+		return neuronCount;
+	}
+
+	public int getBlockCount() {
+		return blocks.length;
+	}
+
+	/**
+	 * Returns the number of levels, i.e. the length of the longest path from
+	 * an input to any neuron
+	 */
+	public int getLevelCount() {
+		return blocks.length == 0 ? 0 : blocks[blocks.length - 1].level;
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder builder = new StringBuilder();
+		for (Block block : blocks) {
+			builder.append("level ").append(block.level).append(": ").append(block.outputs.length).append('x')
+					.append(block.inputs.length).append(' ')
+					.append(block.activationFunction.getClass().getSimpleName()).append('\n');
+		}
+		return builder.toString();
+	}
+
+	/**
+	 * Neurons of one level sharing their activation function and input
+	 * neurons.
+	 */
+	static final class Block {
+
+		final int level;
+
+		final ActivationFunction activationFunction;
+
+		/**
+		 * Numbers of the input neurons, one per matrix column
+		 */
+		final int[] inputs;
+
+		/**
+		 * Numbers of the block's neurons, one per matrix row
+		 */
+		final int[] outputs;
+
+		/**
+		 * Row-major weight matrix
+		 */
+		final double[] weights;
+
+		/**
+		 * Input connections of the block's neurons with the index of their
+		 * weight in the matrix
+		 */
+		private final NeuronsConnection[] connections;
+
+		private final int[] weightIndexes;
+
+		Block(int level, ActivationFunction activationFunction, int[] inputs, int[] outputs,
+				NeuronsConnection[] connections, int[] weightIndexes) {
+			this.level = level;
+			this.activationFunction = activationFunction;
+			this.inputs = inputs;
+			this.outputs = outputs;
+			this.connections = connections;
+			this.weightIndexes = weightIndexes;
+			weights = new double[outputs.length * inputs.length];
+			updateWeights();
+		}
+
+		void updateWeights() {
+			Arrays.fill(weights, 0d);
+			for (int c = 0; c < connections.length; c++) {
+				weights[weightIndexes[c]] += connections[c].getWeight();
+			}
+		}
+
+		void evaluate(double[] neuronOutputs, double[] in, double[] out) {
+			int inSize = inputs.length;
+			for (int i = 0; i < inSize; i++) {
+				in[i] = neuronOutputs[inputs[i]];
+			}
+			int row = 0;
+			for (int j = 0; j < outputs.length; j++, row += inSize) {
+				double totalInput = 0d;
+				for (int i = 0; i < inSize; i++) {
+					totalInput += in[i] * weights[row + i];
+				}
+				out[j] = totalInput;
+			}
+			activationFunction.calculateOutputs(out, 0, outputs.length);
+			for (int j = 0; j < outputs.length; j++) {
+				neuronOutputs[outputs[j]] = out[j];
+			}
+		}
+
+	}
+
+}
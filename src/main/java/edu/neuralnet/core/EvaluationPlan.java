@@ -0,0 +1,307 @@
+package edu.neuralnet.core;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import edu.neuralnet.core.function.activation.ActivationFunction;
+import edu.neuralnet.core.function.input.WeightedSumFunction;
+
+/**
+ * Evaluation order of a {@link NeuralNet}'s neurons, built once from its
+ * layers. Neurons are numbered, sorted so that every neuron comes after all of
+ * its input neurons, and their input connections flattened into index arrays.
+ * An evaluation then computes every neuron exactly once, keeping the outputs
+ * in a caller supplied buffer instead of recomputing them through
+ * {@link NeuronsConnection#getWeightedInput()}.
+ *
+ * Weights are read from the connections on every evaluation, so weight
+ * changes are seen immediately; changes to the connections themselves require
+ * a new plan.
+ */
+public class EvaluationPlan {
+
+	/**
+	 * All neurons, indexed by their number; input layer neurons come first
+	 */
+	private final Neuron[] neurons;
+
+	/**
+	 * Number of input layer neurons
+	 */
+	private final int inputCount;
+
+	/**
+	 * Numbers of the non-input neurons in evaluation order
+	 */
+	private final int[] order;
+
+	/**
+	 * Activation function per neuron number
+	 */
+	private final ActivationFunction[] activationFunctions;
+
+	/**
+	 * Starts of the runs of consecutive non-input neuron numbers sharing one
+	 * activation function; the last entry marks the end
+	 */
+	private final int[] runStart;
+
+	/**
+	 * Per neuron number, the first index of its input connections in
+	 * {@link #sources} and {@link #connections}; the last entry marks the end
+	 */
+	private final int[] connectionStart;
+
+	/**
+	 * Number of the source neuron of each input connection
+	 */
+	private final int[] sources;
+
+	/**
+	 * Input connections of all neurons, grouped by target neuron
+	 */
+	private final NeuronsConnection[] connections;
+
+	/**
+	 * Numbers of the output layer neurons
+	 */
+	private final int[] outputIndexes;
+
+	private final NeuronGraph graph;
+
+	/**
+	 * Builds the plan for the given network. Neurons outside the layers that
+	 * feed into them are included as well.
+	 *
+	 * @param net
+	 *            network to evaluate
+	 * @throws IllegalArgumentException
+	 *             if the network contains a cycle or a neuron with an input
+	 *             function other than {@link WeightedSumFunction}
+	 */
+	public EvaluationPlan(NeuralNet net) {
+		graph = new NeuronGraph(net);
+		inputCount = graph.getInputCount();
+		neurons = new Neuron[graph.size()];
+		for (int n = 0; n < neurons.length; n++) {
+			neurons[n] = graph.get(n);
+		}
+
+		activationFunctions = new ActivationFunction[neurons.length];
+		connectionStart = new int[neurons.length + 1];
+		List<NeuronsConnection> flattened = new ArrayList<>();
+		for (int n = 0; n < neurons.length; n++) {
+			connectionStart[n] = flattened.size();
+			if (n < inputCount) {
+				continue;
+			}
+			Neuron neuron = neurons[n];
+			if (!(neuron.inputSummingFunction instanceof WeightedSumFunction) && neuron.hasInputConnections()) {
+				throw new IllegalArgumentException("Only weighted sum input functions can be planned!");
+			}
+			activationFunctions[n] = neuron.activationFunction;
+			flattened.addAll(neuron.getInputConnections());
+		}
+		connectionStart[neurons.length] = flattened.size();
+		connections = flattened.toArray(new NeuronsConnection[flattened.size()]);
+		runStart = runs();
+		sources = new int[connections.length];
+		for (int c = 0; c < connections.length; c++) {
+			sources[c] = graph.numberOf(connections[c].getFromNeuron());
+		}
+
+		order = graph.getOrder();
+
+		outputIndexes = new int[net.getOutputLayer().getNeuronsCount()];
+		for (int o = 0; o < outputIndexes.length; o++) {
+			outputIndexes[o] = graph.numberOf(net.getOutputLayer().getNeuronAt(o));
+		}
+	}
+
+	/**
+	 * Splits the non-input neurons into runs sharing an activation function,
+	 * so the derivatives of each run are calculated in one call.
+	 */
+	private int[] runs() {
+		List<Integer> starts = new ArrayList<>();
+		for (int n = inputCount; n < neurons.length; n++) {
+			if (n == inputCount || activationFunctions[n] != activationFunctions[n - 1]) {
+				starts.add(n);
+			}
+		}
+		int[] runs = new int[starts.size() + 1];
+		for (int r = 0; r < starts.size(); r++) {
+			runs[r] = starts.get(r);
+		}
+		runs[starts.size()] = neurons.length;
+		return runs;
+	}
+
+	/**
+	 * Creates a buffer for the outputs of all neurons.
+	 *
+	 * @return buffer indexed by neuron number
+	 */
+	public double[] newBuffer() {
+		return new double[neurons.length];
+	}
+
+	/**
+	 * Evaluates every neuron once for the given input.
+	 *
+	 * @param input
+	 *            one value per input layer neuron
+	 * @param outputs
+	 *            buffer from {@link #newBuffer()}, receives the output of every
+	 *            neuron
+	 */
+	public void evaluate(double[] input, double[] outputs) {
+		evaluate(input, null, outputs);
+	}
+
+	/**
+	 * Evaluates every neuron once for the given input, keeping the total
+	 * input of every neuron for {@link #calculateErrors}.
+	 *
+	 * @param input
+	 *            one value per input layer neuron
+	 * @param netInputs
+	 *            buffer from {@link #newBuffer()}, receives the total input of
+	 *            every non-input neuron; may be <code>null</code>
+	 * @param outputs
+	 *            buffer from {@link #newBuffer()}, receives the output of every
+	 *            neuron
+	 */
+	public void evaluate(double[] input, double[] netInputs, double[] outputs) {
+		System.arraycopy(input, 0, outputs, 0, inputCount);
+		for (int n : order) {
+			double totalInput = 0d;
+			for (int c = connectionStart[n]; c < connectionStart[n + 1]; c++) {
+				totalInput += outputs[sources[c]] * connections[c].getWeight();
+			}
+			if (netInputs != null) {
+				netInputs[n] = totalInput;
+			}
+			outputs[n] = activationFunctions[n].calculateOutput(totalInput);
+		}
+	}
+
+	/**
+	 * Calculates the partial derivative of the error with respect to every
+	 * neuron's total input, for the error <code>1/2 * sum((o - d)^2)</code>
+	 * over the output layer. Neurons are visited in reverse evaluation order,
+	 * so a neuron's error is complete once all neurons it feeds have been
+	 * visited. The derivatives are calculated up front by each neuron's
+	 * activation function from the total inputs and outputs cached by the
+	 * forward pass, one call per run of neurons sharing a function.
+	 *
+	 * @param netInputs
+	 *            total inputs of the last forward pass
+	 * @param outputs
+	 *            outputs of the last forward pass
+	 * @param expectedOutput
+	 *            expected output of each output layer neuron
+	 * @param derivatives
+	 *            buffer from {@link #newBuffer()}, receives the activation
+	 *            function derivative of every non-input neuron
+	 * @param errors
+	 *            buffer from {@link #newBuffer()}, receives the error term of
+	 *            every non-input neuron
+	 */
+	public void calculateErrors(double[] netInputs, double[] outputs, double[] expectedOutput, double[] derivatives,
+			double[] errors) {
+		for (int r = 0; r < runStart.length - 1; r++) {
+			activationFunctions[runStart[r]].calculateDerivatives(netInputs, outputs, derivatives, runStart[r],
+					runStart[r + 1]);
+		}
+
+		Arrays.fill(errors, 0d);
+		for (int o = 0; o < outputIndexes.length; o++) {
+			errors[outputIndexes[o]] += outputs[outputIndexes[o]] - expectedOutput[o];
+		}
+
+		for (int k = order.length - 1; k >= 0; k--) {
+			int n = order[k];
+			double error = errors[n] * derivatives[n];
+			errors[n] = error;
+			for (int c = connectionStart[n]; c < connectionStart[n + 1]; c++) {
+				errors[sources[c]] += error * connections[c].getWeight();
+			}
+		}
+	}
+
+	/**
+	 * Returns the number of the target neuron of every input connection,
+	 * i.e. the neuron whose input connections contain it.
+	 *
+	 * @return target neuron number per connection index
+	 */
+	public int[] getTargets() {
+		int[] targets = new int[connections.length];
+		for (int n = 0; n < neurons.length; n++) {
+			Arrays.fill(targets, connectionStart[n], connectionStart[n + 1], n);
+		}
+		return targets;
+	}
+
+	/**
+	 * Returns the number of the source neuron of every input connection, not
+	 * a copy
+	 */
+	public int[] getSources() {
+		return sources;
+	}
+
+	/**
+	 * Returns all input connections, grouped by target neuron, not a copy
+	 */
+	public NeuronsConnection[] getConnections() {
+		return connections;
+	}
+
+	/**
+	 * Evaluates the network and returns the output layer's outputs.
+	 *
+	 * @param input
+	 *            one value per input layer neuron
+	 * @return output of each output layer neuron
+	 */
+	public double[] calculate(double[] input) {
+		double[] outputs = newBuffer();
+		evaluate(input, outputs);
+		return getOutput(outputs);
+	}
+
+	/**
+	 * Extracts the output layer's outputs from an evaluation buffer.
+	 *
+	 * @param outputs
+	 *            buffer filled by {@link #evaluate(double[], double[])}
+	 * @return output of each output layer neuron
+	 */
+	public double[] getOutput(double[] outputs) {
+		double[] result = new double[outputIndexes.length];
+		for (int o = 0; o < outputIndexes.length; o++) {
+			result[o] = outputs[outputIndexes[o]];
+		}
+		return result;
+	}
+
+	/**
+	 * Returns the number of the given neuron, or -1 if it is not part of the
+	 * plan.
+	 */
+	public int indexOf(Neuron neuron) {
+		return graph.numberOf(neuron);
+	}
+
+	public int getNeuronCount() {
+		return neurons.length;
+	}
+
+	public int getInputCount() {
+		return inputCount;
+	}
+
+}
@@ -0,0 +1,214 @@
+package edu.neuralnet.core;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import edu.neuralnet.core.function.activation.ActivationFunction;
+import edu.neuralnet.core.function.activation.IdentityActivationFunction;
+import edu.neuralnet.core.function.activation.RectifiedLinearActivationFunction;
+import edu.neuralnet.core.function.activation.SigmoidActivationFunction;
+import edu.neuralnet.core.function.activation.SinusoidActivationFunction;
+import edu.neuralnet.core.function.input.WeightedSumFunction;
+
+/**
+ * Compiles the neuron graph of a {@link NeuralNet} into a
+ * {@link CompiledGraph}, independent of how the neurons are distributed over
+ * layers:
+ * <ol>
+ * <li>neurons are numbered, input layer neurons first, including neurons
+ * outside the layers that feed into them;</li>
+ * <li>the graph is levelled: input neurons and neurons without input
+ * connections are on level 0, every other neuron one level above its highest
+ * input neuron; a cycle is reported with the neurons it runs through;</li>
+ * <li>neurons of the same level with equal activation functions and the same
+ * set of input neurons are grouped into a dense block.</li>
+ * </ol>
+ * A layered network thus becomes one block per layer, and a layer receiving
+ * skip connections a single block over the union of its input layers.
+ */
+public final class GraphCompiler {
+
+	private GraphCompiler() {
+		throw new AssertionError();
+	}
+
+	/**
+	 * Compiles the given network.
+	 *
+	 * @param net
+	 *            network to compile
+	 * @return the executable plan
+	 * @throws IllegalArgumentException
+	 *             if the network contains a cycle or a neuron with an input
+	 *             function other than {@link WeightedSumFunction}
+	 */
+	public static CompiledGraph compile(NeuralNet net) {
+		NeuronGraph graph = new NeuronGraph(net);
+		int inputCount = graph.getInputCount();
+		for (int n = inputCount; n < graph.size(); n++) {
+			Neuron neuron = graph.get(n);
+			if (!(neuron.inputSummingFunction instanceof WeightedSumFunction) && neuron.hasInputConnections()) {
+				throw new IllegalArgumentException("Only weighted sum input functions can be compiled!");
+			}
+		}
+
+		List<Integer> constants = new ArrayList<>();
+		Map<GroupKey, List<Integer>> groups = new LinkedHashMap<>();
+		for (int n : sortByLevel(graph)) {
+			Neuron neuron = graph.get(n);
+			if (!neuron.hasInputConnections()) {
+				constants.add(n);
+				continue;
+			}
+			int[] sources = new int[neuron.getInputConnections().size()];
+			for (int c = 0; c < sources.length; c++) {
+				sources[c] = graph.numberOf(neuron.getInputConnections().get(c).getFromNeuron());
+			}
+			GroupKey key = new GroupKey(graph.getLevel(n), functionKey(neuron.activationFunction), sources);
+			List<Integer> group = groups.get(key);
+			if (group == null) {
+				group = new ArrayList<>();
+				groups.put(key, group);
+			}
+			group.add(n);
+		}
+
+		int[] constantNumbers = new int[constants.size()];
+		ActivationFunction[] constantFunctions = new ActivationFunction[constants.size()];
+		for (int c = 0; c < constantNumbers.length; c++) {
+			constantNumbers[c] = constants.get(c);
+			constantFunctions[c] = graph.get(constantNumbers[c]).activationFunction;
+		}
+
+		List<CompiledGraph.Block> blocks = new ArrayList<>();
+		for (Map.Entry<GroupKey, List<Integer>> group : groups.entrySet()) {
+			blocks.add(block(group.getKey().level, group.getValue(), graph));
+		}
+
+		int[] outputIndexes = new int[net.getOutputLayer().getNeuronsCount()];
+		for (int o = 0; o < outputIndexes.length; o++) {
+			outputIndexes[o] = graph.numberOf(net.getOutputLayer().getNeuronAt(o));
+		}
+		return new CompiledGraph(graph.size(), inputCount, constantNumbers, constantFunctions,
+				blocks.toArray(new CompiledGraph.Block[blocks.size()]), outputIndexes);
+	}
+
+	/**
+	 * Returns the non-input neurons sorted by level, keeping their numbering
+	 * order within a level.
+	 */
+	private static int[] sortByLevel(NeuronGraph graph) {
+		int inputCount = graph.getInputCount();
+		Integer[] sorted = new Integer[graph.size() - inputCount];
+		for (int n = inputCount; n < graph.size(); n++) {
+			sorted[n - inputCount] = n;
+		}
+		Arrays.sort(sorted, (a, b) -> Integer.compare(graph.getLevel(a), graph.getLevel(b)));
+		int[] result = new int[sorted.length];
+		for (int i = 0; i < sorted.length; i++) {
+			result[i] = sorted[i];
+		}
+		return result;
+	}
+
+	/**
+	 * Returns a value that is equal for activation functions computing the
+	 * same function: stateless functions compare by class, sigmoid functions
+	 * by class and slope, all others by identity.
+	 */
+	private static Object functionKey(ActivationFunction activationFunction) {
+		if (activationFunction instanceof IdentityActivationFunction
+				|| activationFunction instanceof RectifiedLinearActivationFunction
+				|| activationFunction instanceof SinusoidActivationFunction) {
+			return activationFunction.getClass();
+		} else if (activationFunction instanceof SigmoidActivationFunction) {
+			return Arrays.asList(activationFunction.getClass(),
+					((SigmoidActivationFunction) activationFunction).getSlope());
+		}
+		return activationFunction;
+	}
+
+	/**
+	 * Builds the block of a group of neurons. The columns follow the input
+	 * connections of the first neuron, so that a neuron with the same
+	 * connection order sums its inputs in the same order as
+	 * {@link EvaluationPlan}.
+	 */
+	private static CompiledGraph.Block block(int level, List<Integer> group, NeuronGraph graph) {
+		Map<Integer, Integer> columns = new LinkedHashMap<>();
+		for (NeuronsConnection connection : graph.get(group.get(0)).getInputConnections()) {
+			int source = graph.numberOf(connection.getFromNeuron());
+			if (!columns.containsKey(source)) {
+				columns.put(source, columns.size());
+			}
+		}
+		int[] inputs = new int[columns.size()];
+		for (Map.Entry<Integer, Integer> column : columns.entrySet()) {
+			inputs[column.getValue()] = column.getKey();
+		}
+
+		int[] outputs = new int[group.size()];
+		List<NeuronsConnection> connections = new ArrayList<>();
+		List<Integer> weightIndexes = new ArrayList<>();
+		for (int j = 0; j < outputs.length; j++) {
+			outputs[j] = group.get(j);
+			for (NeuronsConnection connection : graph.get(outputs[j]).getInputConnections()) {
+				connections.add(connection);
+				weightIndexes.add(j * inputs.length + columns.get(graph.numberOf(connection.getFromNeuron())));
+			}
+		}
+
+		int[] indexes = new int[weightIndexes.size()];
+		for (int c = 0; c < indexes.length; c++) {
+			indexes[c] = weightIndexes.get(c);
+		}
+		return new CompiledGraph.Block(level, graph.get(outputs[0]).activationFunction, inputs, outputs,
+				connections.toArray(new NeuronsConnection[connections.size()]), indexes);
+	}
+
+	/**
+	 * Grouping criteria of a neuron: level, activation function and the set
+	 * of input neurons.
+	 */
+	private static final class GroupKey {
+
+		private final int level;
+
+		private final Object function;
+
+		private final int[] sources;
+
+		GroupKey(int level, Object function, int[] sources) {
+			this.level = level;
+			this.function = function;
+			int[] sorted = sources.clone();
+			Arrays.sort(sorted);
+			int distinct = 0;
+			for (int s = 0; s < sorted.length; s++) {
+				if (s == 0 || sorted[s] != sorted[s - 1]) {
+					sorted[distinct++] = sorted[s];
+				}
+			}
+			this.sources = Arrays.copyOf(sorted, distinct);
+		}
+
+		@Override
+		public int hashCode() {
+			return (31 * level + function.hashCode()) * 31 + Arrays.hashCode(sources);
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (!(obj instanceof GroupKey)) {
+				return false;
+			}
+			GroupKey other = (GroupKey) obj;
+			return level == other.level && function.equals(other.function) && Arrays.equals(sources, other.sources);
+		}
+
+	}
+
+}
@@ -27,6 +27,11 @@ public class NeuralNet {
 	 */
 	private NeuralNetLayer outputLayer;
 
+	/**
+	 * Evaluation order built on first use
+	 */
+	private EvaluationPlan evaluationPlan;
+
 	/**
 	 * Constructs a neural net with all layers present.
 	 * 
@@ -63,6 +68,48 @@ public class NeuralNet {
 		this.outputLayer = outputLayer;
 	}
 
+	/**
+	 * Calculates the network's output, evaluating every neuron once.
+	 * 
+	 * @param input
+	 *            one value per input layer neuron
+	 * @return output of each output layer neuron
+	 */
+	public double[] calculate(double[] input) {
+		return getEvaluationPlan().calculate(input);
+	}
+
+	/**
+	 * Returns the evaluation plan, building it on first use.
+	 * 
+	 * @return evaluation plan of this network
+	 */
+	public EvaluationPlan getEvaluationPlan() {
+		if (evaluationPlan == null) {
+			evaluationPlan = new EvaluationPlan(this);
+		}
+		return evaluationPlan;
+	}
+
+	/**
+	 * Compiles the network into an executable plan of dense blocks, see
+	 * {@link GraphCompiler}. Unlike the evaluation plan, the compiled plan
+	 * holds a copy of the weights.
+	 * 
+	 * @return compiled plan of this network
+	 */
+	public CompiledGraph compile() {
+		return GraphCompiler.compile(this);
+	}
+
+	/**
+	 * Discards the evaluation plan; must be called after neurons or
+	 * connections have been added or removed.
+	 */
+	public void resetEvaluationPlan() {
+		evaluationPlan = null;
+	}
+
 	public String getId() {
 		return id;
 	}
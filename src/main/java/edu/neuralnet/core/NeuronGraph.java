@@ -0,0 +1,209 @@
+package edu.neuralnet.core;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Neurons of a {@link NeuralNet} numbered and sorted for evaluation, the
+ * traversal shared by {@link EvaluationPlan} and {@link GraphCompiler}:
+ * <ol>
+ * <li>neurons are numbered, input layer neurons first, including neurons
+ * outside the layers that feed into them;</li>
+ * <li>the non-input neurons are sorted so that each follows its input neurons
+ * (Kahn's algorithm), and levelled: input neurons and neurons without input
+ * connections are on level 0, every other neuron one level above its highest
+ * input neuron;</li>
+ * <li>a cycle is reported with the neurons it runs through.</li>
+ * </ol>
+ */
+final class NeuronGraph {
+
+	/**
+	 * All neurons, indexed by their number
+	 */
+	private final List<Neuron> neurons = new ArrayList<>();
+
+	private final Map<Neuron, Integer> numbers = new IdentityHashMap<>();
+
+	/**
+	 * Number of input layer neurons
+	 */
+	private final int inputCount;
+
+	/**
+	 * Numbers of the non-input neurons, each after its input neurons
+	 */
+	private final int[] order;
+
+	/**
+	 * Level per neuron number
+	 */
+	private final int[] levels;
+
+	/**
+	 * Numbers and sorts the neurons of the given network.
+	 *
+	 * @param net
+	 *            network to traverse
+	 * @throws IllegalArgumentException
+	 *             if the network contains a cycle
+	 */
+	NeuronGraph(NeuralNet net) {
+		for (Neuron neuron : net.getInputLayer().getNeurons()) {
+			register(neuron);
+		}
+		inputCount = neurons.size();
+		if (net.getHiddenLayers() != null) {
+			for (NeuralNetLayer layer : net.getHiddenLayers()) {
+				for (Neuron neuron : layer.getNeurons()) {
+					register(neuron);
+				}
+			}
+		}
+		for (Neuron neuron : net.getOutputLayer().getNeurons()) {
+			register(neuron);
+		}
+		for (int n = inputCount; n < neurons.size(); n++) {
+			for (NeuronsConnection connection : neurons.get(n).getInputConnections()) {
+				register(connection.getFromNeuron());
+			}
+		}
+
+		levels = new int[neurons.size()];
+		order = sort();
+	}
+
+	private void register(Neuron neuron) {
+		if (!numbers.containsKey(neuron)) {
+			numbers.put(neuron, neurons.size());
+			neurons.add(neuron);
+		}
+	}
+
+	/**
+	 * Sorts and levels the non-input neurons with Kahn's algorithm.
+	 */
+	private int[] sort() {
+		int[] pending = new int[neurons.size()];
+		List<List<Integer>> targets = new ArrayList<>(neurons.size());
+		for (int n = 0; n < neurons.size(); n++) {
+			targets.add(new ArrayList<Integer>());
+		}
+		for (int n = inputCount; n < neurons.size(); n++) {
+			for (NeuronsConnection connection : neurons.get(n).getInputConnections()) {
+				int source = numbers.get(connection.getFromNeuron());
+				if (source >= inputCount) {
+					pending[n]++;
+					targets.get(source).add(n);
+				}
+			}
+		}
+
+		Deque<Integer> ready = new ArrayDeque<>();
+		for (int n = inputCount; n < neurons.size(); n++) {
+			if (pending[n] == 0) {
+				ready.add(n);
+			}
+		}
+
+		int[] sorted = new int[neurons.size() - inputCount];
+		int count = 0;
+		while (!ready.isEmpty()) {
+			int n = ready.poll();
+			sorted[count++] = n;
+			for (NeuronsConnection connection : neurons.get(n).getInputConnections()) {
+				levels[n] = Math.max(levels[n], levels[numbers.get(connection.getFromNeuron())] + 1);
+			}
+			for (int target : targets.get(n)) {
+				if (--pending[target] == 0) {
+					ready.add(target);
+				}
+			}
+		}
+
+		if (count != sorted.length) {
+			throw new IllegalArgumentException("Neural net contains a cycle: " + findCycle(pending) + "!");
+		}
+		return sorted;
+	}
+
+	/**
+	 * Describes a cycle among the neurons left unsorted. Every such neuron
+	 * has an unsorted input neuron, so following those inputs must return to
+	 * a neuron already visited.
+	 */
+	private String findCycle(int[] pending) {
+		int n = 0;
+		while (pending[n] == 0) {
+			n++;
+		}
+		Map<Integer, Integer> visited = new LinkedHashMap<>();
+		List<Integer> path = new ArrayList<>();
+		while (!visited.containsKey(n)) {
+			visited.put(n, path.size());
+			path.add(n);
+			for (NeuronsConnection connection : neurons.get(n).getInputConnections()) {
+				int source = numbers.get(connection.getFromNeuron());
+				if (pending[source] > 0) {
+					n = source;
+					break;
+				}
+			}
+		}
+
+		StringBuilder cycle = new StringBuilder();
+		List<Integer> loop = path.subList(visited.get(n), path.size());
+		for (int i = loop.size() - 1; i >= 0; i--) {
+			cycle.append("neuron ").append(loop.get(i)).append(" -> ");
+		}
+		return cycle.append("neuron ").append(loop.get(loop.size() - 1)).toString();
+	}
+
+	/**
+	 * Returns the number of neurons, input neurons included
+	 */
+	int size() {
+		return neurons.size();
+	}
+
+	int getInputCount() {
+		return inputCount;
+	}
+
+	/**
+	 * Returns the neuron with the given number
+	 */
+	Neuron get(int n) {
+		return neurons.get(n);
+	}
+
+	/**
+	 * Returns the number of the given neuron, or -1 if it is not part of the
+	 * graph.
+	 */
+	int numberOf(Neuron neuron) {
+		Integer number = numbers.get(neuron);
+		return number == null ? -1 : number;
+	}
+
+	/**
+	 * Returns the numbers of the non-input neurons in evaluation order, not a
+	 * copy
+	 */
+	int[] getOrder() {
+		return order;
+	}
+
+	/**
+	 * Returns the level of the neuron with the given number
+	 */
+	int getLevel(int n) {
+		return levels[n];
+	}
+
+}
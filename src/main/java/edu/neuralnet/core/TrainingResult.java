@@ -0,0 +1,36 @@
+package edu.neuralnet.core;
+
+/**
+ * Outcome of a training run of {@link Backpropagation}.
+ */
+public class TrainingResult {
+
+	/**
+	 * Number of epochs run
+	 */
+	private final int epochs;
+
+	/**
+	 * Sum of squared errors of the last epoch
+	 */
+	private final double error;
+
+	public TrainingResult(int epochs, double error) {
+		this.epochs = epochs;
+		this.error = error;
+	}
+
+	public int getEpochs() {
+		return epochs;
+	}
+
+	public double getError() {
+		return error;
+	}
+
+	@Override
+	public String toString() {
+		return "Sum of squared errors = " + error + ", EPOCH " + epochs;
+	}
+
+}
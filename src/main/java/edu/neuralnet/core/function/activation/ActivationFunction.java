@@ -16,4 +16,23 @@ public interface ActivationFunction extends DifferentiableFunction {
 	 */
 	double calculateOutput(double summedInput);
 
+	/**
+	 * Replaces each summed input in the given range by its output, so that a
+	 * whole layer is activated with a single call. Implementations override
+	 * this with a plain loop over the array, which the JIT can unroll and
+	 * vectorize.
+	 * 
+	 * @param values
+	 *            summed inputs, overwritten with the outputs
+	 * @param from
+	 *            first index, inclusive
+	 * @param to
+	 *            last index, exclusive
+	 */
+	default void calculateOutputs(double[] values, int from, int to) {
+		for (int i = from; i < to; i++) {
+			values[i] = calculateOutput(values[i]);
+		}
+	}
+
 }
\ No newline at end of file
@@ -16,4 +16,26 @@ public interface DifferentiableFunction {
 	 */
 	double calculateDerivative(double totalInput);
 
+	/**
+	 * Calculates the derivatives for a range of neurons at once. Functions
+	 * whose derivative can be expressed through their output, like the
+	 * sigmoid, use the outputs and skip recomputing the function.
+	 * 
+	 * @param totalInputs
+	 *            neurons' total inputs
+	 * @param outputs
+	 *            neurons' outputs for those inputs
+	 * @param derivatives
+	 *            receives the derivatives
+	 * @param from
+	 *            first index, inclusive
+	 * @param to
+	 *            last index, exclusive
+	 */
+	default void calculateDerivatives(double[] totalInputs, double[] outputs, double[] derivatives, int from, int to) {
+		for (int i = from; i < to; i++) {
+			derivatives[i] = calculateDerivative(totalInputs[i]);
+		}
+	}
+
 }
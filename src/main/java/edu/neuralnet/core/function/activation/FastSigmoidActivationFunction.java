@@ -0,0 +1,82 @@
+package edu.neuralnet.core.function.activation;
+
+/**
+ * Sigmoid activation function approximated by linear interpolation in a
+ * precomputed table, avoiding a call to {@link Math#exp(double)} per neuron.
+ * The table covers slope * x in [-16, 16] with 64 entries per unit; beyond
+ * that range the output is saturated. The maximum absolute error against
+ * {@link SigmoidActivationFunction} is 3e-6 for any input, the derivative
+ * taken from the interpolated output is off by at most the same amount.
+ */
+public class FastSigmoidActivationFunction extends SigmoidActivationFunction {
+
+	/**
+	 * Half width of the tabulated range of slope * x
+	 */
+	private static final double RANGE = 16;
+
+	/**
+	 * Table entries per unit of slope * x
+	 */
+	private static final int STEPS_PER_UNIT = 64;
+
+	/**
+	 * Sigmoid values at the table points, shared by all instances
+	 */
+	private static final double[] TABLE = createTable();
+
+	/**
+	 * Slope scaled to table steps
+	 */
+	private final double scale;
+
+	/**
+	 * Creates a fast Sigmoid function with default slope value.
+	 */
+	public FastSigmoidActivationFunction() {
+		this(1d);
+	}
+
+	/**
+	 * Creates a fast Sigmoid function with a slope parameter.
+	 * 
+	 * @param slope
+	 *            slope parameter to be set
+	 */
+	public FastSigmoidActivationFunction(double slope) {
+		super(slope);
+		scale = slope * STEPS_PER_UNIT;
+	}
+
+	private static double[] createTable() {
+		double[] table = new double[(int) (2 * RANGE * STEPS_PER_UNIT) + 1];
+		for (int i = 0; i < table.length; i++) {
+			table[i] = 1d / (1 + Math.exp(RANGE - (double) i / STEPS_PER_UNIT));
+		}
+		return table;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public double calculateOutput(double summedInput) {
+		double position = scale * summedInput + RANGE * STEPS_PER_UNIT;
+		if (position <= 0) {
+			return TABLE[0];
+		} else if (position >= TABLE.length - 1) {
+			return TABLE[TABLE.length - 1];
+		}
+		int index = (int) position;
+		double fraction = position - index;
+		return TABLE[index] + fraction * (TABLE[index + 1] - TABLE[index]);
+	}
+
+	@Override
+	public void calculateOutputs(double[] values, int from, int to) {
+		for (int i = from; i < to; i++) {
+			values[i] = calculateOutput(values[i]);
+		}
+	}
+
+}
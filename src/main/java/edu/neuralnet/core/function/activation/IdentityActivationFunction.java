@@ -1,15 +1,30 @@
 package edu.neuralnet.core.function.activation;
 
+import java.util.Arrays;
+
+/**
+ * Identity activation function, the output is the summed input.
+ */
 public class IdentityActivationFunction implements ActivationFunction {
 
 	@Override
 	public double calculateDerivative(double totalInput) {
-		return totalInput;
+		return 1d;
 	}
 
 	@Override
 	public double calculateOutput(double summedInput) {
-		return 1d;
+		return summedInput;
+	}
+
+	@Override
+	public void calculateOutputs(double[] values, int from, int to) {
+		// the summed inputs already are the outputs
+	}
+
+	@Override
+	public void calculateDerivatives(double[] totalInputs, double[] outputs, double[] derivatives, int from, int to) {
+		Arrays.fill(derivatives, from, to, 1d);
 	}
 
 }
@@ -1,5 +1,7 @@
 package edu.neuralnet.core.function.activation;
 
+import java.util.Arrays;
+
 /**
  * Linear combination activation function implementation, the output unit is
  * simply the weighted sum of its inputs plus a bias term.
@@ -21,8 +23,19 @@ public class LinearCombinationFunction implements ActivationFunction {
 
 	@Override
 	public double calculateDerivative(double totalInput) {
-		// TODO Auto-generated method stub
-		return 0;
+		return 1d;
+	}
+
+	@Override
+	public void calculateOutputs(double[] values, int from, int to) {
+		for (int i = from; i < to; i++) {
+			values[i] = values[i] + bias;
+		}
+	}
+
+	@Override
+	public void calculateDerivatives(double[] totalInputs, double[] outputs, double[] derivatives, int from, int to) {
+		Arrays.fill(derivatives, from, to, 1d);
 	}
 
 }
@@ -22,4 +22,18 @@ public class RectifiedLinearActivationFunction implements ActivationFunction {
 	     return 0;
 	}
 
+	@Override
+	public void calculateOutputs(double[] values, int from, int to) {
+		for (int i = from; i < to; i++) {
+			values[i] = Math.max(0, values[i]);
+		}
+	}
+
+	@Override
+	public void calculateDerivatives(double[] totalInputs, double[] outputs, double[] derivatives, int from, int to) {
+		for (int i = from; i < to; i++) {
+			derivatives[i] = totalInputs[i] >= 0 ? 1 : 0;
+		}
+	}
+
 }
@@ -56,9 +56,28 @@ public class SigmoidActivationFunction implements ActivationFunction {
 		return (1d / denominator);
 	}
 
+	@Override
+	public void calculateOutputs(double[] values, int from, int to) {
+		for (int i = from; i < to; i++) {
+			values[i] = 1d / (1 + Math.exp(-slope * values[i]));
+		}
+	}
+
 	@Override
 	public double calculateDerivative(double input) {
-		return calculateOutput(input) * (1 - calculateOutput(input));
+		double output = calculateOutput(input);
+		return output * (1 - output);
+	}
+
+	@Override
+	public void calculateDerivatives(double[] totalInputs, double[] outputs, double[] derivatives, int from, int to) {
+		for (int i = from; i < to; i++) {
+			derivatives[i] = outputs[i] * (1 - outputs[i]);
+		}
+	}
+
+	public double getSlope() {
+		return slope;
 	}
 
 }
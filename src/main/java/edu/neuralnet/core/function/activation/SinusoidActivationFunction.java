@@ -20,4 +20,18 @@ public class SinusoidActivationFunction implements ActivationFunction {
 		return Math.cos(net);
 	}
 
+	@Override
+	public void calculateOutputs(double[] values, int from, int to) {
+		for (int i = from; i < to; i++) {
+			values[i] = Math.sin(values[i]);
+		}
+	}
+
+	@Override
+	public void calculateDerivatives(double[] totalInputs, double[] outputs, double[] derivatives, int from, int to) {
+		for (int i = from; i < to; i++) {
+			derivatives[i] = Math.cos(totalInputs[i]);
+		}
+	}
+
 }
@@ -1,5 +1,7 @@
 package edu.neuralnet.core.function.activation;
 
+import java.util.Arrays;
+
 import javax.naming.OperationNotSupportedException;
 
 /**
@@ -60,4 +62,20 @@ public class StepActivationFunction implements ActivationFunction {
 		return 1d;
 	}
 
+	@Override
+	public void calculateOutputs(double[] values, int from, int to) {
+		for (int i = from; i < to; i++) {
+			values[i] = values[i] >= threshold ? yAbove : yBellow;
+		}
+	}
+
+	@Override
+	public void calculateDerivatives(double[] totalInputs, double[] outputs, double[] derivatives, int from, int to) {
+		Arrays.fill(derivatives, from, to, 1d);
+	}
+
+	public double getThreshold() {
+		return threshold;
+	}
+
 }
\ No newline at end of file
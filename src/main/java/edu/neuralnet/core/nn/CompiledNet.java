@@ -0,0 +1,46 @@
+package edu.neuralnet.core.nn;
+
+/**
+ * Single-threaded interface of a compiled {@link NeuralNet}, implemented by
+ * {@link DenseNet} in double and {@link FloatDenseNet} in single precision.
+ */
+public interface CompiledNet {
+
+	/**
+	 * Returns the precision weights and activations are stored with
+	 */
+	Precision getPrecision();
+
+	/**
+	 * Returns the number of layers including the input layer
+	 */
+	int getLayerCount();
+
+	int getLayerSize(int layer);
+
+	/**
+	 * Sets the input layer's outputs.
+	 * 
+	 * @param inputs
+	 *            one value per input neuron
+	 */
+	void setInput(double inputs[]);
+
+	/**
+	 * Calculate the output of the neural network based on the input, the
+	 * forward operation
+	 */
+	void activate();
+
+	double[] getOutput();
+
+	/**
+	 * Updates all weights towards the expected output of the last forward
+	 * pass.
+	 * 
+	 * @param expectedOutput
+	 *            neural net's expected output
+	 */
+	void applyBackpropagation(double expectedOutput[]);
+
+}
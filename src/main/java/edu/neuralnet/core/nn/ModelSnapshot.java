@@ -0,0 +1,202 @@
+package edu.neuralnet.core.nn;
+
+import edu.neuralnet.core.function.activation.ActivationFunction;
+
+/**
+ * Immutable copy of a {@link DenseNet}'s weights for thread-safe inference.
+ * Single inputs are calculated in per-thread buffers; batches are calculated
+ * one layer at a time, so that each weight row is read once per batch rather
+ * than once per sample.
+ * 
+ * Each layer is stored on its own. Layers whose density of non-zero input
+ * weights is below {@link SparseLayer#DENSITY_THRESHOLD} keep only their
+ * present weights, in {@link SparseLayer#compact() compact} sparse form.
+ */
+public final class ModelSnapshot implements Predictor {
+
+	private final int[] layerSizes;
+
+	private final ActivationFunction[] activationFunctions;
+
+	/**
+	 * Weights per layer: the dense weight matrix, or the compact weights of
+	 * a sparse layer
+	 */
+	private final double[][] weights;
+
+	/**
+	 * Sparse structure per layer, <code>null</code> for dense layers
+	 */
+	private final SparseLayer[] sparseLayers;
+
+	private final double biasInput;
+
+	/**
+	 * Layer outputs per calling thread, the input layer first
+	 */
+	private final ThreadLocal<double[][]> scratch = new ThreadLocal<double[][]>() {
+		@Override
+		protected double[][] initialValue() {
+			double[][] outputs = new double[layerSizes.length][];
+			for (int l = 0; l < layerSizes.length; l++) {
+				outputs[l] = new double[layerSizes[l]];
+			}
+			return outputs;
+		}
+	};
+
+	/**
+	 * Creates a snapshot; all arrays are copied, and sparse layers are
+	 * detected.
+	 * 
+	 * @param layerSizes
+	 *            number of neurons per layer, the input layer first
+	 * @param activationFunctions
+	 *            activation function per layer, the input layer first
+	 * @param parameters
+	 *            weight matrices laid out as in {@link DenseNet}
+	 * @param biasInput
+	 *            output of the bias unit
+	 */
+	public ModelSnapshot(int[] layerSizes, ActivationFunction[] activationFunctions, double[] parameters,
+			double biasInput) {
+		this.layerSizes = layerSizes.clone();
+		this.activationFunctions = activationFunctions.clone();
+		this.biasInput = biasInput;
+
+		int size = 0;
+		for (int l = 1; l < layerSizes.length; l++) {
+			size += layerSizes[l] * (layerSizes[l - 1] + 1);
+		}
+		if (size != parameters.length) {
+			throw new IllegalArgumentException("Parameters do not match the layer sizes!");
+		}
+
+		weights = new double[layerSizes.length][];
+		sparseLayers = new SparseLayer[layerSizes.length];
+		int offset = 0;
+		for (int l = 1; l < layerSizes.length; l++) {
+			int inSize = layerSizes[l - 1];
+			int layerSize = layerSizes[l] * (inSize + 1);
+			if (SparseLayer.density(parameters, offset, inSize, layerSizes[l]) < SparseLayer.DENSITY_THRESHOLD) {
+				SparseLayer sparseLayer = SparseLayer.of(parameters, offset, inSize, layerSizes[l]);
+				weights[l] = sparseLayer.gather(parameters);
+				sparseLayers[l] = sparseLayer.compact();
+			} else {
+				weights[l] = new double[layerSize];
+				System.arraycopy(parameters, offset, weights[l], 0, layerSize);
+			}
+			offset += layerSize;
+		}
+	}
+
+	@Override
+	public int getInputSize() {
+		return layerSizes[0];
+	}
+
+	@Override
+	public int getOutputSize() {
+		return layerSizes[layerSizes.length - 1];
+	}
+
+	@Override
+	public void predict(double[] input, double[] output) {
+		double[][] outputs = scratch.get();
+		System.arraycopy(input, 0, outputs[0], 0, layerSizes[0]);
+		for (int l = 1; l < layerSizes.length; l++) {
+			if (sparseLayers[l] != null) {
+				sparseLayers[l].activate(weights[l], biasInput, activationFunctions[l], outputs[l - 1], outputs[l]);
+			} else {
+				DenseNet.activateLayer(weights[l], 0, biasInput, activationFunctions[l], outputs[l - 1], outputs[l]);
+			}
+		}
+		System.arraycopy(outputs[layerSizes.length - 1], 0, output, 0, output.length);
+	}
+
+	@Override
+	public double[][] predict(double[][] batch) {
+		double[][] in = batch;
+		for (int l = 1; l < layerSizes.length; l++) {
+			int inSize = layerSizes[l - 1];
+			double[][] out = new double[batch.length][layerSizes[l]];
+			ActivationFunction activationFunction = activationFunctions[l];
+			double[] parameters = weights[l];
+
+			if (sparseLayers[l] != null) {
+				for (int b = 0; b < batch.length; b++) {
+					sparseLayers[l].activate(parameters, biasInput, activationFunction, in[b], out[b]);
+				}
+				in = out;
+				continue;
+			}
+
+			int row = 0;
+			for (int j = 0; j < layerSizes[l]; j++, row += inSize + 1) {
+				double biasWeight = parameters[row + inSize];
+				for (int b = 0; b < batch.length; b++) {
+					double[] x = in[b];
+					double weightedSum = 0;
+					for (int i = 0; i < inSize; i++) {
+						weightedSum = weightedSum + (parameters[row + i] * x[i]);
+					}
+					weightedSum = weightedSum + (biasWeight * biasInput);
+					weightedSum += (biasWeight * DenseNet.BIAS);
+
+					out[b][j] = weightedSum;
+				}
+			}
+			for (int b = 0; b < batch.length; b++) {
+				activationFunction.calculateOutputs(out[b], 0, out[b].length);
+			}
+			in = out;
+		}
+		return in;
+	}
+
+	public int getLayerCount() {
+		return layerSizes.length;
+	}
+
+	public int getLayerSize(int layer) {
+		return layerSizes[layer];
+	}
+
+	public ActivationFunction getActivationFunction(int layer) {
+		return activationFunctions[layer];
+	}
+
+	/**
+	 * Returns the sparse structure the given layer is stored in, or
+	 * <code>null</code> if it is stored densely.
+	 */
+	public SparseLayer getSparseLayer(int layer) {
+		return sparseLayers[layer];
+	}
+
+	/**
+	 * Returns a copy of the weights, laid out as in {@link DenseNet}
+	 */
+	public double[] getParameters() {
+		int size = 0;
+		for (int l = 1; l < layerSizes.length; l++) {
+			size += layerSizes[l] * (layerSizes[l - 1] + 1);
+		}
+		double[] parameters = new double[size];
+		int offset = 0;
+		for (int l = 1; l < layerSizes.length; l++) {
+			if (sparseLayers[l] != null) {
+				sparseLayers[l].scatter(weights[l], parameters, offset);
+			} else {
+				System.arraycopy(weights[l], 0, parameters, offset, weights[l].length);
+			}
+			offset += layerSizes[l] * (layerSizes[l - 1] + 1);
+		}
+		return parameters;
+	}
+
+	public double getBiasInput() {
+		return biasInput;
+	}
+
+}
@@ -6,6 +6,14 @@ import java.util.List;
 import edu.neuralnet.core.function.activation.ActivationFunction;
 import edu.neuralnet.core.function.activation.IdentityActivationFunction;
 import edu.neuralnet.core.function.activation.SigmoidActivationFunction;
+import edu.neuralnet.core.nn.train.AbstractTrainer;
+import edu.neuralnet.core.nn.train.AdamOptimizer;
+import edu.neuralnet.core.nn.train.ArrayTrainingSet;
+import edu.neuralnet.core.nn.train.BatchTrainer;
+import edu.neuralnet.core.nn.train.LbfgsTrainer;
+import edu.neuralnet.core.nn.train.MomentumOptimizer;
+import edu.neuralnet.core.nn.train.RpropOptimizer;
+import edu.neuralnet.core.nn.train.TrainingResult;
 
 public class NeuralNet {
 
@@ -15,12 +23,14 @@ public class NeuralNet {
 
 	private final List<ProcessingUnit> outputLayer = new ArrayList<>();
 	
-	private final ProcessingUnit bias = new Neuron("BIAS");
+	private final ProcessingUnit bias = new Neuron(0, "BIAS");
 
 	private final double learningRate = 2.9f;
 
 	private final double momentum = 0.7f;
 
+	private final ActivationFunction activationFunction;
+
 	/**
 	 * XOR inputs
 	 */
@@ -42,26 +52,25 @@ public class NeuralNet {
 		NeuralNet neuralNet = new NeuralNet(2, 4, 1, new SigmoidActivationFunction());
 		int maxRuns = 50000;
 		double minErrorCondition = 0.001;
-		neuralNet.train(maxRuns, minErrorCondition);
+		int batchSize = args.length > 0 ? Integer.parseInt(args[0]) : 1;
+		String optimizer = args.length > 1 ? args[1] : "momentum";
+		if (optimizer.equals("adam")) {
+			neuralNet.train(maxRuns, minErrorCondition, new BatchTrainer(batchSize, new AdamOptimizer(0.05)));
+		} else if (optimizer.equals("rprop")) {
+			neuralNet.train(maxRuns, minErrorCondition, new BatchTrainer(batchSize, new RpropOptimizer()));
+		} else if (optimizer.equals("lbfgs")) {
+			neuralNet.train(maxRuns, minErrorCondition, new LbfgsTrainer());
+		} else if (batchSize > 1) {
+			neuralNet.train(maxRuns, minErrorCondition, new BatchTrainer(batchSize, new MomentumOptimizer()));
+		} else {
+			neuralNet.train(maxRuns, minErrorCondition);
+		}
 	}
 
 	public NeuralNet(int numberOfInputNeurons, int numberOfHiddenNeurons, int numberOfOutputNeurons,
 			ActivationFunction activationFunction) {
-
-		for (int j = 0; j < numberOfInputNeurons; j++) {
-			ProcessingUnit neuron = new Neuron(RandomGenerator.generateId(), new IdentityActivationFunction());
-			inputLayer.add(neuron);
-		}
-
-		for (int j = 0; j < numberOfHiddenNeurons; j++) {
-			ProcessingUnit neuron = new Neuron(RandomGenerator.generateId(), inputLayer, bias, activationFunction);
-			hiddenLayer.add(neuron);
-		}
-
-		for (int j = 0; j < numberOfOutputNeurons; j++) {
-			Neuron neuron = new Neuron(RandomGenerator.generateId(), hiddenLayer, bias, activationFunction);
-			outputLayer.add(neuron);
-		}
+		this.activationFunction = activationFunction;
+		createNeurons(numberOfInputNeurons, numberOfHiddenNeurons, numberOfOutputNeurons);
 
 		for (ProcessingUnit neuron : hiddenLayer) {
 			List<Connection> connections = neuron.getInputConnections();
@@ -77,6 +86,40 @@ public class NeuralNet {
 		}
 	}
 
+	/**
+	 * Creates a network whose weights are set by the given initializer, so
+	 * that the same seed always yields the same network.
+	 * 
+	 * @param initializer
+	 *            seeded weight initializer
+	 */
+	public NeuralNet(int numberOfInputNeurons, int numberOfHiddenNeurons, int numberOfOutputNeurons,
+			ActivationFunction activationFunction, WeightInitializer initializer) {
+		this.activationFunction = activationFunction;
+		createNeurons(numberOfInputNeurons, numberOfHiddenNeurons, numberOfOutputNeurons);
+
+		DenseNet denseNet = compile();
+		initializer.initialize(denseNet);
+		setWeights(denseNet);
+	}
+
+	private void createNeurons(int numberOfInputNeurons, int numberOfHiddenNeurons, int numberOfOutputNeurons) {
+		for (int j = 0; j < numberOfInputNeurons; j++) {
+			ProcessingUnit neuron = new Neuron(j, new IdentityActivationFunction());
+			inputLayer.add(neuron);
+		}
+
+		for (int j = 0; j < numberOfHiddenNeurons; j++) {
+			ProcessingUnit neuron = new Neuron(j, inputLayer, bias, activationFunction);
+			hiddenLayer.add(neuron);
+		}
+
+		for (int j = 0; j < numberOfOutputNeurons; j++) {
+			Neuron neuron = new Neuron(j, hiddenLayer, bias, activationFunction);
+			outputLayer.add(neuron);
+		}
+	}
+
 	/**
 	 * 
 	 * @param inputs
@@ -107,6 +150,73 @@ public class NeuralNet {
 			neuron.calculateOutput();
 	}
 
+	/**
+	 * Compiles this network into a {@link DenseNet} holding a copy of the
+	 * current weights and momentum state. Layers with mostly zero weights are
+	 * computed with sparse kernels.
+	 * 
+	 * @return the compiled network
+	 */
+	public DenseNet compile() {
+		int[] layerSizes = { inputLayer.size(), hiddenLayer.size(), outputLayer.size() };
+		ActivationFunction[] activationFunctions = { null, activationFunction, activationFunction };
+		DenseNet denseNet = new DenseNet(layerSizes, activationFunctions, bias.getOutput(), learningRate, momentum);
+
+		compileLayer(hiddenLayer, denseNet, 1);
+		compileLayer(outputLayer, denseNet, 2);
+		denseNet.updateSparsity();
+		return denseNet;
+	}
+
+	/**
+	 * Compiles this network with the given precision. A {@link FloatDenseNet}
+	 * supports only plain online and mini-batch training with momentum; every
+	 * other training feature requires the double-precision {@link DenseNet}.
+	 * 
+	 * @param precision
+	 *            precision of the compiled weights and activations
+	 * @return a {@link DenseNet} or a {@link FloatDenseNet}
+	 */
+	public CompiledNet compile(Precision precision) {
+		DenseNet denseNet = compile();
+		return precision == Precision.FLOAT ? new FloatDenseNet(denseNet) : denseNet;
+	}
+
+	/**
+	 * Copies the weights and momentum state of a network compiled from this
+	 * one back into the connections.
+	 * 
+	 * @param denseNet
+	 *            network compiled by {@link #compile()}
+	 */
+	public void setWeights(DenseNet denseNet) {
+		copyLayer(hiddenLayer, denseNet, 1, false);
+		copyLayer(outputLayer, denseNet, 2, false);
+	}
+
+	private void compileLayer(List<ProcessingUnit> layer, DenseNet denseNet, int layerIndex) {
+		copyLayer(layer, denseNet, layerIndex, true);
+	}
+
+	private void copyLayer(List<ProcessingUnit> layer, DenseNet denseNet, int layerIndex, boolean toDenseNet) {
+		int inSize = denseNet.getLayerSize(layerIndex - 1);
+		int row = denseNet.getOffset(layerIndex);
+		for (ProcessingUnit neuron : layer) {
+			int i = 0;
+			for (Connection con : neuron.getInputConnections()) {
+				int index = con.getFromNeuron() == bias ? row + inSize : row + i++;
+				if (toDenseNet) {
+					denseNet.getParameters()[index] = con.getWeight();
+					denseNet.getDeltas()[index] = con.getDeltaWeight();
+				} else {
+					con.setWeight(denseNet.getParameters()[index]);
+					con.setDeltaWeight(denseNet.getDeltas()[index]);
+				}
+			}
+			row += inSize + 1;
+		}
+	}
+
 	public List<ProcessingUnit> getInputLayer() {
 		return inputLayer;
 	}
@@ -139,7 +249,7 @@ public class NeuralNet {
 	 *            neural net's expected output
 	 * 
 	 */
-	private void applyBackpropagation(double expectedOutput[]) {
+	public void applyBackpropagation(double expectedOutput[]) {
 		int i = 0;
 		for (ProcessingUnit neuron : outputLayer) {
 			List<Connection> connections = neuron.getInputConnections();
@@ -158,20 +268,20 @@ public class NeuralNet {
 		}
 
 		for (ProcessingUnit neuron : hiddenLayer) {
+			double sumKoutputs = 0;
+			int j = 0;
+			for (ProcessingUnit outputNeuron : outputLayer) {
+				double wjk = outputNeuron.getConnection(neuron.getIndex()).getWeight();
+				double desiredOutput = (double) expectedOutput[j];
+				double ak = outputNeuron.getOutput();
+				j++;
+				sumKoutputs = sumKoutputs + (-(desiredOutput - ak) * ak * (1 - ak) * wjk);
+			}
+
 			List<Connection> connections = neuron.getInputConnections();
 			for (Connection con : connections) {
 				double aj = neuron.getOutput();
 				double ai = con.getFromNeuron().getOutput();
-				double sumKoutputs = 0;
-				int j = 0;
-				for (ProcessingUnit outputNeuron : outputLayer) {
-					double wjk = outputNeuron.getConnection(neuron.getId()).getWeight();
-					double desiredOutput = (double) expectedOutput[j];
-					double ak = outputNeuron.getOutput();
-					j++;
-					sumKoutputs = sumKoutputs + (-(desiredOutput - ak) * ak * (1 - ak) * wjk);
-				}
-
 				double partialDerivative = aj * (1 - aj) * ai * sumKoutputs;
 				double deltaWeight = -learningRate * partialDerivative;
 				double newWeight = con.getWeight() + deltaWeight;
@@ -212,6 +322,35 @@ public class NeuralNet {
 		}
 	}
 
+	/**
+	 * Variant of {@link #train(int, double)} for the compiled network: the
+	 * network is compiled, trained by the given trainer and the trained
+	 * weights are copied back.
+	 * 
+	 * @param trainer
+	 *            trainer running the epochs, e.g. a mini-batch trainer
+	 */
+	private void train(int maxSteps, double minError, AbstractTrainer trainer) {
+		DenseNet denseNet = compile();
+		TrainingResult result = trainer.train(denseNet, new ArrayTrainingSet(inputs, expectedOutputs), maxSteps,
+				minError);
+		setWeights(denseNet);
+
+		for (int p = 0; p < inputs.length; p++) {
+			setInput(inputs[p]);
+			activate();
+			resultOutputs[p] = getOutput();
+		}
+
+		printResult(inputs);
+
+		System.out.println("Sum of squared errors = " + result.getError());
+		System.out.println("EPOCH " + result.getEpochs() + "\n");
+		if (result.getEpochs() == maxSteps) {
+			System.out.println("Error in training, try again!");
+		}
+	}
+
 	private void printResult(double inputs[][]) {
 		System.out.println("Multilayer perceptron with XOR training");
 		for (int p = 0; p < inputs.length; p++) {
@@ -1,9 +1,7 @@
 package edu.neuralnet.core.nn;
 
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 
 import edu.neuralnet.core.function.activation.ActivationFunction;
 
@@ -17,9 +15,14 @@ import edu.neuralnet.core.function.activation.ActivationFunction;
 public class Neuron implements ProcessingUnit {
 
 	/**
-	 * Neuron's identifier
+	 * Neuron's position in its layer
 	 */
-	private final String id;
+	private final int index;
+
+	/**
+	 * Optional identifier for debugging
+	 */
+	private String id;
 
 	/**
 	 * Neuron's output
@@ -31,41 +34,44 @@ public class Neuron implements ProcessingUnit {
 	private Connection biasConnection;
 
 	/**
-	 * Collection of neuron's input connections (connections to this neuron)
+	 * Collection of neuron's input connections (connections to this neuron),
+	 * ordered by the index of the source neuron, the bias connection last
 	 */
 	private List<Connection> inputConnections = new ArrayList<>();
 
 	/**
-	 * Collection of neuron's output connections (connections from this to other
-	 * neurons)
+	 * Transfer function for this neuron
 	 */
-	private Map<String, Connection> connectionLookup = new HashMap<>();
+	protected ActivationFunction activationFunction;
 
 	/**
-	 * Transfer function for this neuron
+	 * Default constructor with index
 	 */
-	protected ActivationFunction activationFunction;
+	public Neuron(int index) {
+		this.index = index;
+	}
 
 	/**
-	 * Default constructor with id
+	 * Constructor with index and debugging identifier
 	 */
-	public Neuron(String id) {
+	public Neuron(int index, String id) {
+		this.index = index;
 		this.id = id;
 	}
 
 	/**
 	 * Default constructor with activation function
 	 */
-	public Neuron(String id, ActivationFunction activationFunction) {
-		this.id = id;
+	public Neuron(int index, ActivationFunction activationFunction) {
+		this.index = index;
 		this.activationFunction = activationFunction;
 	}
 
 	/**
 	 * Default constructor with activation function
 	 */
-	public Neuron(String id, List<ProcessingUnit> inNeurons, ActivationFunction activationFunction) {
-		this.id = id;
+	public Neuron(int index, List<ProcessingUnit> inNeurons, ActivationFunction activationFunction) {
+		this.index = index;
 		this.activationFunction = activationFunction;
 		addInConnections(inNeurons);
 	}
@@ -73,9 +79,9 @@ public class Neuron implements ProcessingUnit {
 	/**
 	 * Default constructor with activation function
 	 */
-	public Neuron(String id, List<ProcessingUnit> inNeurons, ProcessingUnit bias,
+	public Neuron(int index, List<ProcessingUnit> inNeurons, ProcessingUnit bias,
 			ActivationFunction activationFunction) {
-		this(id, inNeurons, activationFunction);
+		this(index, inNeurons, activationFunction);
 		addBiasConnection(bias);
 	}
 
@@ -89,6 +95,15 @@ public class Neuron implements ProcessingUnit {
 		return id;
 	}
 
+	public void setId(String id) {
+		this.id = id;
+	}
+
+	@Override
+	public int getIndex() {
+		return index;
+	}
+
 	/*
 	 * (non-Javadoc)
 	 * 
@@ -113,20 +128,14 @@ public class Neuron implements ProcessingUnit {
 
 	private void addInConnections(List<ProcessingUnit> inNeurons) {
 		for (ProcessingUnit neuron : inNeurons) {
-			Connection con = new Connection(RandomGenerator.generateId(), neuron, this);
+			Connection con = new Connection(neuron, this);
 			inputConnections.add(con);
-			connectionLookup.put(neuron.getId(), con);
 		}
 	}
 
 	@Override
-	public Connection getConnection(String neuronId) {
-		return connectionLookup.get(neuronId);
-	}
-
-	private void addInConnection(ProcessingUnit neuron) {
-		Connection con = new Connection(RandomGenerator.generateId(), neuron, this);
-		inputConnections.add(con);
+	public Connection getConnection(int index) {
+		return inputConnections.get(index);
 	}
 
 	@Override
@@ -135,7 +144,7 @@ public class Neuron implements ProcessingUnit {
 	}
 
 	private void addBiasConnection(ProcessingUnit neuron) {
-		Connection con = new Connection(RandomGenerator.generateId(), neuron, this);
+		Connection con = new Connection(neuron, this);
 		biasConnection = con;
 		inputConnections.add(con);
 	}
@@ -158,6 +167,7 @@ public class Neuron implements ProcessingUnit {
 	public int hashCode() {
 		final int prime = 31;
 		int result = 1;
+		result = prime * result + index;
 		result = prime * result + ((id == null) ? 0 : id.hashCode());
 		result = prime * result + ((inputConnections == null) ? 0 : inputConnections.hashCode());
 		return result;
@@ -172,6 +182,8 @@ public class Neuron implements ProcessingUnit {
 		if (getClass() != obj.getClass())
 			return false;
 		Neuron other = (Neuron) obj;
+		if (index != other.index)
+			return false;
 		if (id == null) {
 			if (other.id != null)
 				return false;
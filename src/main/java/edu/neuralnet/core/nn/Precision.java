@@ -0,0 +1,47 @@
+package edu.neuralnet.core.nn;
+
+/**
+ * Floating-point precision of stored weights.
+ */
+public enum Precision {
+
+	/**
+	 * 64-bit IEEE 754 values
+	 */
+	DOUBLE(8),
+
+	/**
+	 * 32-bit IEEE 754 values
+	 */
+	FLOAT(4);
+
+	private final int bytes;
+
+	private Precision(int bytes) {
+		this.bytes = bytes;
+	}
+
+	/**
+	 * Returns the size of a single value in bytes
+	 */
+	public int getBytes() {
+		return bytes;
+	}
+
+	/**
+	 * Returns the precision with the given value size.
+	 * 
+	 * @param bytes
+	 *            size of a single value in bytes
+	 * @return matching precision
+	 */
+	public static Precision ofBytes(int bytes) {
+		for (Precision precision : values()) {
+			if (precision.bytes == bytes) {
+				return precision;
+			}
+		}
+		throw new IllegalArgumentException("No precision with " + bytes + " bytes per value!");
+	}
+
+}
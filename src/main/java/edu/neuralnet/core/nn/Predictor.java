@@ -0,0 +1,39 @@
+package edu.neuralnet.core.nn;
+
+/**
+ * Read-only inference on a trained network. Implementations are thread-safe:
+ * intermediate results are kept in per-call or per-thread buffers, so one
+ * instance can serve any number of concurrent callers.
+ */
+public interface Predictor {
+
+	/**
+	 * Returns the number of input values
+	 */
+	int getInputSize();
+
+	/**
+	 * Returns the number of output values
+	 */
+	int getOutputSize();
+
+	/**
+	 * Calculates the output for a single input.
+	 * 
+	 * @param input
+	 *            one value per input neuron
+	 * @param output
+	 *            receives one value per output neuron
+	 */
+	void predict(double[] input, double[] output);
+
+	/**
+	 * Calculates the outputs for a batch of inputs.
+	 * 
+	 * @param batch
+	 *            one input row per sample
+	 * @return one output row per sample
+	 */
+	double[][] predict(double[][] batch);
+
+}
@@ -8,15 +8,31 @@ import java.util.List;
  */
 public interface ProcessingUnit {
 
+	/**
+	 * Returns the optional identifier used for debugging, may be
+	 * <code>null</code>
+	 */
 	String getId();
 
+	/**
+	 * Returns the position of this unit in its layer
+	 */
+	int getIndex();
+
 	double getOutput();
 
 	void setOutput(double output);
 
 	void calculateOutput();
 
-	Connection getConnection(String neuronId);
+	/**
+	 * Returns the input connection coming from the unit with the given index
+	 * in the previous layer.
+	 * 
+	 * @param index
+	 *            index of the source unit in its layer
+	 */
+	Connection getConnection(int index);
 
 	List<Connection> getInputConnections();
 
@@ -0,0 +1,21 @@
+package edu.neuralnet.core.nn;
+
+/**
+ * Selects which weights of a {@link QuantizedModel} share a scale and zero
+ * point.
+ */
+public enum QuantizationScope {
+
+	/**
+	 * One scale and zero point per layer
+	 */
+	PER_LAYER,
+
+	/**
+	 * One scale and zero point per neuron, i.e. per row of the weight matrix,
+	 * which keeps neurons with small weights from losing their precision to
+	 * neurons with large ones
+	 */
+	PER_NEURON
+
+}
@@ -0,0 +1,365 @@
+package edu.neuralnet.core.nn;
+
+import edu.neuralnet.core.function.activation.ActivationFunction;
+
+/**
+ * Post-training quantized form of a {@link ModelSnapshot} for thread-safe
+ * inference. Input weights are stored as 8 or 16-bit integers with an affine
+ * mapping <code>w = scale * (q - zeroPoint)</code>, per layer or per neuron.
+ * The inputs of each layer are quantized the same way, with one scale and
+ * zero point per layer found by {@link #calibrate calibration} on sample
+ * inputs; inputs outside the calibrated range are clamped.
+ *
+ * Each neuron's weighted sum is accumulated in integers and dequantized
+ * before the activation function. Bias weights are kept in double precision.
+ * An 8-bit model takes about an eighth of the memory of a double-precision
+ * one.
+ */
+public final class QuantizedModel implements Predictor {
+
+	/**
+	 * Largest layer input size whose 8-bit products can be summed in an int
+	 */
+	private static final int MAX_INT8_INPUTS = Integer.MAX_VALUE / (128 * 128);
+
+	private final int[] layerSizes;
+
+	private final ActivationFunction[] activationFunctions;
+
+	private final IntegerPrecision precision;
+
+	private final QuantizationScope scope;
+
+	/**
+	 * Quantized input weights per layer, row-major without the bias column;
+	 * only one of the two is used, depending on the precision
+	 */
+	private final byte[][] bytes;
+
+	private final short[][] shorts;
+
+	/**
+	 * Scale, zero point and sum of the quantized weights per layer and neuron
+	 */
+	private final double[][] weightScales;
+
+	private final int[][] weightZeroPoints;
+
+	private final long[][] weightSums;
+
+	private final double[][] biasWeights;
+
+	/**
+	 * Scale and zero point of each layer's quantized inputs
+	 */
+	private final double[] inputScales;
+
+	private final int[] inputZeroPoints;
+
+	private final double biasInput;
+
+	/**
+	 * Layer outputs and quantized layer inputs per calling thread
+	 */
+	private final ThreadLocal<double[][]> scratch = new ThreadLocal<double[][]>() {
+		@Override
+		protected double[][] initialValue() {
+			double[][] outputs = new double[layerSizes.length][];
+			for (int l = 0; l < layerSizes.length; l++) {
+				outputs[l] = new double[layerSizes[l]];
+			}
+			return outputs;
+		}
+	};
+
+	private final ThreadLocal<int[]> quantizedScratch = new ThreadLocal<int[]>() {
+		@Override
+		protected int[] initialValue() {
+			int size = 0;
+			for (int l = 0; l < layerSizes.length - 1; l++) {
+				size = Math.max(size, layerSizes[l]);
+			}
+			return new int[size];
+		}
+	};
+
+	private QuantizedModel(ModelSnapshot model, double[][] inputRanges, IntegerPrecision precision,
+			QuantizationScope scope) {
+		int layerCount = model.getLayerCount();
+		this.precision = precision;
+		this.scope = scope;
+		this.biasInput = model.getBiasInput();
+		layerSizes = new int[layerCount];
+		activationFunctions = new ActivationFunction[layerCount];
+		for (int l = 0; l < layerCount; l++) {
+			layerSizes[l] = model.getLayerSize(l);
+			activationFunctions[l] = model.getActivationFunction(l);
+		}
+
+		bytes = new byte[layerCount][];
+		shorts = new short[layerCount][];
+		weightScales = new double[layerCount][];
+		weightZeroPoints = new int[layerCount][];
+		weightSums = new long[layerCount][];
+		biasWeights = new double[layerCount][];
+		inputScales = new double[layerCount];
+		inputZeroPoints = new int[layerCount];
+
+		double[] parameters = model.getParameters();
+		int offset = 0;
+		for (int l = 1; l < layerCount; l++) {
+			int inSize = layerSizes[l - 1];
+			int outSize = layerSizes[l];
+			if (precision == IntegerPrecision.INT8 && inSize > MAX_INT8_INPUTS) {
+				throw new IllegalArgumentException("Layer " + l + " has too many inputs for 8-bit quantization!");
+			}
+			inputScales[l] = scale(inputRanges[l - 1][0], inputRanges[l - 1][1]);
+			inputZeroPoints[l] = zeroPoint(inputRanges[l - 1][0], inputScales[l]);
+			quantizeLayer(l, parameters, offset, inSize, outSize);
+			offset += outSize * (inSize + 1);
+		}
+	}
+
+	/**
+	 * Quantizes a model, calibrating the input range of every layer on the
+	 * given samples.
+	 *
+	 * @param model
+	 *            model to quantize
+	 * @param samples
+	 *            representative inputs, e.g. part of the training set
+	 * @param precision
+	 *            width of the quantized values
+	 * @param scope
+	 *            whether weights are quantized per layer or per neuron
+	 * @return the quantized model
+	 */
+	public static QuantizedModel calibrate(ModelSnapshot model, double[][] samples, IntegerPrecision precision,
+			QuantizationScope scope) {
+		if (samples.length == 0) {
+			throw new IllegalArgumentException("Calibration requires samples!");
+		}
+
+		int layerCount = model.getLayerCount();
+		double[][] inputRanges = new double[layerCount - 1][];
+		for (int l = 0; l < layerCount - 1; l++) {
+			inputRanges[l] = new double[] { Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY };
+		}
+
+		double[][] in = samples;
+		record(in, inputRanges[0]);
+		double[] parameters = model.getParameters();
+		int offset = 0;
+		for (int l = 1; l < layerCount - 1; l++) {
+			int layerSize = model.getLayerSize(l) * (model.getLayerSize(l - 1) + 1);
+			double[] layerParameters = new double[layerSize];
+			System.arraycopy(parameters, offset, layerParameters, 0, layerSize);
+			offset += layerSize;
+			ModelSnapshot layer = new ModelSnapshot(new int[] { model.getLayerSize(l - 1), model.getLayerSize(l) },
+					new ActivationFunction[] { null, model.getActivationFunction(l) }, layerParameters,
+					model.getBiasInput());
+			in = layer.predict(in);
+			record(in, inputRanges[l]);
+		}
+		return new QuantizedModel(model, inputRanges, precision, scope);
+	}
+
+	/**
+	 * Widens a range by the given values.
+	 */
+	private static void record(double[][] values, double[] range) {
+		for (double[] row : values) {
+			for (double value : row) {
+				range[0] = Math.min(range[0], value);
+				range[1] = Math.max(range[1], value);
+			}
+		}
+	}
+
+	private void quantizeLayer(int l, double[] parameters, int offset, int inSize, int outSize) {
+		int qmin = precision.getMin();
+		int qmax = precision.getMax();
+		if (precision == IntegerPrecision.INT8) {
+			bytes[l] = new byte[outSize * inSize];
+		} else {
+			shorts[l] = new short[outSize * inSize];
+		}
+		weightScales[l] = new double[outSize];
+		weightZeroPoints[l] = new int[outSize];
+		weightSums[l] = new long[outSize];
+		biasWeights[l] = new double[outSize];
+
+		double layerMin = 0;
+		double layerMax = 0;
+		for (int j = 0, row = offset; j < outSize; j++, row += inSize + 1) {
+			for (int i = 0; i < inSize; i++) {
+				layerMin = Math.min(layerMin, parameters[row + i]);
+				layerMax = Math.max(layerMax, parameters[row + i]);
+			}
+		}
+
+		for (int j = 0, row = offset; j < outSize; j++, row += inSize + 1) {
+			double min = layerMin;
+			double max = layerMax;
+			if (scope == QuantizationScope.PER_NEURON) {
+				min = 0;
+				max = 0;
+				for (int i = 0; i < inSize; i++) {
+					min = Math.min(min, parameters[row + i]);
+					max = Math.max(max, parameters[row + i]);
+				}
+			}
+			double scale = scale(min, max);
+			int zeroPoint = zeroPoint(min, scale);
+			weightScales[l][j] = scale;
+			weightZeroPoints[l][j] = zeroPoint;
+
+			long sum = 0;
+			for (int i = 0; i < inSize; i++) {
+				int q = quantize(parameters[row + i], scale, zeroPoint, qmin, qmax);
+				if (bytes[l] != null) {
+					bytes[l][j * inSize + i] = (byte) q;
+				} else {
+					shorts[l][j * inSize + i] = (short) q;
+				}
+				sum += q;
+			}
+			weightSums[l][j] = sum;
+			biasWeights[l][j] = parameters[row + inSize];
+		}
+	}
+
+	/**
+	 * Returns the scale mapping the given range, widened to include zero, onto
+	 * all integers of the precision.
+	 */
+	private double scale(double min, double max) {
+		double range = Math.max(max, 0) - Math.min(min, 0);
+		return range == 0 ? 1 : range / ((long) precision.getMax() - precision.getMin());
+	}
+
+	/**
+	 * Returns the integer zero is mapped to, so that zero weights and inputs
+	 * are represented exactly.
+	 */
+	private int zeroPoint(double min, double scale) {
+		long zeroPoint = precision.getMin() - Math.round(Math.min(min, 0) / scale);
+		return (int) Math.max(precision.getMin(), Math.min(precision.getMax(), zeroPoint));
+	}
+
+	private static int quantize(double value, double scale, int zeroPoint, int qmin, int qmax) {
+		long q = Math.round(value / scale) + zeroPoint;
+		return (int) Math.max(qmin, Math.min(qmax, q));
+	}
+
+	@Override
+	public int getInputSize() {
+		return layerSizes[0];
+	}
+
+	@Override
+	public int getOutputSize() {
+		return layerSizes[layerSizes.length - 1];
+	}
+
+	@Override
+	public void predict(double[] input, double[] output) {
+		double[][] outputs = scratch.get();
+		int[] quantized = quantizedScratch.get();
+		System.arraycopy(input, 0, outputs[0], 0, layerSizes[0]);
+		for (int l = 1; l < layerSizes.length; l++) {
+			activateLayer(l, outputs[l - 1], quantized, outputs[l]);
+		}
+		System.arraycopy(outputs[layerSizes.length - 1], 0, output, 0, output.length);
+	}
+
+	@Override
+	public double[][] predict(double[][] batch) {
+		int[] quantized = quantizedScratch.get();
+		double[][] in = batch;
+		for (int l = 1; l < layerSizes.length; l++) {
+			double[][] out = new double[batch.length][layerSizes[l]];
+			for (int b = 0; b < batch.length; b++) {
+				activateLayer(l, in[b], quantized, out[b]);
+			}
+			in = out;
+		}
+		return in;
+	}
+
+	/**
+	 * Forward operation of a single layer: quantizes the inputs, accumulates
+	 * the integer weighted sums, corrects them for the zero points and
+	 * dequantizes them.
+	 */
+	private void activateLayer(int l, double[] in, int[] quantized, double[] out) {
+		int inSize = in.length;
+		double inputScale = inputScales[l];
+		int inputZeroPoint = inputZeroPoints[l];
+		long inputSum = 0;
+		for (int i = 0; i < inSize; i++) {
+			quantized[i] = quantize(in[i], inputScale, inputZeroPoint, precision.getMin(), precision.getMax());
+			inputSum += quantized[i];
+		}
+
+		for (int j = 0; j < out.length; j++) {
+			long dot = bytes[l] != null ? dot(bytes[l], j * inSize, quantized, inSize)
+					: dot(shorts[l], j * inSize, quantized, inSize);
+			int weightZeroPoint = weightZeroPoints[l][j];
+			long sum = dot - weightZeroPoint * inputSum - inputZeroPoint * weightSums[l][j]
+					+ (long) inSize * weightZeroPoint * inputZeroPoint;
+
+			double weightedSum = weightScales[l][j] * inputScale * sum;
+			double biasWeight = biasWeights[l][j];
+			weightedSum = weightedSum + (biasWeight * biasInput);
+			weightedSum += (biasWeight * DenseNet.BIAS);
+
+			out[j] = weightedSum;
+		}
+		activationFunctions[l].calculateOutputs(out, 0, out.length);
+	}
+
+	private static long dot(byte[] weights, int row, int[] in, int inSize) {
+		int sum = 0;
+		for (int i = 0; i < inSize; i++) {
+			sum += weights[row + i] * in[i];
+		}
+		return sum;
+	}
+
+	private static long dot(short[] weights, int row, int[] in, int inSize) {
+		long sum = 0;
+		for (int i = 0; i < inSize; i++) {
+			sum += weights[row + i] * in[i];
+		}
+		return sum;
+	}
+
+	public IntegerPrecision getPrecision() {
+		return precision;
+	}
+
+	public QuantizationScope getScope() {
+		return scope;
+	}
+
+	public int getLayerCount() {
+		return layerSizes.length;
+	}
+
+	public int getLayerSize(int layer) {
+		return layerSizes[layer];
+	}
+
+	/**
+	 * Returns the number of bytes taken by the quantized input weights
+	 */
+	public long getWeightBytes() {
+		long size = 0;
+		for (int l = 1; l < layerSizes.length; l++) {
+			size += (long) layerSizes[l] * layerSizes[l - 1] * precision.getBytes();
+		}
+		return size;
+	}
+
+}
@@ -1,7 +1,6 @@
 package edu.neuralnet.core.nn;
 
 import java.util.Random;
-import java.util.UUID;
 
 public class RandomGenerator {
 
@@ -13,14 +12,8 @@ public class RandomGenerator {
 		throw new AssertionError();
 	}
 
-	public static String generateId() {
-		return UUID.randomUUID().toString();
-	}
-
 	public static double getRandom() {
-		double randomValue = randomWeightMultiplier * (random.nextDouble() * 2 - 1); // [-1;1]
-		System.out.println("randomValue = " + randomValue);
-		return randomValue;
+		return randomWeightMultiplier * (random.nextDouble() * 2 - 1); // [-1;1]
 	}
 
 }
@@ -0,0 +1,282 @@
+package edu.neuralnet.core.nn;
+
+import edu.neuralnet.core.function.activation.ActivationFunction;
+
+/**
+ * Compressed sparse row (CSR) structure of one layer's weight matrix. Only the
+ * input weights that are present, i.e. not zero, are stored as entries; every
+ * neuron keeps its bias weight. The weights themselves are read from an array
+ * passed to the kernels, at the index recorded for each entry, so the same
+ * structure can run over the dense parameters of a {@link DenseNet} or over a
+ * compact array holding nothing but the present weights.
+ *
+ * Absent weights are skipped by the forward and backward passes, which
+ * therefore cost time proportional to the number of present weights.
+ */
+public final class SparseLayer {
+
+	/**
+	 * Fraction of present input weights below which a layer is computed with
+	 * sparse kernels
+	 */
+	public static final double DENSITY_THRESHOLD = 0.25;
+
+	private final int inSize;
+
+	private final int outSize;
+
+	/**
+	 * Per neuron, the first index of its entries in {@link #columns}; the last
+	 * entry marks the end
+	 */
+	final int[] rowStart;
+
+	/**
+	 * Input neuron of each entry, ascending within a row
+	 */
+	final int[] columns;
+
+	/**
+	 * Index of each entry's weight in the weights array
+	 */
+	final int[] weightIndexes;
+
+	/**
+	 * Index of each neuron's bias weight in the weights array
+	 */
+	final int[] biasIndexes;
+
+	private SparseLayer(int inSize, int outSize, int[] rowStart, int[] columns, int[] weightIndexes,
+			int[] biasIndexes) {
+		this.inSize = inSize;
+		this.outSize = outSize;
+		this.rowStart = rowStart;
+		this.columns = columns;
+		this.weightIndexes = weightIndexes;
+		this.biasIndexes = biasIndexes;
+	}
+
+	/**
+	 * Builds the structure of the non-zero input weights of a weight matrix
+	 * laid out as in {@link DenseNet}. The entries refer to the weights at
+	 * their place in the given array.
+	 *
+	 * @param parameters
+	 *            array holding the layer's weight matrix
+	 * @param offset
+	 *            offset of the layer's weight matrix
+	 * @param inSize
+	 *            number of neurons of the previous layer
+	 * @param outSize
+	 *            number of neurons of the layer
+	 * @return the layer's structure
+	 */
+	public static SparseLayer of(double[] parameters, int offset, int inSize, int outSize) {
+		int count = countPresent(parameters, offset, inSize, outSize);
+		int[] rowStart = new int[outSize + 1];
+		int[] columns = new int[count];
+		int[] weightIndexes = new int[count];
+		int[] biasIndexes = new int[outSize];
+
+		int k = 0;
+		int row = offset;
+		for (int j = 0; j < outSize; j++, row += inSize + 1) {
+			rowStart[j] = k;
+			for (int i = 0; i < inSize; i++) {
+				if (parameters[row + i] != 0) {
+					columns[k] = i;
+					weightIndexes[k] = row + i;
+					k++;
+				}
+			}
+			biasIndexes[j] = row + inSize;
+		}
+		rowStart[outSize] = k;
+		return new SparseLayer(inSize, outSize, rowStart, columns, weightIndexes, biasIndexes);
+	}
+
+	/**
+	 * Returns the fraction of non-zero input weights of a weight matrix laid
+	 * out as in {@link DenseNet}; bias weights are not counted.
+	 */
+	public static double density(double[] parameters, int offset, int inSize, int outSize) {
+		long size = (long) inSize * outSize;
+		return size == 0 ? 1 : countPresent(parameters, offset, inSize, outSize) / (double) size;
+	}
+
+	private static int countPresent(double[] parameters, int offset, int inSize, int outSize) {
+		int count = 0;
+		int row = offset;
+		for (int j = 0; j < outSize; j++, row += inSize + 1) {
+			for (int i = 0; i < inSize; i++) {
+				if (parameters[row + i] != 0) {
+					count++;
+				}
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Returns the same structure referring to a compact weights array, which
+	 * holds the entries' weights in entry order followed by the bias weights.
+	 *
+	 * @see #gather(double[])
+	 */
+	public SparseLayer compact() {
+		int count = columns.length;
+		int[] compactWeightIndexes = new int[count];
+		for (int k = 0; k < count; k++) {
+			compactWeightIndexes[k] = k;
+		}
+		int[] compactBiasIndexes = new int[outSize];
+		for (int j = 0; j < outSize; j++) {
+			compactBiasIndexes[j] = count + j;
+		}
+		return new SparseLayer(inSize, outSize, rowStart, columns, compactWeightIndexes, compactBiasIndexes);
+	}
+
+	/**
+	 * Copies the present weights out of the given array into a compact array
+	 * for {@link #compact()}.
+	 *
+	 * @param weights
+	 *            array this structure refers to
+	 * @return the entries' weights followed by the bias weights
+	 */
+	public double[] gather(double[] weights) {
+		double[] values = new double[columns.length + outSize];
+		for (int k = 0; k < columns.length; k++) {
+			values[k] = weights[weightIndexes[k]];
+		}
+		for (int j = 0; j < outSize; j++) {
+			values[columns.length + j] = weights[biasIndexes[j]];
+		}
+		return values;
+	}
+
+	/**
+	 * Writes the weights into a weight matrix laid out as in {@link DenseNet},
+	 * absent weights as zero.
+	 *
+	 * @param weights
+	 *            array this structure refers to
+	 * @param parameters
+	 *            receives the weight matrix
+	 * @param offset
+	 *            offset of the weight matrix
+	 */
+	public void scatter(double[] weights, double[] parameters, int offset) {
+		int row = offset;
+		for (int j = 0; j < outSize; j++, row += inSize + 1) {
+			for (int i = 0; i < inSize; i++) {
+				parameters[row + i] = 0;
+			}
+			for (int k = rowStart[j]; k < rowStart[j + 1]; k++) {
+				parameters[row + columns[k]] = weights[weightIndexes[k]];
+			}
+			parameters[row + inSize] = weights[biasIndexes[j]];
+		}
+	}
+
+	/**
+	 * Forward operation of the layer, see
+	 * {@link DenseNet#activateLayer(double[], int, double, ActivationFunction, double[], double[])}.
+	 *
+	 * @param weights
+	 *            array this structure refers to
+	 * @param biasInput
+	 *            output of the bias unit
+	 * @param activationFunction
+	 *            the layer's activation function
+	 * @param in
+	 *            outputs of the previous layer
+	 * @param out
+	 *            receives the outputs of the layer
+	 */
+	public void activate(double[] weights, double biasInput, ActivationFunction activationFunction, double[] in,
+			double[] out) {
+		for (int j = 0; j < outSize; j++) {
+			double weightedSum = 0;
+			for (int k = rowStart[j]; k < rowStart[j + 1]; k++) {
+				weightedSum = weightedSum + (weights[weightIndexes[k]] * in[columns[k]]);
+			}
+			double biasWeight = weights[biasIndexes[j]];
+			weightedSum = weightedSum + (biasWeight * biasInput);
+			weightedSum += (biasWeight * DenseNet.BIAS);
+
+			out[j] = weightedSum;
+		}
+		activationFunction.calculateOutputs(out, 0, outSize);
+	}
+
+	/**
+	 * Backward operation of the layer: sums the given error terms weighted by
+	 * the present weights into one value per input neuron, i.e. multiplies
+	 * them with the transposed weight matrix.
+	 *
+	 * @param weights
+	 *            array this structure refers to
+	 * @param layerErrors
+	 *            one error term per neuron of the layer
+	 * @param sums
+	 *            receives one weighted sum per neuron of the previous layer
+	 */
+	public void weightedErrorSums(double[] weights, double[] layerErrors, double[] sums) {
+		for (int i = 0; i < inSize; i++) {
+			sums[i] = 0;
+		}
+		for (int j = 0; j < outSize; j++) {
+			double error = layerErrors[j];
+			for (int k = rowStart[j]; k < rowStart[j + 1]; k++) {
+				sums[columns[k]] = sums[columns[k]] + error * weights[weightIndexes[k]];
+			}
+		}
+	}
+
+	/**
+	 * Adds the partial derivatives of the present weights to the gradients.
+	 *
+	 * @param layerErrors
+	 *            error term of each neuron of the layer
+	 * @param in
+	 *            outputs of the previous layer
+	 * @param biasInput
+	 *            output of the bias unit
+	 * @param gradients
+	 *            gradients laid out like the weights array
+	 */
+	public void accumulateGradients(double[] layerErrors, double[] in, double biasInput, double[] gradients) {
+		for (int j = 0; j < outSize; j++) {
+			double error = layerErrors[j];
+			for (int k = rowStart[j]; k < rowStart[j + 1]; k++) {
+				gradients[weightIndexes[k]] += error * in[columns[k]];
+			}
+			gradients[biasIndexes[j]] += error * biasInput;
+		}
+	}
+
+	public int getInputSize() {
+		return inSize;
+	}
+
+	public int getOutputSize() {
+		return outSize;
+	}
+
+	/**
+	 * Returns the number of present input weights
+	 */
+	public int getEntryCount() {
+		return columns.length;
+	}
+
+	/**
+	 * Returns the fraction of present input weights
+	 */
+	public double getDensity() {
+		long size = (long) inSize * outSize;
+		return size == 0 ? 1 : columns.length / (double) size;
+	}
+
+}
@@ -0,0 +1,52 @@
+package edu.neuralnet.core.nn;
+
+/**
+ * Range of the uniformly distributed initial weights of a layer, depending on
+ * the number of its inputs (fan-in) and neurons (fan-out).
+ */
+public enum WeightInitialization {
+
+	/**
+	 * Weights in [-1, 1] regardless of the layer size
+	 */
+	UNIFORM {
+		@Override
+		public double getLimit(int fanIn, int fanOut) {
+			return 1;
+		}
+	},
+
+	/**
+	 * Glorot/Xavier initialization, suited to sigmoid and tanh layers:
+	 * weights in [-sqrt(6 / (fanIn + fanOut)), sqrt(6 / (fanIn + fanOut))]
+	 */
+	XAVIER {
+		@Override
+		public double getLimit(int fanIn, int fanOut) {
+			return Math.sqrt(6d / (fanIn + fanOut));
+		}
+	},
+
+	/**
+	 * He initialization, suited to rectified linear layers: weights in
+	 * [-sqrt(6 / fanIn), sqrt(6 / fanIn)]
+	 */
+	HE {
+		@Override
+		public double getLimit(int fanIn, int fanOut) {
+			return Math.sqrt(6d / fanIn);
+		}
+	};
+
+	/**
+	 * Returns the bound of the weight range of a layer.
+	 * 
+	 * @param fanIn
+	 *            number of inputs of each neuron
+	 * @param fanOut
+	 *            number of neurons in the layer
+	 * @return weights are drawn from [-limit, limit)
+	 */
+	public abstract double getLimit(int fanIn, int fanOut);
+
+}
@@ -0,0 +1,136 @@
+package edu.neuralnet.core.nn;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Seeded initialization of a {@link DenseNet}'s weights. Every layer gets a
+ * {@link SplittableRandom} split off the seed and every neuron a seed drawn
+ * from its layer's generator, so rows can be filled in parallel without
+ * sharing a generator and the weights depend only on the seed, not on the
+ * number of threads.
+ */
+public class WeightInitializer {
+
+	/**
+	 * Minimum number of rows filled by one task
+	 */
+	private static final int MIN_ROWS = 64;
+
+	private final WeightInitialization scheme;
+
+	private final long seed;
+
+	private final ForkJoinPool pool;
+
+	/**
+	 * Creates an initializer running on the common pool.
+	 * 
+	 * @param scheme
+	 *            weight range per layer
+	 * @param seed
+	 *            seed all weights are derived from
+	 */
+	public WeightInitializer(WeightInitialization scheme, long seed) {
+		this(scheme, seed, ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * Creates an initializer running on the given pool.
+	 * 
+	 * @param scheme
+	 *            weight range per layer
+	 * @param seed
+	 *            seed all weights are derived from
+	 * @param pool
+	 *            pool the rows are filled on
+	 */
+	public WeightInitializer(WeightInitialization scheme, long seed, ForkJoinPool pool) {
+		this.scheme = scheme;
+		this.seed = seed;
+		this.pool = pool;
+	}
+
+	/**
+	 * Sets all weights, bias weights included, and clears the momentum state.
+	 * Afterwards all layers are computed densely again.
+	 * 
+	 * @param net
+	 *            network to initialize
+	 */
+	public void initialize(DenseNet net) {
+		SplittableRandom random = new SplittableRandom(seed);
+		for (int l = 1; l < net.getLayerCount(); l++) {
+			SplittableRandom layerRandom = random.split();
+			long[] rowSeeds = new long[net.getLayerSize(l)];
+			for (int j = 0; j < rowSeeds.length; j++) {
+				rowSeeds[j] = layerRandom.nextLong();
+			}
+			double limit = scheme.getLimit(net.getLayerSize(l - 1), net.getLayerSize(l));
+			pool.invoke(new Rows(net, l, rowSeeds, limit, 0, rowSeeds.length));
+		}
+		Arrays.fill(net.getDeltas(), 0);
+		net.updateSparsity();
+	}
+
+	public WeightInitialization getScheme() {
+		return scheme;
+	}
+
+	public long getSeed() {
+		return seed;
+	}
+
+	/**
+	 * Fills a range of rows of one layer, splitting large ranges in halves.
+	 */
+	private static class Rows extends RecursiveAction {
+
+		private static final long serialVersionUID = 1L;
+
+		private final DenseNet net;
+
+		private final int layer;
+
+		private final long[] rowSeeds;
+
+		private final double limit;
+
+		private final int from;
+
+		private final int to;
+
+		Rows(DenseNet net, int layer, long[] rowSeeds, double limit, int from, int to) {
+			this.net = net;
+			this.layer = layer;
+			this.rowSeeds = rowSeeds;
+			this.limit = limit;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected void compute() {
+			if (to - from > MIN_ROWS) {
+				int middle = (from + to) >>> 1;
+				invokeAll(new Rows(net, layer, rowSeeds, limit, from, middle),
+						new Rows(net, layer, rowSeeds, limit, middle, to));
+				return;
+			}
+
+			double[] parameters = net.getParameters();
+			int stride = net.getLayerSize(layer - 1) + 1;
+			for (int j = from; j < to; j++) {
+				SplittableRandom random = new SplittableRandom(rowSeeds[j]);
+				int row = net.getOffset(layer) + j * stride;
+				for (int i = row; i < row + stride; i++) {
+					parameters[i] = random.nextDouble(-limit, limit);
+				}
+			}
+		}
+
+	}
+
+}
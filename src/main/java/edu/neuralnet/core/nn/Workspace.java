@@ -0,0 +1,96 @@
+package edu.neuralnet.core.nn;
+
+import java.util.Arrays;
+
+/**
+ * Per-caller buffers of a {@link DenseNet}: layer outputs and total inputs,
+ * derivatives, error terms and accumulated gradients. A network's weights
+ * can be shared between several workspaces, each used by a single thread at
+ * a time.
+ */
+public class Workspace {
+
+	/**
+	 * Layer outputs of the last forward pass, the input layer first
+	 */
+	final double[][] outputs;
+
+	/**
+	 * Total inputs of the last forward pass, empty for the input layer
+	 */
+	final double[][] netInputs;
+
+	/**
+	 * Activation function derivatives of the last backward pass, empty for
+	 * the input layer
+	 */
+	final double[][] derivatives;
+
+	/**
+	 * Error terms of the last backward pass
+	 */
+	final double[][] errors;
+
+	/**
+	 * Accumulated partial derivatives, laid out like the network's parameters
+	 */
+	final double[] gradients;
+
+	/**
+	 * Creates the buffers for the given network.
+	 *
+	 * @param net
+	 *            network the workspace is used with
+	 */
+	public Workspace(DenseNet net) {
+		int layerCount = net.getLayerCount();
+		outputs = new double[layerCount][];
+		netInputs = new double[layerCount][];
+		derivatives = new double[layerCount][];
+		errors = new double[layerCount][];
+		for (int l = 0; l < layerCount; l++) {
+			int size = l == 0 ? 0 : net.getLayerSize(l);
+			outputs[l] = new double[net.getLayerSize(l)];
+			netInputs[l] = new double[size];
+			derivatives[l] = new double[size];
+			errors[l] = new double[net.getLayerSize(l)];
+		}
+		gradients = new double[net.getParameters().length];
+	}
+
+	/**
+	 * Sets the input layer's outputs.
+	 *
+	 * @param inputs
+	 *            one value per input neuron
+	 */
+	public void setInput(double inputs[]) {
+		System.arraycopy(inputs, 0, outputs[0], 0, outputs[0].length);
+	}
+
+	/**
+	 * Returns the input layer's outputs, not a copy
+	 */
+	public double[] getInput() {
+		return outputs[0];
+	}
+
+	/**
+	 * Returns the output layer's outputs, not a copy
+	 */
+	public double[] getOutput() {
+		return outputs[outputs.length - 1];
+	}
+
+	/**
+	 * Returns the accumulated gradients, not a copy
+	 */
+	public double[] getGradients() {
+		return gradients;
+	}
+
+	public void clearGradients() {
+		Arrays.fill(gradients, 0);
+	}
+
+}
@@ -0,0 +1,367 @@
+package edu.neuralnet.core.nn.io;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+import edu.neuralnet.core.function.activation.ActivationFunction;
+import edu.neuralnet.core.nn.DenseNet;
+
+/**
+ * Complete training state of a {@link DenseNet}: weights, momentum state and
+ * hyper-parameters, the per-weight state of the optimizer, plus the number of
+ * finished epochs and the seed of the run. A network restored from a
+ * checkpoint continues training exactly like the one it was taken from. All
+ * values are little-endian:
+ * 
+ * <pre>
+ * int     magic "NNCK"
+ * int     version
+ * int     layer count L
+ * int     finished epochs
+ * long    seed
+ * double  bias unit output
+ * double  learning rate
+ * double  momentum
+ * int[L]  layer sizes, the input layer first
+ * int[L]  activation function ids, as in {@link ModelFormat}
+ * double[L] activation function parameters
+ * double[P] weights laid out as in DenseNet
+ * double[P] last weight changes
+ * long    number of optimizer state arrays S
+ * S times: long length N, double[N] values
+ * </pre>
+ */
+public final class Checkpoint {
+
+	/**
+	 * "NNCK" read as a little-endian int
+	 */
+	static final int MAGIC = 0x4B434E4E;
+
+	static final int VERSION = 1;
+
+	/**
+	 * Size of the buffer values are streamed through
+	 */
+	private static final int CHUNK = 1 << 16;
+
+	private final int[] layerSizes;
+
+	private final ActivationFunction[] activationFunctions;
+
+	private final double biasInput;
+
+	private final double learningRate;
+
+	private final double momentum;
+
+	private final double[] parameters;
+
+	private final double[] deltas;
+
+	private final double[][] optimizerState;
+
+	private final int epoch;
+
+	private final long seed;
+
+	private Checkpoint(int[] layerSizes, ActivationFunction[] activationFunctions, double biasInput,
+			double learningRate, double momentum, double[] parameters, double[] deltas, double[][] optimizerState,
+			int epoch, long seed) {
+		this.layerSizes = layerSizes;
+		this.activationFunctions = activationFunctions;
+		this.biasInput = biasInput;
+		this.learningRate = learningRate;
+		this.momentum = momentum;
+		this.parameters = parameters;
+		this.deltas = deltas;
+		this.optimizerState = optimizerState;
+		this.epoch = epoch;
+		this.seed = seed;
+	}
+
+	/**
+	 * Copies the current state of a network, so that the checkpoint can be
+	 * written while training goes on.
+	 * 
+	 * @param net
+	 *            network to copy, must not be trained concurrently
+	 * @param epoch
+	 *            number of finished epochs
+	 * @param seed
+	 *            seed of the training run
+	 * @return the checkpoint
+	 */
+	public static Checkpoint of(DenseNet net, int epoch, long seed) {
+		return of(net, new double[0][], epoch, seed);
+	}
+
+	/**
+	 * Copies the current state of a network and of its optimizer.
+	 * 
+	 * @param net
+	 *            network to copy, must not be trained concurrently
+	 * @param optimizerState
+	 *            per-weight state of the optimizer, copied as well
+	 * @param epoch
+	 *            number of finished epochs
+	 * @param seed
+	 *            seed of the training run
+	 * @return the checkpoint
+	 */
+	public static Checkpoint of(DenseNet net, double[][] optimizerState, int epoch, long seed) {
+		double[][] state = new double[optimizerState.length][];
+		for (int s = 0; s < state.length; s++) {
+			state[s] = optimizerState[s].clone();
+		}
+		int[] layerSizes = new int[net.getLayerCount()];
+		ActivationFunction[] activationFunctions = new ActivationFunction[layerSizes.length];
+		for (int l = 0; l < layerSizes.length; l++) {
+			layerSizes[l] = net.getLayerSize(l);
+			activationFunctions[l] = net.getActivationFunction(l);
+		}
+		return new Checkpoint(layerSizes, activationFunctions, net.getBiasInput(), net.getLearningRate(),
+				net.getMomentum(), net.getParameters().clone(), net.getDeltas().clone(), state, epoch, seed);
+	}
+
+	/**
+	 * Creates a network in the state of this checkpoint.
+	 * 
+	 * @return new network
+	 */
+	public DenseNet toDenseNet() {
+		DenseNet net = new DenseNet(layerSizes, activationFunctions, biasInput, learningRate, momentum);
+		restore(net);
+		return net;
+	}
+
+	/**
+	 * Copies the weights and momentum state of this checkpoint into a network
+	 * of the same shape, and chooses its sparse layers anew.
+	 * 
+	 * @param net
+	 *            network to restore
+	 * @throws IllegalArgumentException
+	 *             if the network has a different shape
+	 */
+	public void restore(DenseNet net) {
+		if (net.getLayerCount() != layerSizes.length) {
+			throw new IllegalArgumentException("Checkpoint does not match the network!");
+		}
+		for (int l = 0; l < layerSizes.length; l++) {
+			if (net.getLayerSize(l) != layerSizes[l]) {
+				throw new IllegalArgumentException("Checkpoint does not match the network!");
+			}
+		}
+		System.arraycopy(parameters, 0, net.getParameters(), 0, parameters.length);
+		System.arraycopy(deltas, 0, net.getDeltas(), 0, deltas.length);
+		net.updateSparsity();
+	}
+
+	/**
+	 * Writes the checkpoint. The data is written to a temporary file first
+	 * and then moved over the target, so an interrupted write never destroys
+	 * the previous checkpoint. The temporary file is removed again when the
+	 * write fails.
+	 * 
+	 * @param file
+	 *            file to write, replaced if it exists
+	 * @throws IOException
+	 *             if the file cannot be written
+	 */
+	public void write(Path file) throws IOException {
+		ByteBuffer header = ByteBuffer.allocate(headerSize(layerSizes.length)).order(ByteOrder.LITTLE_ENDIAN);
+		header.putInt(MAGIC);
+		header.putInt(VERSION);
+		header.putInt(layerSizes.length);
+		header.putInt(epoch);
+		header.putLong(seed);
+		header.putDouble(biasInput);
+		header.putDouble(learningRate);
+		header.putDouble(momentum);
+		for (int size : layerSizes) {
+			header.putInt(size);
+		}
+		for (int l = 0; l < layerSizes.length; l++) {
+			header.putInt(l == 0 ? ModelFormat.NONE : ModelFormat.idOf(activationFunctions[l]));
+		}
+		for (int l = 0; l < layerSizes.length; l++) {
+			header.putDouble(l == 0 ? 0 : ModelFormat.parameterOf(activationFunctions[l]));
+		}
+		header.flip();
+
+		Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+		boolean complete = false;
+		try {
+			try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+					StandardOpenOption.TRUNCATE_EXISTING)) {
+				writeFully(channel, header);
+				ByteBuffer chunk = ByteBuffer.allocate(CHUNK).order(ByteOrder.LITTLE_ENDIAN);
+				writeValues(channel, chunk, parameters);
+				writeValues(channel, chunk, deltas);
+				chunk.putLong(optimizerState.length);
+				for (double[] values : optimizerState) {
+					chunk.putLong(values.length);
+					writeValues(channel, chunk, values);
+				}
+				chunk.flip();
+				writeFully(channel, chunk);
+				channel.force(true);
+			}
+			Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			complete = true;
+		} finally {
+			if (!complete) {
+				Files.deleteIfExists(temp);
+			}
+		}
+	}
+
+	/**
+	 * Reads a checkpoint.
+	 * 
+	 * @param file
+	 *            file written by {@link #write(Path)}
+	 * @return the checkpoint
+	 * @throws IOException
+	 *             if the file cannot be read or is not a checkpoint
+	 */
+	public static Checkpoint read(Path file) throws IOException {
+		MappedByteBuffer buffer;
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+		}
+		buffer.order(ByteOrder.LITTLE_ENDIAN);
+		if (buffer.remaining() < headerSize(0) || buffer.getInt() != MAGIC) {
+			throw new IOException("Not a checkpoint file");
+		}
+		int version = buffer.getInt();
+		if (version != VERSION) {
+			throw new IOException("Unsupported checkpoint file version " + version);
+		}
+
+		int layerCount = buffer.getInt();
+		int epoch = buffer.getInt();
+		long seed = buffer.getLong();
+		double biasInput = buffer.getDouble();
+		double learningRate = buffer.getDouble();
+		double momentum = buffer.getDouble();
+		if (layerCount < 2 || buffer.remaining() < 16L * layerCount) {
+			throw new IOException("Truncated checkpoint file");
+		}
+
+		int[] layerSizes = new int[layerCount];
+		for (int l = 0; l < layerCount; l++) {
+			layerSizes[l] = buffer.getInt();
+			if (layerSizes[l] < 0) {
+				throw new IOException("Invalid size " + layerSizes[l] + " of layer " + l);
+			}
+		}
+		int[] ids = new int[layerCount];
+		for (int l = 0; l < layerCount; l++) {
+			ids[l] = buffer.getInt();
+		}
+		ActivationFunction[] activationFunctions = new ActivationFunction[layerCount];
+		for (int l = 0; l < layerCount; l++) {
+			activationFunctions[l] = ModelFormat.create(ids[l], buffer.getDouble());
+		}
+
+		long parameterCount = 0;
+		for (int l = 1; l < layerCount; l++) {
+			parameterCount += (long) layerSizes[l] * (layerSizes[l - 1] + 1);
+		}
+		if (buffer.remaining() < 2 * 8 * parameterCount) {
+			throw new IOException("Truncated checkpoint file");
+		}
+		double[] parameters = new double[(int) parameterCount];
+		double[] deltas = new double[parameters.length];
+		buffer.asDoubleBuffer().get(parameters).get(deltas);
+		buffer.position(buffer.position() + 2 * 8 * parameters.length);
+
+		double[][] optimizerState = new double[(int) readLength(buffer, 8)][];
+		for (int s = 0; s < optimizerState.length; s++) {
+			optimizerState[s] = new double[(int) readLength(buffer, 8)];
+			if (buffer.remaining() < 8L * optimizerState[s].length) {
+				throw new IOException("Truncated checkpoint file");
+			}
+			buffer.asDoubleBuffer().get(optimizerState[s]);
+			buffer.position(buffer.position() + 8 * optimizerState[s].length);
+		}
+
+		return new Checkpoint(layerSizes, activationFunctions, biasInput, learningRate, momentum, parameters,
+				deltas, optimizerState, epoch, seed);
+	}
+
+	/**
+	 * Reads a length and checks that it is plausible for the rest of the file.
+	 */
+	private static long readLength(ByteBuffer buffer, int elementBytes) throws IOException {
+		if (buffer.remaining() < 8) {
+			throw new IOException("Truncated checkpoint file");
+		}
+		long length = buffer.getLong();
+		if (length < 0 || length > buffer.remaining() / elementBytes) {
+			throw new IOException("Corrupt checkpoint file");
+		}
+		return length;
+	}
+
+	/**
+	 * Returns the header length of a checkpoint with the given number of
+	 * layers
+	 */
+	static int headerSize(int layerCount) {
+		return 48 + 16 * layerCount;
+	}
+
+	private static void writeValues(FileChannel channel, ByteBuffer chunk, double[] values) throws IOException {
+		for (double value : values) {
+			if (chunk.remaining() < 8) {
+				chunk.flip();
+				writeFully(channel, chunk);
+				chunk.clear();
+			}
+			chunk.putDouble(value);
+		}
+		chunk.flip();
+		writeFully(channel, chunk);
+		chunk.clear();
+	}
+
+	private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+		while (buffer.hasRemaining()) {
+			channel.write(buffer);
+		}
+	}
+
+	/**
+	 * Returns the number of finished epochs
+	 */
+	public int getEpoch() {
+		return epoch;
+	}
+
+	public long getSeed() {
+		return seed;
+	}
+
+	/**
+	 * Returns a copy of the optimizer state, empty for optimizers without
+	 * per-weight state
+	 */
+	public double[][] getOptimizerState() {
+		double[][] state = new double[optimizerState.length][];
+		for (int s = 0; s < state.length; s++) {
+			state[s] = optimizerState[s].clone();
+		}
+		return state;
+	}
+
+}
@@ -0,0 +1,106 @@
+package edu.neuralnet.core.nn.io;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import edu.neuralnet.core.nn.Precision;
+
+/**
+ * Binary columnar dataset layout. All values are little-endian:
+ * 
+ * <pre>
+ * int   magic "NNDS"
+ * int   version
+ * int   bytes per value (8 = double, 4 = float)
+ * int   input column count
+ * int   output column count
+ * int   reserved
+ * long  row count
+ * input columns, then output columns, each holding one value per row
+ * </pre>
+ * 
+ * Every column is stored contiguously, so a column can be mapped and read
+ * on its own and the file as a whole may be far larger than the heap.
+ */
+public final class DatasetFormat {
+
+	/**
+	 * "NNDS" read as a little-endian int
+	 */
+	static final int MAGIC = 0x53444E4E;
+
+	static final int VERSION = 1;
+
+	static final int HEADER_SIZE = 32;
+
+	private DatasetFormat() {
+		throw new AssertionError();
+	}
+
+	/**
+	 * Parsed header of a dataset file.
+	 */
+	static class Header {
+
+		Precision precision;
+
+		int inputColumns;
+
+		int outputColumns;
+
+		long rows;
+
+		/**
+		 * Returns the file offset of the given column
+		 */
+		long columnOffset(int column) {
+			return HEADER_SIZE + column * rows * precision.getBytes();
+		}
+
+		void write(ByteBuffer buffer) {
+			buffer.order(ByteOrder.LITTLE_ENDIAN);
+			buffer.putInt(MAGIC);
+			buffer.putInt(VERSION);
+			buffer.putInt(precision.getBytes());
+			buffer.putInt(inputColumns);
+			buffer.putInt(outputColumns);
+			buffer.putInt(0);
+			buffer.putLong(rows);
+		}
+
+		static Header read(ByteBuffer buffer) throws IOException {
+			buffer.order(ByteOrder.LITTLE_ENDIAN);
+			if (buffer.remaining() < HEADER_SIZE || buffer.getInt() != MAGIC) {
+				throw new IOException("Not a dataset file");
+			}
+			int version = buffer.getInt();
+			if (version != VERSION) {
+				throw new IOException("Unsupported dataset file version " + version);
+			}
+
+			Header header = new Header();
+			int bytes = buffer.getInt();
+			try {
+				header.precision = Precision.ofBytes(bytes);
+			} catch (IllegalArgumentException e) {
+				throw new IOException("Invalid precision of " + bytes + " bytes per value", e);
+			}
+			header.inputColumns = buffer.getInt();
+			header.outputColumns = buffer.getInt();
+			buffer.getInt();
+			header.rows = buffer.getLong();
+			if (header.inputColumns < 0 || header.outputColumns < 0
+					|| (long) header.inputColumns + header.outputColumns > Integer.MAX_VALUE) {
+				throw new IOException(
+						"Invalid column counts " + header.inputColumns + " and " + header.outputColumns);
+			}
+			if (header.rows < 0) {
+				throw new IOException("Invalid row count " + header.rows);
+			}
+			return header;
+		}
+
+	}
+
+}
@@ -0,0 +1,196 @@
+package edu.neuralnet.core.nn.io;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+import edu.neuralnet.core.nn.Precision;
+import edu.neuralnet.core.nn.train.TrainingSet;
+
+/**
+ * Writes datasets in the {@link DatasetFormat} layout row by row. Each column
+ * is collected in a small buffer and flushed to its own region of the file,
+ * so a dataset never has to be held in memory.
+ *
+ * The rows are written to a temporary file next to the target, which
+ * replaces the target in one atomic move when the writer is closed after
+ * all rows have been written. Readers that have the old file mapped keep
+ * reading it unchanged. An incomplete dataset never replaces the target.
+ */
+public class DatasetWriter implements Closeable {
+
+	/**
+	 * Values buffered per column before flushing
+	 */
+	private static final int CHUNK = 1024;
+
+	private final Path file;
+
+	private final Path temp;
+
+	private final FileChannel channel;
+
+	private final DatasetFormat.Header header;
+
+	private final ByteBuffer[] columns;
+
+	/**
+	 * File position of the next flush per column
+	 */
+	private final long[] positions;
+
+	private long rows;
+
+	/**
+	 * Creates the file and reserves space for the given number of rows.
+	 * 
+	 * @param file
+	 *            file to write, replaced if it exists
+	 * @param inputColumns
+	 *            number of input values per row
+	 * @param outputColumns
+	 *            number of expected output values per row
+	 * @param rowCount
+	 *            number of rows that will be written
+	 * @param precision
+	 *            precision the values are stored with
+	 * @throws IOException
+	 *             if the file cannot be created
+	 */
+	public DatasetWriter(Path file, int inputColumns, int outputColumns, long rowCount, Precision precision)
+			throws IOException {
+		header = new DatasetFormat.Header();
+		header.precision = precision;
+		header.inputColumns = inputColumns;
+		header.outputColumns = outputColumns;
+		header.rows = rowCount;
+
+		int columnCount = inputColumns + outputColumns;
+		columns = new ByteBuffer[columnCount];
+		positions = new long[columnCount];
+		for (int c = 0; c < columnCount; c++) {
+			columns[c] = ByteBuffer.allocate(CHUNK * precision.getBytes()).order(ByteOrder.LITTLE_ENDIAN);
+			positions[c] = header.columnOffset(c);
+		}
+
+		this.file = file;
+		temp = file.resolveSibling(file.getFileName() + ".tmp");
+		channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				StandardOpenOption.TRUNCATE_EXISTING);
+		ByteBuffer buffer = ByteBuffer.allocate(DatasetFormat.HEADER_SIZE);
+		header.write(buffer);
+		buffer.flip();
+		writeFully(buffer, 0);
+	}
+
+	/**
+	 * Writes a whole training set.
+	 * 
+	 * @param trainingSet
+	 *            samples to write
+	 * @param precision
+	 *            precision the values are stored with
+	 * @param file
+	 *            file to write, replaced if it exists
+	 * @throws IOException
+	 *             if the file cannot be written
+	 */
+	public static void write(TrainingSet trainingSet, Precision precision, Path file) throws IOException {
+		double[] input = new double[trainingSet.getInputSize()];
+		double[] expectedOutput = new double[trainingSet.getOutputSize()];
+		try (DatasetWriter writer = new DatasetWriter(file, input.length, expectedOutput.length, trainingSet.size(),
+				precision)) {
+			for (int p = 0; p < trainingSet.size(); p++) {
+				trainingSet.getRow(p, input, expectedOutput);
+				writer.addRow(input, expectedOutput);
+			}
+		}
+	}
+
+	/**
+	 * Appends a row.
+	 * 
+	 * @param input
+	 *            input values of the row
+	 * @param expectedOutput
+	 *            expected output values of the row
+	 * @throws IOException
+	 *             if a column cannot be flushed
+	 */
+	public void addRow(double[] input, double[] expectedOutput) throws IOException {
+		if (rows == header.rows) {
+			throw new IllegalStateException("All " + header.rows + " rows have been written!");
+		}
+		for (int c = 0; c < header.inputColumns; c++) {
+			put(c, input[c]);
+		}
+		for (int c = 0; c < header.outputColumns; c++) {
+			put(header.inputColumns + c, expectedOutput[c]);
+		}
+		rows++;
+	}
+
+	private void put(int column, double value) throws IOException {
+		ByteBuffer buffer = columns[column];
+		if (header.precision == Precision.DOUBLE) {
+			buffer.putDouble(value);
+		} else {
+			buffer.putFloat((float) value);
+		}
+		if (!buffer.hasRemaining()) {
+			flush(column);
+		}
+	}
+
+	private void flush(int column) throws IOException {
+		ByteBuffer buffer = columns[column];
+		buffer.flip();
+		int length = buffer.remaining();
+		writeFully(buffer, positions[column]);
+		positions[column] += length;
+		buffer.clear();
+	}
+
+	private void writeFully(ByteBuffer buffer, long position) throws IOException {
+		while (buffer.hasRemaining()) {
+			position += channel.write(buffer, position);
+		}
+	}
+
+	/**
+	 * Flushes all columns and moves the file in place of the target.
+	 * 
+	 * @throws IllegalStateException
+	 *             if fewer rows than announced have been written, in which
+	 *             case the target is left unchanged
+	 */
+	@Override
+	public void close() throws IOException {
+		boolean complete = false;
+		try {
+			if (rows == header.rows) {
+				for (int c = 0; c < columns.length; c++) {
+					flush(c);
+				}
+				channel.force(true);
+				complete = true;
+			}
+		} finally {
+			channel.close();
+			if (!complete) {
+				Files.deleteIfExists(temp);
+			}
+		}
+		if (!complete) {
+			throw new IllegalStateException("Only " + rows + " of " + header.rows + " rows have been written!");
+		}
+		Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+	}
+
+}
@@ -0,0 +1,139 @@
+package edu.neuralnet.core.nn.io;
+
+import java.nio.DoubleBuffer;
+import java.nio.FloatBuffer;
+
+import edu.neuralnet.core.function.activation.ActivationFunction;
+import edu.neuralnet.core.nn.Predictor;
+
+/**
+ * Predictor reading its weights directly from a memory-mapped model file,
+ * stored either as doubles or as floats. Weights are read with absolute
+ * gets, which leave the shared buffers untouched, so the model is
+ * thread-safe.
+ */
+public final class MappedModel implements Predictor {
+
+	private final int[] layerSizes;
+
+	private final ActivationFunction[] activationFunctions;
+
+	private final int[] offsets;
+
+	private final double biasInput;
+
+	/**
+	 * Weights when stored as doubles, otherwise <code>null</code>
+	 */
+	private final DoubleBuffer doubleWeights;
+
+	/**
+	 * Weights when stored as floats, otherwise <code>null</code>
+	 */
+	private final FloatBuffer floatWeights;
+
+	/**
+	 * Layer outputs per calling thread, the input layer first
+	 */
+	private final ThreadLocal<double[][]> scratch = new ThreadLocal<double[][]>() {
+		@Override
+		protected double[][] initialValue() {
+			double[][] outputs = new double[layerSizes.length][];
+			for (int l = 0; l < layerSizes.length; l++) {
+				outputs[l] = new double[layerSizes[l]];
+			}
+			return outputs;
+		}
+	};
+
+	MappedModel(int[] layerSizes, ActivationFunction[] activationFunctions, double biasInput,
+			DoubleBuffer doubleWeights, FloatBuffer floatWeights) {
+		this.layerSizes = layerSizes;
+		this.activationFunctions = activationFunctions;
+		this.biasInput = biasInput;
+		this.doubleWeights = doubleWeights;
+		this.floatWeights = floatWeights;
+
+		offsets = new int[layerSizes.length];
+		int size = 0;
+		for (int l = 1; l < layerSizes.length; l++) {
+			offsets[l] = size;
+			size += layerSizes[l] * (layerSizes[l - 1] + 1);
+		}
+	}
+
+	@Override
+	public int getInputSize() {
+		return layerSizes[0];
+	}
+
+	@Override
+	public int getOutputSize() {
+		return layerSizes[layerSizes.length - 1];
+	}
+
+	@Override
+	public void predict(double[] input, double[] output) {
+		double[][] outputs = scratch.get();
+		System.arraycopy(input, 0, outputs[0], 0, layerSizes[0]);
+		for (int l = 1; l < layerSizes.length; l++) {
+			activateLayer(l, outputs[l - 1], outputs[l]);
+		}
+		System.arraycopy(outputs[layerSizes.length - 1], 0, output, 0, output.length);
+	}
+
+	@Override
+	public double[][] predict(double[][] batch) {
+		double[][] result = new double[batch.length][getOutputSize()];
+		for (int b = 0; b < batch.length; b++) {
+			predict(batch[b], result[b]);
+		}
+		return result;
+	}
+
+	private void activateLayer(int layer, double[] in, double[] out) {
+		int inSize = in.length;
+		int row = offsets[layer];
+		for (int j = 0; j < out.length; j++, row += inSize + 1) {
+			double weightedSum = 0;
+			double biasWeight;
+			if (doubleWeights != null) {
+				for (int i = 0; i < inSize; i++) {
+					weightedSum = weightedSum + (doubleWeights.get(row + i) * in[i]);
+				}
+				biasWeight = doubleWeights.get(row + inSize);
+			} else {
+				for (int i = 0; i < inSize; i++) {
+					weightedSum = weightedSum + (floatWeights.get(row + i) * in[i]);
+				}
+				biasWeight = floatWeights.get(row + inSize);
+			}
+			weightedSum = weightedSum + (biasWeight * biasInput);
+			weightedSum += biasWeight;
+
+			out[j] = weightedSum;
+		}
+		activationFunctions[layer].calculateOutputs(out, 0, out.length);
+	}
+
+	int getParameterCount() {
+		return doubleWeights != null ? doubleWeights.capacity() : floatWeights.capacity();
+	}
+
+	double getParameter(int index) {
+		return doubleWeights != null ? doubleWeights.get(index) : floatWeights.get(index);
+	}
+
+	int[] getLayerSizes() {
+		return layerSizes.clone();
+	}
+
+	ActivationFunction[] getActivationFunctions() {
+		return activationFunctions.clone();
+	}
+
+	double getBiasInput() {
+		return biasInput;
+	}
+
+}
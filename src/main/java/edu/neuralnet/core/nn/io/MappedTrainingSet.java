@@ -0,0 +1,147 @@
+package edu.neuralnet.core.nn.io;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.FloatBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import edu.neuralnet.core.nn.Precision;
+import edu.neuralnet.core.nn.train.TrainingSet;
+
+/**
+ * Training set streamed from a memory-mapped {@link DatasetFormat} file. Each
+ * column is mapped separately, so the file can be much larger than both the
+ * heap and the 2 GB limit of a single mapping; the operating system pages
+ * rows in as the trainer iterates over them. Rows are read with absolute
+ * gets, so the training set can be shared between trainer threads.
+ */
+public class MappedTrainingSet implements TrainingSet {
+
+	private final DatasetFormat.Header header;
+
+	/**
+	 * Columns when stored as doubles, otherwise <code>null</code>
+	 */
+	private final DoubleBuffer[] doubleColumns;
+
+	/**
+	 * Columns when stored as floats, otherwise <code>null</code>
+	 */
+	private final FloatBuffer[] floatColumns;
+
+	private MappedTrainingSet(DatasetFormat.Header header, DoubleBuffer[] doubleColumns, FloatBuffer[] floatColumns) {
+		this.header = header;
+		this.doubleColumns = doubleColumns;
+		this.floatColumns = floatColumns;
+	}
+
+	/**
+	 * Maps a dataset file.
+	 * 
+	 * @param file
+	 *            dataset file
+	 * @return training set backed by the mapped file
+	 * @throws IOException
+	 *             if the file cannot be read or is not a valid dataset
+	 */
+	public static MappedTrainingSet open(Path file) throws IOException {
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			if (channel.size() < DatasetFormat.HEADER_SIZE) {
+				throw new IOException("Not a dataset file: " + file);
+			}
+			DatasetFormat.Header header = DatasetFormat.Header
+					.read(channel.map(FileChannel.MapMode.READ_ONLY, 0, DatasetFormat.HEADER_SIZE));
+
+			int columnCount = header.inputColumns + header.outputColumns;
+			long columnSize = header.rows * header.precision.getBytes();
+			if (header.rows > Integer.MAX_VALUE || columnSize > Integer.MAX_VALUE) {
+				throw new IOException("Dataset columns too large to map: " + file);
+			}
+			if (channel.size() < header.columnOffset(columnCount)) {
+				throw new IOException("Truncated dataset file: " + file);
+			}
+
+			DoubleBuffer[] doubleColumns = header.precision == Precision.DOUBLE ? new DoubleBuffer[columnCount] : null;
+			FloatBuffer[] floatColumns = header.precision == Precision.FLOAT ? new FloatBuffer[columnCount] : null;
+			for (int c = 0; c < columnCount; c++) {
+				MappedByteBuffer column = channel.map(FileChannel.MapMode.READ_ONLY, header.columnOffset(c),
+						columnSize);
+				column.order(ByteOrder.LITTLE_ENDIAN);
+				if (doubleColumns != null) {
+					doubleColumns[c] = column.asDoubleBuffer();
+				} else {
+					floatColumns[c] = column.asFloatBuffer();
+				}
+			}
+			return new MappedTrainingSet(header, doubleColumns, floatColumns);
+		}
+	}
+
+	@Override
+	public int size() {
+		return (int) header.rows;
+	}
+
+	@Override
+	public int getInputSize() {
+		return header.inputColumns;
+	}
+
+	@Override
+	public int getOutputSize() {
+		return header.outputColumns;
+	}
+
+	@Override
+	public void getRow(int row, double[] input, double[] expectedOutput) {
+		for (int c = 0; c < header.inputColumns; c++) {
+			input[c] = get(c, row);
+		}
+		for (int c = 0; c < header.outputColumns; c++) {
+			expectedOutput[c] = get(header.inputColumns + c, row);
+		}
+	}
+
+	private double get(int column, int row) {
+		return doubleColumns != null ? doubleColumns[column].get(row) : floatColumns[column].get(row);
+	}
+
+	public Precision getPrecision() {
+		return header.precision;
+	}
+
+	/**
+	 * Returns a read-only view of a column of a dataset stored as doubles,
+	 * without copying. Input columns come first, then output columns.
+	 * 
+	 * @param column
+	 *            column index
+	 * @return view holding one value per row
+	 */
+	public DoubleBuffer getDoubleColumn(int column) {
+		if (doubleColumns == null) {
+			throw new IllegalStateException("Dataset is stored as " + header.precision);
+		}
+		return doubleColumns[column].asReadOnlyBuffer();
+	}
+
+	/**
+	 * Returns a read-only view of a column of a dataset stored as floats,
+	 * without copying. Input columns come first, then output columns.
+	 * 
+	 * @param column
+	 *            column index
+	 * @return view holding one value per row
+	 */
+	public FloatBuffer getFloatColumn(int column) {
+		if (floatColumns == null) {
+			throw new IllegalStateException("Dataset is stored as " + header.precision);
+		}
+		return floatColumns[column].asReadOnlyBuffer();
+	}
+
+}
@@ -0,0 +1,202 @@
+package edu.neuralnet.core.nn.io;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import edu.neuralnet.core.function.activation.ActivationFunction;
+import edu.neuralnet.core.function.activation.FastSigmoidActivationFunction;
+import edu.neuralnet.core.function.activation.IdentityActivationFunction;
+import edu.neuralnet.core.function.activation.LinearCombinationFunction;
+import edu.neuralnet.core.function.activation.RectifiedLinearActivationFunction;
+import edu.neuralnet.core.function.activation.SigmoidActivationFunction;
+import edu.neuralnet.core.function.activation.SinusoidActivationFunction;
+import edu.neuralnet.core.function.activation.StepActivationFunction;
+import edu.neuralnet.core.nn.Precision;
+
+/**
+ * Binary model file layout. All values are little-endian:
+ * 
+ * <pre>
+ * int     magic "NNMD"
+ * int     version
+ * int     bytes per weight (8 = double, 4 = float)
+ * int     layer count L
+ * double  bias unit output
+ * int[L]  layer sizes, the input layer first
+ * int[L]  activation function ids (0 for the input layer)
+ * double[L] activation function parameters
+ * weights laid out as in DenseNet, as doubles or floats
+ * </pre>
+ * 
+ * The header is a multiple of eight bytes long, so the weights are aligned.
+ */
+public final class ModelFormat {
+
+	/**
+	 * "NNMD" read as a little-endian int
+	 */
+	static final int MAGIC = 0x444D4E4E;
+
+	static final int VERSION = 1;
+
+	static final int NONE = 0;
+
+	static final int IDENTITY = 1;
+
+	static final int SIGMOID = 2;
+
+	static final int RECTIFIED_LINEAR = 3;
+
+	static final int SINUSOID = 4;
+
+	static final int STEP = 5;
+
+	static final int LINEAR_COMBINATION = 6;
+
+	static final int FAST_SIGMOID = 7;
+
+	private ModelFormat() {
+		throw new AssertionError();
+	}
+
+	/**
+	 * Returns the header length of a model with the given number of layers
+	 */
+	static int headerSize(int layerCount) {
+		return 24 + 16 * layerCount;
+	}
+
+	static int idOf(ActivationFunction activationFunction) {
+		if (activationFunction == null) {
+			return NONE;
+		} else if (activationFunction instanceof IdentityActivationFunction) {
+			return IDENTITY;
+		} else if (activationFunction instanceof FastSigmoidActivationFunction) {
+			return FAST_SIGMOID;
+		} else if (activationFunction instanceof SigmoidActivationFunction) {
+			return SIGMOID;
+		} else if (activationFunction instanceof RectifiedLinearActivationFunction) {
+			return RECTIFIED_LINEAR;
+		} else if (activationFunction instanceof SinusoidActivationFunction) {
+			return SINUSOID;
+		} else if (activationFunction instanceof StepActivationFunction) {
+			return STEP;
+		} else if (activationFunction instanceof LinearCombinationFunction) {
+			return LINEAR_COMBINATION;
+		}
+		throw new IllegalArgumentException("Cannot store activation function " + activationFunction.getClass());
+	}
+
+	static double parameterOf(ActivationFunction activationFunction) {
+		if (activationFunction instanceof SigmoidActivationFunction) {
+			return ((SigmoidActivationFunction) activationFunction).getSlope();
+		} else if (activationFunction instanceof StepActivationFunction) {
+			return ((StepActivationFunction) activationFunction).getThreshold();
+		}
+		return 0;
+	}
+
+	static ActivationFunction create(int id, double parameter) throws IOException {
+		switch (id) {
+		case NONE:
+			return null;
+		case IDENTITY:
+			return new IdentityActivationFunction();
+		case SIGMOID:
+			return new SigmoidActivationFunction(parameter);
+		case RECTIFIED_LINEAR:
+			return new RectifiedLinearActivationFunction();
+		case SINUSOID:
+			return new SinusoidActivationFunction();
+		case STEP:
+			return new StepActivationFunction(parameter);
+		case LINEAR_COMBINATION:
+			return new LinearCombinationFunction();
+		case FAST_SIGMOID:
+			return new FastSigmoidActivationFunction(parameter);
+		default:
+			throw new IOException("Unknown activation function id " + id);
+		}
+	}
+
+	/**
+	 * Parsed header of a model file.
+	 */
+	static class Header {
+
+		Precision precision;
+
+		double biasInput;
+
+		int[] layerSizes;
+
+		ActivationFunction[] activationFunctions;
+
+		int parameterCount;
+
+		int size;
+
+		static Header read(ByteBuffer buffer) throws IOException {
+			buffer.order(ByteOrder.LITTLE_ENDIAN);
+			if (buffer.remaining() < headerSize(0) || buffer.getInt() != MAGIC) {
+				throw new IOException("Not a model file");
+			}
+			int version = buffer.getInt();
+			if (version != VERSION) {
+				throw new IOException("Unsupported model file version " + version);
+			}
+
+			Header header = new Header();
+			header.precision = precisionOf(buffer.getInt());
+			int layerCount = buffer.getInt();
+			header.biasInput = buffer.getDouble();
+			if (layerCount < 2) {
+				throw new IOException("Invalid layer count " + layerCount);
+			}
+			if (buffer.remaining() < 16L * layerCount) {
+				throw new IOException("Truncated model file");
+			}
+
+			header.layerSizes = new int[layerCount];
+			for (int l = 0; l < layerCount; l++) {
+				header.layerSizes[l] = buffer.getInt();
+				if (header.layerSizes[l] < 0) {
+					throw new IOException("Invalid size " + header.layerSizes[l] + " of layer " + l);
+				}
+			}
+			int[] ids = new int[layerCount];
+			for (int l = 0; l < layerCount; l++) {
+				ids[l] = buffer.getInt();
+			}
+			header.activationFunctions = new ActivationFunction[layerCount];
+			for (int l = 0; l < layerCount; l++) {
+				header.activationFunctions[l] = create(ids[l], buffer.getDouble());
+			}
+
+			long parameterCount = 0;
+			for (int l = 1; l < layerCount; l++) {
+				parameterCount += (long) header.layerSizes[l] * (header.layerSizes[l - 1] + 1);
+			}
+			if (parameterCount > Integer.MAX_VALUE) {
+				throw new IOException("Model too large");
+			}
+			header.parameterCount = (int) parameterCount;
+			header.size = headerSize(layerCount);
+			return header;
+		}
+
+		/**
+		 * Returns the precision stored with the given value size.
+		 */
+		private static Precision precisionOf(int bytes) throws IOException {
+			try {
+				return Precision.ofBytes(bytes);
+			} catch (IllegalArgumentException e) {
+				throw new IOException("Invalid precision of " + bytes + " bytes per weight", e);
+			}
+		}
+
+	}
+
+}
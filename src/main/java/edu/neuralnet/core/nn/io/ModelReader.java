@@ -0,0 +1,77 @@
+package edu.neuralnet.core.nn.io;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.FloatBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import edu.neuralnet.core.nn.ModelSnapshot;
+import edu.neuralnet.core.nn.Precision;
+
+/**
+ * Loads models written by {@link ModelWriter}.
+ */
+public final class ModelReader {
+
+	private ModelReader() {
+		throw new AssertionError();
+	}
+
+	/**
+	 * Maps a model file into memory. The weights are used straight from the
+	 * mapping without being copied, and the pages are shared with every other
+	 * process mapping the same file.
+	 * 
+	 * @param file
+	 *            model file
+	 * @return predictor backed by the mapped file
+	 * @throws IOException
+	 *             if the file cannot be read or is not a valid model
+	 */
+	public static MappedModel map(Path file) throws IOException {
+		MappedByteBuffer buffer;
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			if (channel.size() > Integer.MAX_VALUE) {
+				throw new IOException("Model file too large to map: " + file);
+			}
+			buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+		}
+
+		ModelFormat.Header header = ModelFormat.Header.read(buffer);
+		if (buffer.capacity() < header.size + (long) header.parameterCount * header.precision.getBytes()) {
+			throw new IOException("Truncated model file: " + file);
+		}
+		buffer.limit(header.size + header.parameterCount * header.precision.getBytes());
+		buffer.position(header.size);
+		if (header.precision == Precision.DOUBLE) {
+			DoubleBuffer weights = buffer.slice().order(ByteOrder.LITTLE_ENDIAN).asDoubleBuffer();
+			return new MappedModel(header.layerSizes, header.activationFunctions, header.biasInput, weights, null);
+		}
+		FloatBuffer weights = buffer.slice().order(ByteOrder.LITTLE_ENDIAN).asFloatBuffer();
+		return new MappedModel(header.layerSizes, header.activationFunctions, header.biasInput, null, weights);
+	}
+
+	/**
+	 * Reads a model file into a heap snapshot.
+	 * 
+	 * @param file
+	 *            model file
+	 * @return snapshot holding a copy of the weights
+	 * @throws IOException
+	 *             if the file cannot be read or is not a valid model
+	 */
+	public static ModelSnapshot read(Path file) throws IOException {
+		MappedModel model = map(file);
+		double[] parameters = new double[model.getParameterCount()];
+		for (int k = 0; k < parameters.length; k++) {
+			parameters[k] = model.getParameter(k);
+		}
+		return new ModelSnapshot(model.getLayerSizes(), model.getActivationFunctions(), parameters,
+				model.getBiasInput());
+	}
+
+}
@@ -0,0 +1,164 @@
+package edu.neuralnet.core.nn.io;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+import edu.neuralnet.core.function.activation.ActivationFunction;
+import edu.neuralnet.core.nn.DenseNet;
+import edu.neuralnet.core.nn.FloatDenseNet;
+import edu.neuralnet.core.nn.ModelSnapshot;
+import edu.neuralnet.core.nn.Precision;
+
+/**
+ * Writes models in the {@link ModelFormat} layout. A model is written to a
+ * temporary file next to the target, which then replaces the target in one
+ * atomic move, so processes that have the old file mapped keep reading it
+ * unchanged and new readers never see a partly written model. If writing
+ * fails, the temporary file is deleted and the target is left as it was.
+ */
+public final class ModelWriter {
+
+	/**
+	 * Size of the buffer weights are streamed through
+	 */
+	private static final int CHUNK = 1 << 16;
+
+	private ModelWriter() {
+		throw new AssertionError();
+	}
+
+	/**
+	 * Writes the current weights of a network.
+	 * 
+	 * @param net
+	 *            network to store
+	 * @param precision
+	 *            precision the weights are stored with
+	 * @param file
+	 *            file to write, replaced if it exists
+	 * @throws IOException
+	 *             if the file cannot be written
+	 */
+	public static void write(DenseNet net, Precision precision, Path file) throws IOException {
+		int[] layerSizes = new int[net.getLayerCount()];
+		ActivationFunction[] activationFunctions = new ActivationFunction[layerSizes.length];
+		for (int l = 0; l < layerSizes.length; l++) {
+			layerSizes[l] = net.getLayerSize(l);
+			activationFunctions[l] = net.getActivationFunction(l);
+		}
+		write(layerSizes, activationFunctions, net.getParameters(), net.getBiasInput(), precision, file);
+	}
+
+	/**
+	 * Writes the weights of a snapshot.
+	 * 
+	 * @param snapshot
+	 *            snapshot to store
+	 * @param precision
+	 *            precision the weights are stored with
+	 * @param file
+	 *            file to write, replaced if it exists
+	 * @throws IOException
+	 *             if the file cannot be written
+	 */
+	public static void write(ModelSnapshot snapshot, Precision precision, Path file) throws IOException {
+		int[] layerSizes = new int[snapshot.getLayerCount()];
+		ActivationFunction[] activationFunctions = new ActivationFunction[layerSizes.length];
+		for (int l = 0; l < layerSizes.length; l++) {
+			layerSizes[l] = snapshot.getLayerSize(l);
+			activationFunctions[l] = snapshot.getActivationFunction(l);
+		}
+		write(layerSizes, activationFunctions, snapshot.getParameters(), snapshot.getBiasInput(), precision, file);
+	}
+
+	/**
+	 * Writes the weights of a single-precision network as floats.
+	 * 
+	 * @param net
+	 *            network to store
+	 * @param file
+	 *            file to write, replaced if it exists
+	 * @throws IOException
+	 *             if the file cannot be written
+	 */
+	public static void write(FloatDenseNet net, Path file) throws IOException {
+		int[] layerSizes = new int[net.getLayerCount()];
+		ActivationFunction[] activationFunctions = new ActivationFunction[layerSizes.length];
+		for (int l = 0; l < layerSizes.length; l++) {
+			layerSizes[l] = net.getLayerSize(l);
+			activationFunctions[l] = net.getActivationFunction(l);
+		}
+		float[] weights = net.getParameters();
+		double[] parameters = new double[weights.length];
+		for (int k = 0; k < weights.length; k++) {
+			parameters[k] = weights[k];
+		}
+		write(layerSizes, activationFunctions, parameters, net.getBiasInput(), Precision.FLOAT, file);
+	}
+
+	private static void write(int[] layerSizes, ActivationFunction[] activationFunctions, double[] parameters,
+			double biasInput, Precision precision, Path file) throws IOException {
+		ByteBuffer header = ByteBuffer.allocate(ModelFormat.headerSize(layerSizes.length))
+				.order(ByteOrder.LITTLE_ENDIAN);
+		header.putInt(ModelFormat.MAGIC);
+		header.putInt(ModelFormat.VERSION);
+		header.putInt(precision.getBytes());
+		header.putInt(layerSizes.length);
+		header.putDouble(biasInput);
+		for (int size : layerSizes) {
+			header.putInt(size);
+		}
+		for (int l = 0; l < layerSizes.length; l++) {
+			header.putInt(l == 0 ? ModelFormat.NONE : ModelFormat.idOf(activationFunctions[l]));
+		}
+		for (int l = 0; l < layerSizes.length; l++) {
+			header.putDouble(l == 0 ? 0 : ModelFormat.parameterOf(activationFunctions[l]));
+		}
+		header.flip();
+
+		Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+		boolean complete = false;
+		try {
+			try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+					StandardOpenOption.TRUNCATE_EXISTING)) {
+				writeFully(channel, header);
+
+				ByteBuffer chunk = ByteBuffer.allocate(CHUNK).order(ByteOrder.LITTLE_ENDIAN);
+				for (double weight : parameters) {
+					if (chunk.remaining() < precision.getBytes()) {
+						chunk.flip();
+						writeFully(channel, chunk);
+						chunk.clear();
+					}
+					if (precision == Precision.DOUBLE) {
+						chunk.putDouble(weight);
+					} else {
+						chunk.putFloat((float) weight);
+					}
+				}
+				chunk.flip();
+				writeFully(channel, chunk);
+				channel.force(true);
+			}
+			Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			complete = true;
+		} finally {
+			if (!complete) {
+				Files.deleteIfExists(temp);
+			}
+		}
+	}
+
+	private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+		while (buffer.hasRemaining()) {
+			channel.write(buffer);
+		}
+	}
+
+}
@@ -0,0 +1,163 @@
+package edu.neuralnet.core.nn.train;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import edu.neuralnet.core.nn.DenseNet;
+
+/**
+ * Base class of the trainers running epoch after epoch until the error or the
+ * epoch limit is reached, or a listener requests to stop. Notifies the
+ * registered {@link TrainingListener}s after every epoch, in the order they
+ * were added; epochs are only measured while listeners are registered, and
+ * the split into phases only if phase timing is enabled, since it reads the
+ * clock several times per sample.
+ */
+public abstract class AbstractTrainer implements Trainer {
+
+	private final List<TrainingListener> listeners = new CopyOnWriteArrayList<>();
+
+	private volatile boolean phaseTiming;
+
+	public void addListener(TrainingListener listener) {
+		listeners.add(listener);
+	}
+
+	public void removeListener(TrainingListener listener) {
+		listeners.remove(listener);
+	}
+
+	/**
+	 * Enables measuring the forward, backward and update time of every epoch.
+	 */
+	public void setPhaseTiming(boolean phaseTiming) {
+		this.phaseTiming = phaseTiming;
+	}
+
+	public boolean isPhaseTiming() {
+		return phaseTiming;
+	}
+
+	@Override
+	public TrainingResult train(DenseNet net, TrainingSet trainingSet, int maxSteps, double minError) {
+		Epoch epoch = prepare(net, trainingSet);
+		for (TrainingListener listener : listeners) {
+			listener.trainingStarted(net);
+		}
+
+		int i;
+		double error = 1;
+		for (i = 0; i < maxSteps && error > minError; i++) {
+			PhaseTimer timer = new PhaseTimer(phaseTiming);
+			if (listeners.isEmpty()) {
+				error = epoch.run(timer);
+				if (epoch.isFinished()) {
+					i++;
+					break;
+				}
+				continue;
+			}
+
+			long allocated = allocatedBytes();
+			long start = System.nanoTime();
+			error = epoch.run(timer);
+			long elapsed = System.nanoTime() - start;
+			if (allocated >= 0) {
+				allocated = Math.max(0, allocatedBytes() - allocated);
+			}
+
+			EpochStatistics statistics = new EpochStatistics(i + 1, error, trainingSet.size(), elapsed, timer,
+					allocated);
+			for (TrainingListener listener : listeners) {
+				listener.epochFinished(net, statistics);
+			}
+			if (isStopRequested() || epoch.isFinished()) {
+				i++;
+				break;
+			}
+		}
+
+		TrainingResult result = new TrainingResult(i, error);
+		for (TrainingListener listener : listeners) {
+			listener.trainingFinished(net, result);
+		}
+		return result;
+	}
+
+	/**
+	 * Returns whether any listener is registered
+	 */
+	protected boolean hasListeners() {
+		return !listeners.isEmpty();
+	}
+
+	private boolean isStopRequested() {
+		for (TrainingListener listener : listeners) {
+			if (listener.isStopRequested()) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Sets up a training run, e.g. allocates the workspaces.
+	 * 
+	 * @param net
+	 *            network to train
+	 * @param trainingSet
+	 *            samples to train on
+	 * @return the epoch to run repeatedly
+	 */
+	protected abstract Epoch prepare(DenseNet net, TrainingSet trainingSet);
+
+	/**
+	 * Returns the number of bytes allocated so far by all live threads, or -1
+	 * if the JVM does not support measuring it.
+	 */
+	private static long allocatedBytes() {
+		ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+		if (!(threads instanceof com.sun.management.ThreadMXBean)) {
+			return -1;
+		}
+		com.sun.management.ThreadMXBean allocations = (com.sun.management.ThreadMXBean) threads;
+		if (!allocations.isThreadAllocatedMemorySupported() || !allocations.isThreadAllocatedMemoryEnabled()) {
+			return -1;
+		}
+
+		long sum = 0;
+		for (long bytes : allocations.getThreadAllocatedBytes(threads.getAllThreadIds())) {
+			if (bytes > 0) {
+				sum += bytes;
+			}
+		}
+		return sum;
+	}
+
+	/**
+	 * One pass over the training set.
+	 */
+	protected interface Epoch {
+
+		/**
+		 * Trains on every sample once.
+		 * 
+		 * @param timer
+		 *            receives the time spent per phase
+		 * @return sum of squared errors of the epoch
+		 */
+		double run(PhaseTimer timer);
+
+		/**
+		 * Returns whether further epochs cannot decrease the error any more,
+		 * which ends training after the epoch just run.
+		 */
+		default boolean isFinished() {
+			return false;
+		}
+
+	}
+
+}
@@ -0,0 +1,117 @@
+package edu.neuralnet.core.nn.train;
+
+import edu.neuralnet.core.nn.DenseNet;
+
+/**
+ * Adam: per-weight step sizes from bias-corrected running averages of the
+ * gradient and of its square (Kingma and Ba, 2015). The network's own
+ * learning rate and momentum are not used.
+ */
+public class AdamOptimizer implements Optimizer {
+
+	private final double learningRate;
+
+	private final double beta1;
+
+	private final double beta2;
+
+	private final double epsilon;
+
+	/**
+	 * Running average of the gradient per parameter
+	 */
+	private double[] moments;
+
+	/**
+	 * Running average of the squared gradient per parameter
+	 */
+	private double[] squaredMoments;
+
+	/**
+	 * Number of steps taken
+	 */
+	private long steps;
+
+	private double correction1;
+
+	private double correction2;
+
+	/**
+	 * Creates an optimizer with the usual decay rates 0.9 and 0.999.
+	 * 
+	 * @param learningRate
+	 *            step size
+	 */
+	public AdamOptimizer(double learningRate) {
+		this(learningRate, 0.9, 0.999, 1e-8);
+	}
+
+	/**
+	 * Creates an optimizer.
+	 * 
+	 * @param learningRate
+	 *            step size
+	 * @param beta1
+	 *            decay rate of the gradient average
+	 * @param beta2
+	 *            decay rate of the squared gradient average
+	 * @param epsilon
+	 *            added to the denominator for numerical stability
+	 */
+	public AdamOptimizer(double learningRate, double beta1, double beta2, double epsilon) {
+		this.learningRate = learningRate;
+		this.beta1 = beta1;
+		this.beta2 = beta2;
+		this.epsilon = epsilon;
+	}
+
+	@Override
+	public void initialize(DenseNet net) {
+		int size = net.getParameters().length;
+		if (moments == null || moments.length != size) {
+			moments = new double[size];
+			squaredMoments = new double[size];
+			steps = 0;
+		}
+	}
+
+	@Override
+	public void startStep() {
+		steps++;
+		correction1 = 1 - Math.pow(beta1, steps);
+		correction2 = 1 - Math.pow(beta2, steps);
+	}
+
+	@Override
+	public void update(DenseNet net, double[] gradients, int batchSize, int from, int to) {
+		double[] parameters = net.getParameters();
+		for (int k = from; k < to; k++) {
+			double gradient = gradients[k] / batchSize;
+			moments[k] = beta1 * moments[k] + (1 - beta1) * gradient;
+			squaredMoments[k] = beta2 * squaredMoments[k] + (1 - beta2) * gradient * gradient;
+			double moment = moments[k] / correction1;
+			double squaredMoment = squaredMoments[k] / correction2;
+			parameters[k] -= learningRate * moment / (Math.sqrt(squaredMoment) + epsilon);
+		}
+	}
+
+	/**
+	 * Returns the gradient averages, the squared gradient averages and the
+	 * number of steps as a single element array
+	 */
+	@Override
+	public double[][] getState() {
+		return new double[][] { moments, squaredMoments, { steps } };
+	}
+
+	@Override
+	public void setState(double[][] state) {
+		if (state.length != 3 || state[0].length != state[1].length || state[2].length != 1) {
+			throw new IllegalArgumentException("State does not belong to an Adam optimizer!");
+		}
+		moments = state[0].clone();
+		squaredMoments = state[1].clone();
+		steps = (long) state[2][0];
+	}
+
+}
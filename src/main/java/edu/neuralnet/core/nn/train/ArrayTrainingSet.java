@@ -0,0 +1,49 @@
+package edu.neuralnet.core.nn.train;
+
+/**
+ * Training set backed by in-memory arrays.
+ */
+public class ArrayTrainingSet implements TrainingSet {
+
+	private final double[][] inputs;
+
+	private final double[][] expectedOutputs;
+
+	/**
+	 * Creates a training set over the given arrays, which are not copied.
+	 * 
+	 * @param inputs
+	 *            one input row per sample
+	 * @param expectedOutputs
+	 *            one expected output row per sample
+	 */
+	public ArrayTrainingSet(double[][] inputs, double[][] expectedOutputs) {
+		if (inputs.length != expectedOutputs.length) {
+			throw new IllegalArgumentException("Inputs and expected outputs differ in length!");
+		}
+		this.inputs = inputs;
+		this.expectedOutputs = expectedOutputs;
+	}
+
+	@Override
+	public int size() {
+		return inputs.length;
+	}
+
+	@Override
+	public int getInputSize() {
+		return inputs.length == 0 ? 0 : inputs[0].length;
+	}
+
+	@Override
+	public int getOutputSize() {
+		return expectedOutputs.length == 0 ? 0 : expectedOutputs[0].length;
+	}
+
+	@Override
+	public void getRow(int row, double[] input, double[] expectedOutput) {
+		System.arraycopy(inputs[row], 0, input, 0, input.length);
+		System.arraycopy(expectedOutputs[row], 0, expectedOutput, 0, expectedOutput.length);
+	}
+
+}
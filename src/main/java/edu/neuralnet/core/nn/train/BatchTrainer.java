@@ -0,0 +1,157 @@
+package edu.neuralnet.core.nn.train;
+
+import edu.neuralnet.core.nn.DenseNet;
+import edu.neuralnet.core.nn.FloatDenseNet;
+import edu.neuralnet.core.nn.Workspace;
+
+/**
+ * Mini-batch gradient descent. Gradients are accumulated over
+ * <code>batchSize</code> consecutive samples and applied as one update by the
+ * {@link Optimizer}, momentum by default; with the default optimizer a batch
+ * size of one updates the weights after every sample, exactly like
+ * {@link DenseNet#applyBackpropagation(double[])}.
+ */
+public class BatchTrainer extends AbstractTrainer {
+
+	private final int batchSize;
+
+	private final Optimizer optimizer;
+
+	/**
+	 * Creates a trainer with the given batch size.
+	 * 
+	 * @param batchSize
+	 *            number of samples per weight update
+	 */
+	public BatchTrainer(int batchSize) {
+		this(batchSize, new MomentumOptimizer());
+	}
+
+	/**
+	 * Creates a trainer with the given batch size and optimizer.
+	 * 
+	 * @param batchSize
+	 *            number of samples per weight update
+	 * @param optimizer
+	 *            optimizer applying the gradients of each batch
+	 */
+	public BatchTrainer(int batchSize, Optimizer optimizer) {
+		if (batchSize < 1) {
+			throw new IllegalArgumentException("Batch size must be positive!");
+		}
+		this.batchSize = batchSize;
+		this.optimizer = optimizer;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * 
+	 * With a batch size of one the weight update is part of the backward
+	 * phase.
+	 */
+	@Override
+	protected Epoch prepare(DenseNet net, TrainingSet trainingSet) {
+		Workspace ws = new Workspace(net);
+		double[] expectedOutput = new double[trainingSet.getOutputSize()];
+		optimizer.initialize(net);
+		boolean online = batchSize == 1 && optimizer instanceof MomentumOptimizer;
+		int size = net.getParameters().length;
+
+		return timer -> {
+			double error = 0;
+			int batchCount = 0;
+			for (int p = 0; p < trainingSet.size(); p++) {
+				trainingSet.getRow(p, ws.getInput(), expectedOutput);
+
+				timer.start();
+				net.activate(ws);
+				timer.forwardDone();
+
+				double[] output = ws.getOutput();
+				for (int j = 0; j < expectedOutput.length; j++) {
+					double err = Math.pow(output[j] - expectedOutput[j], 2);
+					error += err;
+				}
+
+				if (online) {
+					net.applyBackpropagation(ws, expectedOutput);
+					timer.backwardDone();
+					continue;
+				}
+
+				net.accumulateGradients(ws, expectedOutput);
+				timer.backwardDone();
+				if (++batchCount == batchSize || p == trainingSet.size() - 1) {
+					optimizer.startStep();
+					optimizer.update(net, ws.getGradients(), batchCount, 0, size);
+					ws.clearGradients();
+					batchCount = 0;
+					timer.updateDone();
+				}
+			}
+			return error;
+		};
+	}
+
+	/**
+	 * Trains a single-precision network; see
+	 * {@link #train(DenseNet, TrainingSet, int, double)}. Single-precision
+	 * networks are only trained with the network's own momentum update, and
+	 * without notifying listeners.
+	 * 
+	 * @throws IllegalStateException
+	 *             if the trainer has an optimizer other than
+	 *             {@link MomentumOptimizer} or registered listeners
+	 */
+	public TrainingResult train(FloatDenseNet net, TrainingSet trainingSet, int maxSteps, double minError) {
+		if (!(optimizer instanceof MomentumOptimizer)) {
+			throw new IllegalStateException("Single-precision networks can only be trained with momentum!");
+		}
+		if (hasListeners()) {
+			throw new IllegalStateException("Single-precision training does not notify listeners!");
+		}
+		double[] input = new double[trainingSet.getInputSize()];
+		double[] expectedOutput = new double[trainingSet.getOutputSize()];
+
+		int i;
+		double error = 1;
+		for (i = 0; i < maxSteps && error > minError; i++) {
+			error = 0;
+			int batchCount = 0;
+			for (int p = 0; p < trainingSet.size(); p++) {
+				trainingSet.getRow(p, input, expectedOutput);
+				net.setInput(input);
+
+				net.activate();
+
+				double[] output = net.getOutput();
+				for (int j = 0; j < expectedOutput.length; j++) {
+					double err = Math.pow(output[j] - expectedOutput[j], 2);
+					error += err;
+				}
+
+				if (batchSize == 1) {
+					net.applyBackpropagation(expectedOutput);
+					continue;
+				}
+
+				net.accumulateGradients(expectedOutput);
+				if (++batchCount == batchSize || p == trainingSet.size() - 1) {
+					net.applyGradients(batchCount);
+					batchCount = 0;
+				}
+			}
+		}
+
+		return new TrainingResult(i, error);
+	}
+
+	public int getBatchSize() {
+		return batchSize;
+	}
+
+	public Optimizer getOptimizer() {
+		return optimizer;
+	}
+
+}
@@ -0,0 +1,198 @@
+package edu.neuralnet.core.nn.train;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import edu.neuralnet.core.nn.DenseNet;
+import edu.neuralnet.core.nn.io.Checkpoint;
+
+/**
+ * Saves a {@link Checkpoint} every few epochs and when training ends. The
+ * state is copied on the training thread between two epochs and written by a
+ * background thread, so training only waits for the copy; if the previous
+ * checkpoint is still being written, the epoch is skipped. To resume, restore
+ * the last checkpoint into the network, pass its optimizer state to
+ * {@link Optimizer#setState(double[][])} and continue with a checkpointer
+ * created from it, which keeps counting epochs where the checkpoint left off.
+ * 
+ * A resumed run continues exactly like an uninterrupted one as long as the
+ * trainer keeps all its state in the network and the optimizer. This is not
+ * the case for {@link LbfgsTrainer}, whose curvature history is not saved.
+ * When used together with {@link EarlyStopping}, register the checkpointer
+ * after it, so that the final checkpoint holds the restored weights.
+ */
+public class Checkpointer implements TrainingListener {
+
+	private final Path file;
+
+	private final int interval;
+
+	private final long seed;
+
+	private final int startEpoch;
+
+	private final Optimizer optimizer;
+
+	private ExecutorService executor;
+
+	private Future<?> pending;
+
+	private volatile int lastEpoch;
+
+	/**
+	 * Creates a checkpointer for a new training run.
+	 * 
+	 * @param file
+	 *            checkpoint file, replaced by every checkpoint
+	 * @param interval
+	 *            number of epochs between checkpoints
+	 * @param seed
+	 *            seed of the run, stored with every checkpoint
+	 */
+	public Checkpointer(Path file, int interval, long seed) {
+		this(file, interval, seed, 0, null);
+	}
+
+	/**
+	 * Creates a checkpointer for a new training run that also saves the
+	 * optimizer state.
+	 * 
+	 * @param file
+	 *            checkpoint file, replaced by every checkpoint
+	 * @param interval
+	 *            number of epochs between checkpoints
+	 * @param seed
+	 *            seed of the run, stored with every checkpoint
+	 * @param optimizer
+	 *            optimizer of the trainer
+	 */
+	public Checkpointer(Path file, int interval, long seed, Optimizer optimizer) {
+		this(file, interval, seed, 0, optimizer);
+	}
+
+	/**
+	 * Creates a checkpointer continuing from a checkpoint.
+	 * 
+	 * @param file
+	 *            checkpoint file, replaced by every checkpoint
+	 * @param interval
+	 *            number of epochs between checkpoints
+	 * @param resumed
+	 *            checkpoint the network was restored from
+	 */
+	public Checkpointer(Path file, int interval, Checkpoint resumed) {
+		this(file, interval, resumed.getSeed(), resumed.getEpoch(), null);
+	}
+
+	/**
+	 * Creates a checkpointer continuing from a checkpoint that also saves the
+	 * optimizer state.
+	 * 
+	 * @param file
+	 *            checkpoint file, replaced by every checkpoint
+	 * @param interval
+	 *            number of epochs between checkpoints
+	 * @param resumed
+	 *            checkpoint the network was restored from
+	 * @param optimizer
+	 *            optimizer of the trainer
+	 */
+	public Checkpointer(Path file, int interval, Checkpoint resumed, Optimizer optimizer) {
+		this(file, interval, resumed.getSeed(), resumed.getEpoch(), optimizer);
+	}
+
+	private Checkpointer(Path file, int interval, long seed, int startEpoch, Optimizer optimizer) {
+		if (interval < 1) {
+			throw new IllegalArgumentException("Interval must be positive!");
+		}
+		this.file = file;
+		this.interval = interval;
+		this.seed = seed;
+		this.startEpoch = startEpoch;
+		this.optimizer = optimizer;
+	}
+
+	@Override
+	public void trainingStarted(DenseNet net) {
+		executor = Executors.newSingleThreadExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "checkpoint");
+			thread.setDaemon(true);
+			return thread;
+		});
+		pending = null;
+	}
+
+	@Override
+	public void epochFinished(DenseNet net, EpochStatistics statistics) {
+		if (statistics.getEpoch() % interval != 0) {
+			return;
+		}
+		if (pending != null) {
+			if (!pending.isDone()) {
+				return;
+			}
+			await();
+		}
+		Checkpoint checkpoint = checkpoint(net, startEpoch + statistics.getEpoch());
+		pending = executor.submit(() -> {
+			checkpoint.write(file);
+			lastEpoch = checkpoint.getEpoch();
+			return null;
+		});
+	}
+
+	/**
+	 * Writes a final checkpoint and waits until it is on disk. It is written
+	 * even if the last epoch was already saved, since a listener notified
+	 * before, such as {@link EarlyStopping}, may have changed the weights.
+	 * 
+	 * @throws UncheckedIOException
+	 *             if a checkpoint could not be written
+	 */
+	@Override
+	public void trainingFinished(DenseNet net, TrainingResult result) {
+		try {
+			if (pending != null) {
+				await();
+			}
+			Checkpoint checkpoint = checkpoint(net, startEpoch + result.getEpochs());
+			checkpoint.write(file);
+			lastEpoch = checkpoint.getEpoch();
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	private Checkpoint checkpoint(DenseNet net, int epoch) {
+		return optimizer == null ? Checkpoint.of(net, epoch, seed)
+				: Checkpoint.of(net, optimizer.getState(), epoch, seed);
+	}
+
+	private void await() {
+		try {
+			pending.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			throw cause instanceof IOException ? new UncheckedIOException((IOException) cause)
+					: new IllegalStateException("Checkpoint failed", cause);
+		}
+		pending = null;
+	}
+
+	/**
+	 * Returns the epoch of the last checkpoint written, 0 if none
+	 */
+	public int getLastEpoch() {
+		return lastEpoch;
+	}
+
+}
@@ -0,0 +1,218 @@
+package edu.neuralnet.core.nn.train;
+
+import java.util.Arrays;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import edu.neuralnet.core.nn.DenseNet;
+import edu.neuralnet.core.nn.ModelSnapshot;
+
+/**
+ * Validates the network on a held-out set and stops training once the
+ * validation error has not improved for a number of validations. Each
+ * validation runs on a background thread against a {@link ModelSnapshot} taken
+ * between two epochs, so training continues meanwhile; if the previous
+ * validation is still running when an epoch ends, that epoch is not
+ * validated. When training ends, the weights of the best validated epoch are
+ * restored.
+ * 
+ * The {@link TrainingResult} returned by the trainer still describes the last
+ * epoch; {@link #getRestoredResult()} describes the restored one. Listeners
+ * are notified in the order they were added, so register this listener
+ * before a {@link Checkpointer}. The final checkpoint then holds the restored
+ * weights rather than those of the last epoch.
+ */
+public class EarlyStopping implements TrainingListener {
+
+	private final TrainingSet validationSet;
+
+	private final int patience;
+
+	private final int interval;
+
+	private ExecutorService executor;
+
+	private Future<?> pending;
+
+	private volatile boolean stopRequested;
+
+	private volatile double lastError = Double.NaN;
+
+	private volatile double bestError = Double.POSITIVE_INFINITY;
+
+	private volatile int bestEpoch;
+
+	/**
+	 * Training error reported by the best validated epoch
+	 */
+	private volatile double bestTrainingError = Double.NaN;
+
+	private volatile ModelSnapshot best;
+
+	/**
+	 * Validations in a row without improvement
+	 */
+	private int failures;
+
+	/**
+	 * Creates an early stopping listener validating after every epoch.
+	 * 
+	 * @param validationSet
+	 *            held-out samples, read from the background thread
+	 * @param patience
+	 *            number of validations without improvement before training
+	 *            stops
+	 */
+	public EarlyStopping(TrainingSet validationSet, int patience) {
+		this(validationSet, patience, 1);
+	}
+
+	/**
+	 * Creates an early stopping listener.
+	 * 
+	 * @param validationSet
+	 *            held-out samples, read from the background thread
+	 * @param patience
+	 *            number of validations without improvement before training
+	 *            stops
+	 * @param interval
+	 *            number of epochs between validations
+	 */
+	public EarlyStopping(TrainingSet validationSet, int patience, int interval) {
+		if (patience < 1 || interval < 1) {
+			throw new IllegalArgumentException("Patience and interval must be positive!");
+		}
+		this.validationSet = validationSet;
+		this.patience = patience;
+		this.interval = interval;
+	}
+
+	@Override
+	public void trainingStarted(DenseNet net) {
+		executor = Executors.newSingleThreadExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "validation");
+			thread.setDaemon(true);
+			return thread;
+		});
+		pending = null;
+		stopRequested = false;
+		lastError = Double.NaN;
+		bestError = Double.POSITIVE_INFINITY;
+		bestEpoch = 0;
+		bestTrainingError = Double.NaN;
+		best = null;
+		failures = 0;
+	}
+
+	@Override
+	public void epochFinished(DenseNet net, EpochStatistics statistics) {
+		if (statistics.getEpoch() % interval != 0 || (pending != null && !pending.isDone())) {
+			return;
+		}
+		ModelSnapshot snapshot = net.snapshot();
+		int epoch = statistics.getEpoch();
+		double trainingError = statistics.getError();
+		pending = executor.submit(() -> validate(snapshot, epoch, trainingError));
+	}
+
+	@Override
+	public boolean isStopRequested() {
+		return stopRequested;
+	}
+
+	/**
+	 * Waits for the last validation and restores the weights of the best
+	 * validated epoch. The momentum state is cleared, since it belongs to the
+	 * last epoch's weights.
+	 */
+	@Override
+	public void trainingFinished(DenseNet net, TrainingResult result) {
+		try {
+			if (pending != null) {
+				pending.get();
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} catch (ExecutionException e) {
+			throw new IllegalStateException("Validation failed", e.getCause());
+		} finally {
+			executor.shutdown();
+		}
+
+		ModelSnapshot snapshot = best;
+		if (snapshot != null) {
+			double[] parameters = snapshot.getParameters();
+			System.arraycopy(parameters, 0, net.getParameters(), 0, parameters.length);
+			Arrays.fill(net.getDeltas(), 0);
+		}
+	}
+
+	private void validate(ModelSnapshot snapshot, int epoch, double trainingError) {
+		double[] input = new double[validationSet.getInputSize()];
+		double[] expectedOutput = new double[validationSet.getOutputSize()];
+		double[] output = new double[snapshot.getOutputSize()];
+		double error = 0;
+		for (int p = 0; p < validationSet.size(); p++) {
+			validationSet.getRow(p, input, expectedOutput);
+			snapshot.predict(input, output);
+			for (int j = 0; j < output.length; j++) {
+				error += Math.pow(output[j] - expectedOutput[j], 2);
+			}
+		}
+
+		lastError = error;
+		if (error < bestError) {
+			bestError = error;
+			bestEpoch = epoch;
+			bestTrainingError = trainingError;
+			best = snapshot;
+			failures = 0;
+		} else if (++failures >= patience) {
+			stopRequested = true;
+		}
+	}
+
+	/**
+	 * Returns the sum of squared errors of the last validation
+	 */
+	public double getLastError() {
+		return lastError;
+	}
+
+	/**
+	 * Returns the lowest sum of squared errors validated so far
+	 */
+	public double getBestError() {
+		return bestError;
+	}
+
+	/**
+	 * Returns the epoch with the lowest validation error, 0 before the first
+	 * validation
+	 */
+	public int getBestEpoch() {
+		return bestEpoch;
+	}
+
+	/**
+	 * Returns the epoch count and training error of the epoch whose weights
+	 * were restored when training finished, in place of the trainer's result
+	 * for the last epoch.
+	 * 
+	 * @return result of the best validated epoch, <code>null</code> before the
+	 *         first validation
+	 */
+	public TrainingResult getRestoredResult() {
+		return best == null ? null : new TrainingResult(bestEpoch, bestTrainingError);
+	}
+
+	/**
+	 * Returns the weights of the epoch with the lowest validation error
+	 */
+	public ModelSnapshot getBest() {
+		return best;
+	}
+
+}
@@ -0,0 +1,98 @@
+package edu.neuralnet.core.nn.train;
+
+/**
+ * Measurements of a single training epoch.
+ */
+public class EpochStatistics {
+
+	/**
+	 * Number of the epoch, starting at one
+	 */
+	private final int epoch;
+
+	/**
+	 * Sum of squared errors of the epoch
+	 */
+	private final double error;
+
+	/**
+	 * Number of samples trained on
+	 */
+	private final int samples;
+
+	/**
+	 * Wall-clock time of the epoch
+	 */
+	private final long elapsedNanos;
+
+	/**
+	 * Time spent per phase, summed over all threads; zero unless phase timing
+	 * is enabled
+	 */
+	private final long forwardNanos;
+
+	private final long backwardNanos;
+
+	private final long updateNanos;
+
+	/**
+	 * Bytes allocated by all threads of the JVM during the epoch, -1 if the
+	 * JVM cannot measure it
+	 */
+	private final long allocatedBytes;
+
+	public EpochStatistics(int epoch, double error, int samples, long elapsedNanos, PhaseTimer timer,
+			long allocatedBytes) {
+		this.epoch = epoch;
+		this.error = error;
+		this.samples = samples;
+		this.elapsedNanos = elapsedNanos;
+		this.forwardNanos = timer.getForwardNanos();
+		this.backwardNanos = timer.getBackwardNanos();
+		this.updateNanos = timer.getUpdateNanos();
+		this.allocatedBytes = allocatedBytes;
+	}
+
+	public int getEpoch() {
+		return epoch;
+	}
+
+	public double getError() {
+		return error;
+	}
+
+	public int getSamples() {
+		return samples;
+	}
+
+	public long getElapsedNanos() {
+		return elapsedNanos;
+	}
+
+	public double getSamplesPerSecond() {
+		return elapsedNanos == 0 ? 0 : samples * 1e9 / elapsedNanos;
+	}
+
+	public long getForwardNanos() {
+		return forwardNanos;
+	}
+
+	public long getBackwardNanos() {
+		return backwardNanos;
+	}
+
+	public long getUpdateNanos() {
+		return updateNanos;
+	}
+
+	public long getAllocatedBytes() {
+		return allocatedBytes;
+	}
+
+	@Override
+	public String toString() {
+		return "EPOCH " + epoch + ", sum of squared errors = " + error + ", " + Math.round(getSamplesPerSecond())
+				+ " samples/s";
+	}
+
+}
@@ -0,0 +1,152 @@
+package edu.neuralnet.core.nn.train;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
+import edu.neuralnet.core.nn.DenseNet;
+import edu.neuralnet.core.nn.Workspace;
+
+/**
+ * Asynchronous lock-free stochastic gradient descent (Hogwild). Each epoch
+ * the training set is split into one contiguous slice per worker of a
+ * {@link ForkJoinPool}, and every worker updates the shared weights after each
+ * of its samples, without locks and without waiting for the others. Weights
+ * fed by a zero input are skipped, so for sparse inputs concurrent updates
+ * rarely touch the same weights.
+ * 
+ * Updates may overwrite each other and are not guaranteed to be atomic, so
+ * results vary from run to run; use {@link ParallelTrainer} for deterministic
+ * training.
+ */
+public class HogwildTrainer extends AbstractTrainer {
+
+	private final ForkJoinPool pool;
+
+	/**
+	 * Creates a trainer running on the common pool.
+	 */
+	public HogwildTrainer() {
+		this(ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * Creates a trainer running on the given pool.
+	 * 
+	 * @param pool
+	 *            pool whose parallelism determines the number of workers
+	 */
+	public HogwildTrainer(ForkJoinPool pool) {
+		this.pool = pool;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * 
+	 * Phase times are summed over the workers; weights are updated during the
+	 * backward pass.
+	 */
+	@Override
+	protected Epoch prepare(DenseNet net, TrainingSet trainingSet) {
+		int size = trainingSet.size();
+		List<Worker> workers = new ArrayList<>();
+		int workerCount = Math.max(1, Math.min(pool.getParallelism(), size));
+		for (int w = 0; w < workerCount; w++) {
+			workers.add(new Worker(net, trainingSet, (int) ((long) w * size / workerCount),
+					(int) ((long) (w + 1) * size / workerCount)));
+		}
+
+		return timer -> {
+			for (Worker worker : workers) {
+				worker.reinitialize();
+				worker.timer = new PhaseTimer(timer.isEnabled());
+			}
+			pool.invoke(new Workers(workers));
+
+			double error = 0;
+			for (Worker worker : workers) {
+				error += worker.error;
+				timer.add(worker.timer);
+			}
+			return error;
+		};
+	}
+
+	/**
+	 * Runs all workers of one epoch.
+	 */
+	private static class Workers extends RecursiveAction {
+
+		private static final long serialVersionUID = 1L;
+
+		private final List<Worker> workers;
+
+		Workers(List<Worker> workers) {
+			this.workers = workers;
+		}
+
+		@Override
+		protected void compute() {
+			ForkJoinTask.invokeAll(workers);
+		}
+
+	}
+
+	/**
+	 * Trains online on a fixed slice of the training set.
+	 */
+	private static class Worker extends RecursiveAction {
+
+		private static final long serialVersionUID = 1L;
+
+		private final DenseNet net;
+
+		private final TrainingSet trainingSet;
+
+		private final Workspace ws;
+
+		private final double[] expectedOutput;
+
+		private final int from;
+
+		private final int to;
+
+		private double error;
+
+		private PhaseTimer timer;
+
+		Worker(DenseNet net, TrainingSet trainingSet, int from, int to) {
+			this.net = net;
+			this.trainingSet = trainingSet;
+			this.from = from;
+			this.to = to;
+			ws = new Workspace(net);
+			expectedOutput = new double[trainingSet.getOutputSize()];
+		}
+
+		@Override
+		protected void compute() {
+			error = 0;
+			for (int p = from; p < to; p++) {
+				trainingSet.getRow(p, ws.getInput(), expectedOutput);
+
+				timer.start();
+				net.activate(ws);
+				timer.forwardDone();
+
+				double[] output = ws.getOutput();
+				for (int j = 0; j < expectedOutput.length; j++) {
+					double err = Math.pow(output[j] - expectedOutput[j], 2);
+					error += err;
+				}
+
+				net.applySparseBackpropagation(ws, expectedOutput);
+				timer.backwardDone();
+			}
+		}
+
+	}
+
+}
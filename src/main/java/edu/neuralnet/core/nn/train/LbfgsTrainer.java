@@ -0,0 +1,450 @@
+package edu.neuralnet.core.nn.train;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+
+import edu.neuralnet.core.nn.DenseNet;
+import edu.neuralnet.core.nn.Workspace;
+
+/**
+ * Full-batch limited-memory BFGS. Every epoch is one quasi-Newton iteration:
+ * a search direction is built from the last few weight and gradient changes,
+ * and a backtracking line search moves the weights along it until the error
+ * decreases sufficiently (Armijo condition). The error and its gradient over
+ * the whole training set are computed on a {@link ForkJoinPool}, split into a
+ * fixed number of shards of the training set. The shard gradients are always
+ * reduced in the same order and their number does not depend on the pool, so
+ * results depend neither on thread scheduling nor on the pool's parallelism.
+ * 
+ * Suited to small networks and training sets, where it typically converges
+ * in tens of iterations; the network's learning rate and momentum are not
+ * used. Training ends early at a stationary point, i.e. when the error no
+ * longer decreases, or when not even a steepest descent step decreases it
+ * sufficiently.
+ * 
+ * Unlike the other trainers, the curvature history is state kept between
+ * epochs outside the network. It lives only as long as one call to
+ * {@link #train(DenseNet, TrainingSet, int, double) train} and is not saved
+ * by a {@link Checkpointer}. A resumed run therefore starts again with an
+ * empty history, i.e. a steepest descent step, and does not continue exactly
+ * like an uninterrupted one.
+ */
+public class LbfgsTrainer extends AbstractTrainer {
+
+	/**
+	 * Smallest parameter range reduced by a single task
+	 */
+	private static final int MIN_RANGE = 4096;
+
+	/**
+	 * Fraction of the predicted decrease the line search has to achieve
+	 */
+	private static final double SUFFICIENT_DECREASE = 1e-4;
+
+	private static final int MAX_LINE_SEARCH_STEPS = 30;
+
+	private final int history;
+
+	private final ForkJoinPool pool;
+
+	private final int shardCount;
+
+	/**
+	 * Creates a trainer remembering the last ten updates, running on the
+	 * common pool with one shard per available processor.
+	 */
+	public LbfgsTrainer() {
+		this(10, ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * Creates a trainer running on the given pool, with one shard per
+	 * available processor.
+	 * 
+	 * @param history
+	 *            number of weight and gradient changes the curvature is
+	 *            estimated from
+	 * @param pool
+	 *            pool the shards run on
+	 */
+	public LbfgsTrainer(int history, ForkJoinPool pool) {
+		this(history, pool, Runtime.getRuntime().availableProcessors());
+	}
+
+	/**
+	 * Creates a trainer with the given number of shards running on the given
+	 * pool. Results only depend on the number of shards, not on the pool.
+	 * 
+	 * @param history
+	 *            number of weight and gradient changes the curvature is
+	 *            estimated from
+	 * @param pool
+	 *            pool the shards run on
+	 * @param shardCount
+	 *            number of shards the training set is split into, each with
+	 *            its own workspace
+	 */
+	public LbfgsTrainer(int history, ForkJoinPool pool, int shardCount) {
+		if (history < 1) {
+			throw new IllegalArgumentException("History must be positive!");
+		}
+		if (shardCount < 1) {
+			throw new IllegalArgumentException("Shard count must be positive!");
+		}
+		this.history = history;
+		this.pool = pool;
+		this.shardCount = shardCount;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * 
+	 * Forward and backward times are summed over the shards and all
+	 * evaluations of the line search, the update time covers the search
+	 * direction.
+	 */
+	@Override
+	protected Epoch prepare(DenseNet net, TrainingSet trainingSet) {
+		return new Iteration(net, trainingSet);
+	}
+
+	public int getHistory() {
+		return history;
+	}
+
+	public int getShardCount() {
+		return shardCount;
+	}
+
+	/**
+	 * State of the optimization kept between iterations.
+	 */
+	private class Iteration implements Epoch {
+
+		private final DenseNet net;
+
+		private final Shard[] shards;
+
+		private final double[] parameters;
+
+		private double[] gradient;
+
+		private double[] nextGradient;
+
+		private final double[] start;
+
+		private final double[] direction;
+
+		/**
+		 * Ring buffers of the last weight changes, gradient changes and their
+		 * inverse products
+		 */
+		private final double[][] weightChanges;
+
+		private final double[][] gradientChanges;
+
+		private final double[] rho;
+
+		private final double[] alpha;
+
+		private int count;
+
+		private int newest = -1;
+
+		private boolean finished;
+
+		/**
+		 * Half the sum of squared errors at the current weights, NaN before
+		 * the first evaluation
+		 */
+		private double error = Double.NaN;
+
+		Iteration(DenseNet net, TrainingSet trainingSet) {
+			this.net = net;
+			int size = trainingSet.size();
+			shards = new Shard[Math.max(1, Math.min(shardCount, size))];
+			for (int s = 0; s < shards.length; s++) {
+				shards[s] = new Shard(net, trainingSet, (int) ((long) s * size / shards.length),
+						(int) ((long) (s + 1) * size / shards.length));
+			}
+
+			parameters = net.getParameters();
+			gradient = new double[parameters.length];
+			nextGradient = new double[parameters.length];
+			start = new double[parameters.length];
+			direction = new double[parameters.length];
+			weightChanges = new double[history][parameters.length];
+			gradientChanges = new double[history][parameters.length];
+			rho = new double[history];
+			alpha = new double[history];
+		}
+
+		@Override
+		public double run(PhaseTimer timer) {
+			if (Double.isNaN(error)) {
+				error = evaluate(gradient, timer);
+			}
+
+			timer.start();
+			double slope = searchDirection();
+			if (slope >= 0) {
+				count = 0;
+				for (int k = 0; k < direction.length; k++) {
+					direction[k] = -gradient[k];
+				}
+				slope = dot(gradient, direction);
+			}
+			timer.updateDone();
+			if (slope == 0) {
+				finished = true;
+				return 2 * error;
+			}
+
+			System.arraycopy(parameters, 0, start, 0, parameters.length);
+			boolean steepestDescent = count == 0;
+			double step = steepestDescent ? Math.min(1, 1 / Math.sqrt(-slope)) : 1;
+			double nextError = Double.NaN;
+			for (int i = 0; i < MAX_LINE_SEARCH_STEPS; i++, step /= 2) {
+				for (int k = 0; k < parameters.length; k++) {
+					parameters[k] = start[k] + step * direction[k];
+				}
+				nextError = evaluate(nextGradient, timer);
+				if (nextError <= error + SUFFICIENT_DECREASE * step * slope) {
+					break;
+				}
+			}
+			if (!(nextError <= error + SUFFICIENT_DECREASE * step * slope)) {
+				// retry once along the steepest descent direction
+				System.arraycopy(start, 0, parameters, 0, parameters.length);
+				count = 0;
+				finished = steepestDescent;
+				return 2 * error;
+			}
+
+			int next = (newest + 1) % history;
+			double[] weightChange = weightChanges[next];
+			double[] gradientChange = gradientChanges[next];
+			double curvature = 0;
+			for (int k = 0; k < parameters.length; k++) {
+				weightChange[k] = parameters[k] - start[k];
+				gradientChange[k] = nextGradient[k] - gradient[k];
+				curvature += weightChange[k] * gradientChange[k];
+			}
+			if (curvature > 1e-12) {
+				rho[next] = 1 / curvature;
+				newest = next;
+				count = Math.min(count + 1, history);
+			}
+
+			double[] swap = gradient;
+			gradient = nextGradient;
+			nextGradient = swap;
+			// a step accepted without any decrease only moves within rounding
+			finished = nextError >= error;
+			error = nextError;
+			return 2 * error;
+		}
+
+		@Override
+		public boolean isFinished() {
+			return finished;
+		}
+
+		/**
+		 * Computes the search direction with the two-loop recursion.
+		 * 
+		 * @return the slope of the error along the direction
+		 */
+		private double searchDirection() {
+			for (int k = 0; k < direction.length; k++) {
+				direction[k] = -gradient[k];
+			}
+			if (count == 0) {
+				return dot(gradient, direction);
+			}
+
+			for (int i = 0, h = newest; i < count; i++, h = (h - 1 + history) % history) {
+				alpha[h] = rho[h] * dot(weightChanges[h], direction);
+				axpy(-alpha[h], gradientChanges[h], direction);
+			}
+			double scale = 1 / (rho[newest] * dot(gradientChanges[newest], gradientChanges[newest]));
+			for (int k = 0; k < direction.length; k++) {
+				direction[k] *= scale;
+			}
+			for (int i = 0, h = (newest - count + 1 + history) % history; i < count; i++, h = (h + 1) % history) {
+				double beta = rho[h] * dot(gradientChanges[h], direction);
+				axpy(alpha[h] - beta, weightChanges[h], direction);
+			}
+			return dot(gradient, direction);
+		}
+
+		/**
+		 * Computes half the sum of squared errors over the training set and
+		 * its gradient at the current weights.
+		 */
+		private double evaluate(double[] target, PhaseTimer timer) {
+			for (Shard shard : shards) {
+				shard.timer = new PhaseTimer(timer.isEnabled());
+			}
+			double sum = pool.invoke(new Evaluation(shards, target));
+			for (Shard shard : shards) {
+				timer.add(shard.timer);
+			}
+			return sum / 2;
+		}
+
+	}
+
+	private static double dot(double[] a, double[] b) {
+		double sum = 0;
+		for (int k = 0; k < a.length; k++) {
+			sum += a[k] * b[k];
+		}
+		return sum;
+	}
+
+	private static void axpy(double factor, double[] x, double[] y) {
+		for (int k = 0; k < x.length; k++) {
+			y[k] += factor * x[k];
+		}
+	}
+
+	/**
+	 * Runs all shards, then sums their gradients into the target.
+	 */
+	private static class Evaluation extends RecursiveTask<Double> {
+
+		private static final long serialVersionUID = 1L;
+
+		private final Shard[] shards;
+
+		private final double[] target;
+
+		Evaluation(Shard[] shards, double[] target) {
+			this.shards = shards;
+			this.target = target;
+		}
+
+		@Override
+		protected Double compute() {
+			for (Shard shard : shards) {
+				shard.reinitialize();
+			}
+			ForkJoinTask.invokeAll(shards);
+
+			double error = 0;
+			for (Shard shard : shards) {
+				error += shard.error;
+			}
+
+			int size = target.length;
+			int range = Math.max(MIN_RANGE, size / (shards.length * 4) + 1);
+			List<Reduction> reductions = new ArrayList<>();
+			for (int from = 0; from < size; from += range) {
+				reductions.add(new Reduction(shards, target, from, Math.min(from + range, size)));
+			}
+			ForkJoinTask.invokeAll(reductions);
+			return error;
+		}
+
+	}
+
+	/**
+	 * Computes the squared errors and gradients of a fixed slice of the
+	 * training set in its own workspace.
+	 */
+	private static class Shard extends RecursiveAction {
+
+		private static final long serialVersionUID = 1L;
+
+		private final DenseNet net;
+
+		private final TrainingSet trainingSet;
+
+		private final Workspace ws;
+
+		private final double[] expectedOutput;
+
+		private final int from;
+
+		private final int to;
+
+		private double error;
+
+		private PhaseTimer timer;
+
+		Shard(DenseNet net, TrainingSet trainingSet, int from, int to) {
+			this.net = net;
+			this.trainingSet = trainingSet;
+			this.from = from;
+			this.to = to;
+			ws = new Workspace(net);
+			expectedOutput = new double[trainingSet.getOutputSize()];
+		}
+
+		@Override
+		protected void compute() {
+			error = 0;
+			for (int p = from; p < to; p++) {
+				trainingSet.getRow(p, ws.getInput(), expectedOutput);
+
+				timer.start();
+				net.activate(ws);
+				timer.forwardDone();
+
+				double[] output = ws.getOutput();
+				for (int j = 0; j < expectedOutput.length; j++) {
+					double err = Math.pow(output[j] - expectedOutput[j], 2);
+					error += err;
+				}
+
+				net.accumulateGradients(ws, expectedOutput);
+				timer.backwardDone();
+			}
+		}
+
+	}
+
+	/**
+	 * Sums the shard gradients over a parameter range into the target and
+	 * clears them.
+	 */
+	private static class Reduction extends RecursiveAction {
+
+		private static final long serialVersionUID = 1L;
+
+		private final Shard[] shards;
+
+		private final double[] target;
+
+		private final int from;
+
+		private final int to;
+
+		Reduction(Shard[] shards, double[] target, int from, int to) {
+			this.shards = shards;
+			this.target = target;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected void compute() {
+			Arrays.fill(target, from, to, 0);
+			for (Shard shard : shards) {
+				double[] gradients = shard.ws.getGradients();
+				for (int k = from; k < to; k++) {
+					target[k] += gradients[k];
+				}
+				Arrays.fill(gradients, from, to, 0);
+			}
+		}
+
+	}
+
+}
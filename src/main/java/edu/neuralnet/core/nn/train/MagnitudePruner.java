@@ -0,0 +1,255 @@
+package edu.neuralnet.core.nn.train;
+
+import java.util.Arrays;
+
+import edu.neuralnet.core.nn.DenseNet;
+import edu.neuralnet.core.nn.Predictor;
+
+/**
+ * Magnitude pruning: the input weights with the smallest absolute values are
+ * set to zero, bias weights are never pruned. Pruning can be spread over
+ * several rounds with retraining in between, the pruned fraction growing
+ * linearly up to the target sparsity, which usually loses less accuracy than
+ * pruning everything at once. Finally the network is
+ * {@link DenseNet#compact() compacted}, removing neurons left without any
+ * connection.
+ */
+public class MagnitudePruner {
+
+	private final double sparsity;
+
+	private final PruningScope scope;
+
+	/**
+	 * Trainer used between rounds, <code>null</code> for no retraining
+	 */
+	private final Trainer trainer;
+
+	private final int rounds;
+
+	private final int epochsPerRound;
+
+	/**
+	 * Creates a pruner removing the target fraction of weights at once,
+	 * without retraining.
+	 *
+	 * @param sparsity
+	 *            fraction of input weights to remove
+	 * @param scope
+	 *            whether weights are compared per layer or over the whole
+	 *            network
+	 */
+	public MagnitudePruner(double sparsity, PruningScope scope) {
+		this(sparsity, scope, null, 1, 0);
+	}
+
+	/**
+	 * Creates a pruner retraining the network after each of several rounds.
+	 *
+	 * @param sparsity
+	 *            fraction of input weights to remove
+	 * @param scope
+	 *            whether weights are compared per layer or over the whole
+	 *            network
+	 * @param trainer
+	 *            trainer retraining the pruned network
+	 * @param rounds
+	 *            number of pruning rounds
+	 * @param epochsPerRound
+	 *            maximum number of retraining epochs after each round
+	 */
+	public MagnitudePruner(double sparsity, PruningScope scope, Trainer trainer, int rounds, int epochsPerRound) {
+		if (sparsity < 0 || sparsity > 1) {
+			throw new IllegalArgumentException("Sparsity must be between 0 and 1!");
+		}
+		if (rounds < 1) {
+			throw new IllegalArgumentException("At least one round is required!");
+		}
+		this.sparsity = sparsity;
+		this.scope = scope;
+		this.trainer = trainer;
+		this.rounds = rounds;
+		this.epochsPerRound = epochsPerRound;
+	}
+
+	/**
+	 * Prunes and retrains the given network in place, then compacts it.
+	 * While retraining, the pruned weights are kept at zero with sparse
+	 * kernels (see {@link DenseNet#updateSparsity(double)}) and reset to zero
+	 * after each round, in case the trainer's optimizer moved them.
+	 *
+	 * @param net
+	 *            network to prune
+	 * @param trainingSet
+	 *            samples to retrain on, may be <code>null</code> without
+	 *            retraining
+	 * @param evaluationSet
+	 *            samples the error is measured on before and after pruning
+	 * @return the compacted network with parameter counts and errors
+	 */
+	public PruningReport prune(DenseNet net, TrainingSet trainingSet, TrainingSet evaluationSet) {
+		int parametersBefore = countParameters(net);
+		int neuronsBefore = countHiddenNeurons(net);
+		double errorBefore = sumOfSquaredErrors(net.snapshot(), evaluationSet);
+
+		double[] parameters = net.getParameters();
+		for (int r = 1; r <= rounds; r++) {
+			prune(net, sparsity * r / rounds);
+			if (trainer != null && epochsPerRound > 0) {
+				boolean[] pruned = new boolean[parameters.length];
+				for (int k = 0; k < parameters.length; k++) {
+					pruned[k] = parameters[k] == 0;
+				}
+				net.updateSparsity(1);
+				trainer.train(net, trainingSet, epochsPerRound, 0);
+				for (int k = 0; k < parameters.length; k++) {
+					if (pruned[k]) {
+						parameters[k] = 0;
+						net.getDeltas()[k] = 0;
+					}
+				}
+			}
+		}
+		net.updateSparsity();
+
+		DenseNet compact = net.compact();
+		return new PruningReport(compact, parametersBefore, countParameters(compact), neuronsBefore,
+				countHiddenNeurons(compact), errorBefore, sumOfSquaredErrors(compact.snapshot(), evaluationSet));
+	}
+
+	/**
+	 * Sets the smallest input weights to zero, so that the given fraction of
+	 * them is zero, within each layer or over the whole network depending on
+	 * the scope. Weights that already are zero count as pruned. The momentum
+	 * of pruned weights is cleared and the sparse layers are chosen anew.
+	 *
+	 * @param net
+	 *            network to prune
+	 * @param sparsity
+	 *            fraction of input weights that are zero afterwards
+	 */
+	public void prune(DenseNet net, double sparsity) {
+		if (scope == PruningScope.GLOBAL) {
+			pruneLayers(net, 1, net.getLayerCount(), sparsity);
+		} else {
+			for (int l = 1; l < net.getLayerCount(); l++) {
+				pruneLayers(net, l, l + 1, sparsity);
+			}
+		}
+		net.updateSparsity();
+	}
+
+	/**
+	 * Prunes the input weights of the layers <code>from</code> (inclusive) to
+	 * <code>to</code> (exclusive) together.
+	 */
+	private static void pruneLayers(DenseNet net, int from, int to, double sparsity) {
+		int count = 0;
+		for (int l = from; l < to; l++) {
+			count += net.getLayerSize(l) * net.getLayerSize(l - 1);
+		}
+		int prunedCount = (int) (sparsity * count);
+		if (prunedCount == 0) {
+			return;
+		}
+
+		double[] parameters = net.getParameters();
+		double[] magnitudes = new double[count];
+		int m = 0;
+		for (int l = from; l < to; l++) {
+			int inSize = net.getLayerSize(l - 1);
+			int row = net.getOffset(l);
+			for (int j = 0; j < net.getLayerSize(l); j++, row += inSize + 1) {
+				for (int i = 0; i < inSize; i++) {
+					magnitudes[m++] = Math.abs(parameters[row + i]);
+				}
+			}
+		}
+		Arrays.sort(magnitudes);
+		double threshold = magnitudes[prunedCount - 1];
+		int ties = prunedCount - lowerBound(magnitudes, threshold);
+
+		double[] deltas = net.getDeltas();
+		for (int l = from; l < to; l++) {
+			int inSize = net.getLayerSize(l - 1);
+			int row = net.getOffset(l);
+			for (int j = 0; j < net.getLayerSize(l); j++, row += inSize + 1) {
+				for (int i = 0; i < inSize; i++) {
+					double magnitude = Math.abs(parameters[row + i]);
+					if (magnitude < threshold || (magnitude == threshold && ties-- > 0)) {
+						parameters[row + i] = 0;
+						deltas[row + i] = 0;
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Returns the number of sorted values less than the given one.
+	 */
+	private static int lowerBound(double[] sorted, double value) {
+		int low = 0;
+		int high = sorted.length;
+		while (low < high) {
+			int middle = (low + high) >>> 1;
+			if (sorted[middle] < value) {
+				low = middle + 1;
+			} else {
+				high = middle;
+			}
+		}
+		return low;
+	}
+
+	/**
+	 * Returns the number of non-zero input weights plus all bias weights
+	 */
+	private static int countParameters(DenseNet net) {
+		double[] parameters = net.getParameters();
+		int count = 0;
+		for (int l = 1; l < net.getLayerCount(); l++) {
+			int inSize = net.getLayerSize(l - 1);
+			int row = net.getOffset(l);
+			for (int j = 0; j < net.getLayerSize(l); j++, row += inSize + 1) {
+				for (int i = 0; i < inSize; i++) {
+					count += parameters[row + i] != 0 ? 1 : 0;
+				}
+				count++;
+			}
+		}
+		return count;
+	}
+
+	private static int countHiddenNeurons(DenseNet net) {
+		int count = 0;
+		for (int l = 1; l < net.getLayerCount() - 1; l++) {
+			count += net.getLayerSize(l);
+		}
+		return count;
+	}
+
+	private static double sumOfSquaredErrors(Predictor predictor, TrainingSet evaluationSet) {
+		double[] input = new double[evaluationSet.getInputSize()];
+		double[] expectedOutput = new double[evaluationSet.getOutputSize()];
+		double[] output = new double[predictor.getOutputSize()];
+		double error = 0;
+		for (int p = 0; p < evaluationSet.size(); p++) {
+			evaluationSet.getRow(p, input, expectedOutput);
+			predictor.predict(input, output);
+			for (int j = 0; j < output.length; j++) {
+				error += Math.pow(output[j] - expectedOutput[j], 2);
+			}
+		}
+		return error;
+	}
+
+	public double getSparsity() {
+		return sparsity;
+	}
+
+	public PruningScope getScope() {
+		return scope;
+	}
+
+}
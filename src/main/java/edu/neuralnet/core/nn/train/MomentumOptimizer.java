@@ -0,0 +1,37 @@
+package edu.neuralnet.core.nn.train;
+
+import edu.neuralnet.core.nn.DenseNet;
+
+/**
+ * Gradient descent with momentum, using the learning rate, momentum and last
+ * weight changes of the network itself; see
+ * {@link DenseNet#applyGradients(double[], int, int, int)}. This is the
+ * default optimizer of the trainers.
+ */
+public class MomentumOptimizer implements Optimizer {
+
+	@Override
+	public void initialize(DenseNet net) {
+	}
+
+	@Override
+	public void update(DenseNet net, double[] gradients, int batchSize, int from, int to) {
+		net.applyGradients(gradients, batchSize, from, to);
+	}
+
+	/**
+	 * The momentum state is part of the network, so there is none here.
+	 */
+	@Override
+	public double[][] getState() {
+		return new double[0][];
+	}
+
+	@Override
+	public void setState(double[][] state) {
+		if (state.length != 0) {
+			throw new IllegalArgumentException("Momentum optimizer has no state!");
+		}
+	}
+
+}
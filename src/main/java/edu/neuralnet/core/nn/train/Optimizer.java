@@ -0,0 +1,59 @@
+package edu.neuralnet.core.nn.train;
+
+import edu.neuralnet.core.nn.DenseNet;
+
+/**
+ * Turns accumulated gradients into weight changes. Per-weight state is kept
+ * in flat arrays laid out like the network's parameters, so an optimizer
+ * instance belongs to one network. Within a step, disjoint parameter ranges
+ * may be updated concurrently.
+ */
+public interface Optimizer {
+
+	/**
+	 * Prepares the per-weight state for the given network. Existing state of
+	 * a network of the same size is kept, so training can be continued.
+	 * 
+	 * @param net
+	 *            network to optimize
+	 */
+	void initialize(DenseNet net);
+
+	/**
+	 * Called once before the ranges of an update step are applied.
+	 */
+	default void startStep() {
+	}
+
+	/**
+	 * Updates the parameters in the given range.
+	 * 
+	 * @param net
+	 *            network to update
+	 * @param gradients
+	 *            partial derivatives of the error summed over the batch
+	 * @param batchSize
+	 *            number of samples the gradients were summed over
+	 * @param from
+	 *            first parameter index, inclusive
+	 * @param to
+	 *            last parameter index, exclusive
+	 */
+	void update(DenseNet net, double[] gradients, int batchSize, int from, int to);
+
+	/**
+	 * Returns the per-weight state for checkpoints, not a copy
+	 */
+	double[][] getState();
+
+	/**
+	 * Replaces the per-weight state, e.g. from a checkpoint.
+	 * 
+	 * @param state
+	 *            arrays as returned by {@link #getState()}
+	 * @throws IllegalArgumentException
+	 *             if the state does not fit this optimizer
+	 */
+	void setState(double[][] state);
+
+}
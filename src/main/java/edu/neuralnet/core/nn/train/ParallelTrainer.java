@@ -0,0 +1,321 @@
+package edu.neuralnet.core.nn.train;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+
+import edu.neuralnet.core.nn.DenseNet;
+import edu.neuralnet.core.nn.Workspace;
+
+/**
+ * Data-parallel mini-batch gradient descent. Every batch is split into a
+ * fixed number of shards run on a {@link ForkJoinPool}; each shard runs the
+ * forward and backward passes in its own {@link Workspace} against the shared
+ * weights, which stay unchanged until the shard gradients have been summed.
+ * The sum and the optimizer update are then done in parallel over disjoint
+ * parameter ranges. Shards are always reduced in the same order and their
+ * number does not depend on the pool, so results depend neither on thread
+ * scheduling nor on the pool's parallelism.
+ * 
+ * Speed-up grows with the batch size: a batch only keeps as many workers busy
+ * as it has samples, and every batch ends with a reduction over all weights.
+ */
+public class ParallelTrainer extends AbstractTrainer {
+
+	/**
+	 * Smallest parameter range reduced by a single task
+	 */
+	private static final int MIN_RANGE = 4096;
+
+	private final int batchSize;
+
+	private final Optimizer optimizer;
+
+	private final ForkJoinPool pool;
+
+	private final int shardCount;
+
+	/**
+	 * Creates a trainer running on the common pool, with one shard per
+	 * available processor.
+	 * 
+	 * @param batchSize
+	 *            number of samples per weight update
+	 */
+	public ParallelTrainer(int batchSize) {
+		this(batchSize, ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * Creates a trainer running on the given pool, with one shard per
+	 * available processor.
+	 * 
+	 * @param batchSize
+	 *            number of samples per weight update
+	 * @param pool
+	 *            pool the shards run on
+	 */
+	public ParallelTrainer(int batchSize, ForkJoinPool pool) {
+		this(batchSize, new MomentumOptimizer(), pool);
+	}
+
+	/**
+	 * Creates a trainer with the given optimizer running on the given pool,
+	 * with one shard per available processor.
+	 * 
+	 * @param batchSize
+	 *            number of samples per weight update
+	 * @param optimizer
+	 *            optimizer applying the gradients of each batch
+	 * @param pool
+	 *            pool the shards run on
+	 */
+	public ParallelTrainer(int batchSize, Optimizer optimizer, ForkJoinPool pool) {
+		this(batchSize, optimizer, pool, Runtime.getRuntime().availableProcessors());
+	}
+
+	/**
+	 * Creates a trainer with the given optimizer and number of shards
+	 * running on the given pool. Results only depend on the number of shards,
+	 * not on the pool.
+	 * 
+	 * @param batchSize
+	 *            number of samples per weight update
+	 * @param optimizer
+	 *            optimizer applying the gradients of each batch
+	 * @param pool
+	 *            pool the shards run on
+	 * @param shardCount
+	 *            number of shards a batch is split into, each with its own
+	 *            workspace
+	 */
+	public ParallelTrainer(int batchSize, Optimizer optimizer, ForkJoinPool pool, int shardCount) {
+		if (batchSize < 1) {
+			throw new IllegalArgumentException("Batch size must be positive!");
+		}
+		if (shardCount < 1) {
+			throw new IllegalArgumentException("Shard count must be positive!");
+		}
+		this.batchSize = batchSize;
+		this.optimizer = optimizer;
+		this.pool = pool;
+		this.shardCount = shardCount;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * 
+	 * Forward and backward times are summed over the shards, the update time
+	 * is the wall-clock time of the reductions.
+	 */
+	@Override
+	protected Epoch prepare(DenseNet net, TrainingSet trainingSet) {
+		Shard[] shards = new Shard[Math.min(shardCount, batchSize)];
+		for (int s = 0; s < shards.length; s++) {
+			shards[s] = new Shard(net, trainingSet);
+		}
+		optimizer.initialize(net);
+
+		return timer -> {
+			for (Shard shard : shards) {
+				shard.timer = new PhaseTimer(timer.isEnabled());
+			}
+			double error = 0;
+			for (int start = 0; start < trainingSet.size(); start += batchSize) {
+				int end = Math.min(start + batchSize, trainingSet.size());
+				error += pool.invoke(new BatchStep(net, optimizer, shards, start, end, timer));
+			}
+			for (Shard shard : shards) {
+				timer.add(shard.timer);
+			}
+			return error;
+		};
+	}
+
+	public int getBatchSize() {
+		return batchSize;
+	}
+
+	public Optimizer getOptimizer() {
+		return optimizer;
+	}
+
+	public int getShardCount() {
+		return shardCount;
+	}
+
+	/**
+	 * Runs all shards of one batch, then reduces and applies their gradients.
+	 */
+	private static class BatchStep extends RecursiveTask<Double> {
+
+		private static final long serialVersionUID = 1L;
+
+		private final DenseNet net;
+
+		private final Optimizer optimizer;
+
+		private final Shard[] shards;
+
+		private final int start;
+
+		private final int end;
+
+		private final PhaseTimer timer;
+
+		BatchStep(DenseNet net, Optimizer optimizer, Shard[] shards, int start, int end, PhaseTimer timer) {
+			this.net = net;
+			this.optimizer = optimizer;
+			this.shards = shards;
+			this.start = start;
+			this.end = end;
+			this.timer = timer;
+		}
+
+		@Override
+		protected Double compute() {
+			int count = end - start;
+			int shardCount = Math.min(shards.length, count);
+			List<Shard> tasks = new ArrayList<>(shardCount);
+			for (int s = 0; s < shardCount; s++) {
+				shards[s].reinitialize();
+				shards[s].setRows(start + (int) ((long) s * count / shardCount),
+						start + (int) ((long) (s + 1) * count / shardCount));
+				tasks.add(shards[s]);
+			}
+			ForkJoinTask.invokeAll(tasks);
+
+			double error = 0;
+			for (Shard shard : tasks) {
+				error += shard.error;
+			}
+
+			timer.start();
+			optimizer.startStep();
+			int size = net.getParameters().length;
+			int range = Math.max(MIN_RANGE, size / (shards.length * 4) + 1);
+			List<Update> updates = new ArrayList<>();
+			for (int from = 0; from < size; from += range) {
+				updates.add(new Update(net, optimizer, shards, shardCount, count, from,
+						Math.min(from + range, size)));
+			}
+			ForkJoinTask.invokeAll(updates);
+			timer.updateDone();
+
+			return error;
+		}
+
+	}
+
+	/**
+	 * Accumulates the gradients of a contiguous range of samples in its own
+	 * workspace.
+	 */
+	private static class Shard extends RecursiveAction {
+
+		private static final long serialVersionUID = 1L;
+
+		private final DenseNet net;
+
+		private final TrainingSet trainingSet;
+
+		private final Workspace ws;
+
+		private final double[] expectedOutput;
+
+		private int from;
+
+		private int to;
+
+		private double error;
+
+		private PhaseTimer timer;
+
+		Shard(DenseNet net, TrainingSet trainingSet) {
+			this.net = net;
+			this.trainingSet = trainingSet;
+			ws = new Workspace(net);
+			expectedOutput = new double[trainingSet.getOutputSize()];
+		}
+
+		void setRows(int from, int to) {
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected void compute() {
+			error = 0;
+			for (int p = from; p < to; p++) {
+				trainingSet.getRow(p, ws.getInput(), expectedOutput);
+
+				timer.start();
+				net.activate(ws);
+				timer.forwardDone();
+
+				double[] output = ws.getOutput();
+				for (int j = 0; j < expectedOutput.length; j++) {
+					double err = Math.pow(output[j] - expectedOutput[j], 2);
+					error += err;
+				}
+
+				net.accumulateGradients(ws, expectedOutput);
+				timer.backwardDone();
+			}
+		}
+
+	}
+
+	/**
+	 * Sums the shard gradients over a parameter range, applies them and
+	 * clears them for the next batch.
+	 */
+	private static class Update extends RecursiveAction {
+
+		private static final long serialVersionUID = 1L;
+
+		private final DenseNet net;
+
+		private final Optimizer optimizer;
+
+		private final Shard[] shards;
+
+		private final int shardCount;
+
+		private final int batchSize;
+
+		private final int from;
+
+		private final int to;
+
+		Update(DenseNet net, Optimizer optimizer, Shard[] shards, int shardCount, int batchSize, int from, int to) {
+			this.net = net;
+			this.optimizer = optimizer;
+			this.shards = shards;
+			this.shardCount = shardCount;
+			this.batchSize = batchSize;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected void compute() {
+			double[] sum = shards[0].ws.getGradients();
+			for (int s = 1; s < shardCount; s++) {
+				double[] gradients = shards[s].ws.getGradients();
+				for (int k = from; k < to; k++) {
+					sum[k] += gradients[k];
+				}
+				Arrays.fill(gradients, from, to, 0);
+			}
+			optimizer.update(net, sum, batchSize, from, to);
+			Arrays.fill(sum, from, to, 0);
+		}
+
+	}
+
+}
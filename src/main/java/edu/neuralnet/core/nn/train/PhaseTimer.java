@@ -0,0 +1,87 @@
+package edu.neuralnet.core.nn.train;
+
+/**
+ * Splits the time of an epoch into forward pass, backward pass and weight
+ * update. Each phase is measured from the end of the previous one, so a
+ * trainer calls {@link #start()} before a sample and the matching
+ * <code>...Done()</code> method after each phase. A disabled timer does not
+ * read the clock at all.
+ */
+public final class PhaseTimer {
+
+	private final boolean enabled;
+
+	private long mark;
+
+	private long forwardNanos;
+
+	private long backwardNanos;
+
+	private long updateNanos;
+
+	/**
+	 * Creates a timer.
+	 * 
+	 * @param enabled
+	 *            whether the phases are measured
+	 */
+	public PhaseTimer(boolean enabled) {
+		this.enabled = enabled;
+	}
+
+	public void start() {
+		if (enabled) {
+			mark = System.nanoTime();
+		}
+	}
+
+	public void forwardDone() {
+		if (enabled) {
+			long now = System.nanoTime();
+			forwardNanos += now - mark;
+			mark = now;
+		}
+	}
+
+	public void backwardDone() {
+		if (enabled) {
+			long now = System.nanoTime();
+			backwardNanos += now - mark;
+			mark = now;
+		}
+	}
+
+	public void updateDone() {
+		if (enabled) {
+			long now = System.nanoTime();
+			updateNanos += now - mark;
+			mark = now;
+		}
+	}
+
+	/**
+	 * Adds the phase times of another timer, e.g. of a worker thread.
+	 */
+	public void add(PhaseTimer other) {
+		forwardNanos += other.forwardNanos;
+		backwardNanos += other.backwardNanos;
+		updateNanos += other.updateNanos;
+	}
+
+	public boolean isEnabled() {
+		return enabled;
+	}
+
+	public long getForwardNanos() {
+		return forwardNanos;
+	}
+
+	public long getBackwardNanos() {
+		return backwardNanos;
+	}
+
+	public long getUpdateNanos() {
+		return updateNanos;
+	}
+
+}
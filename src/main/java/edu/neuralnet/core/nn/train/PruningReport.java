@@ -0,0 +1,98 @@
+package edu.neuralnet.core.nn.train;
+
+import edu.neuralnet.core.nn.DenseNet;
+
+/**
+ * Outcome of a {@link MagnitudePruner} run: the compacted network and what it
+ * cost.
+ */
+public class PruningReport {
+
+	private final DenseNet model;
+
+	/**
+	 * Number of non-zero input weights plus bias weights before pruning
+	 */
+	private final int parametersBefore;
+
+	private final int parametersAfter;
+
+	/**
+	 * Number of hidden neurons before pruning
+	 */
+	private final int neuronsBefore;
+
+	private final int neuronsAfter;
+
+	/**
+	 * Sum of squared errors on the evaluation set before pruning
+	 */
+	private final double errorBefore;
+
+	private final double errorAfter;
+
+	public PruningReport(DenseNet model, int parametersBefore, int parametersAfter, int neuronsBefore,
+			int neuronsAfter, double errorBefore, double errorAfter) {
+		this.model = model;
+		this.parametersBefore = parametersBefore;
+		this.parametersAfter = parametersAfter;
+		this.neuronsBefore = neuronsBefore;
+		this.neuronsAfter = neuronsAfter;
+		this.errorBefore = errorBefore;
+		this.errorAfter = errorAfter;
+	}
+
+	/**
+	 * Returns the pruned and compacted network
+	 */
+	public DenseNet getModel() {
+		return model;
+	}
+
+	public int getParametersBefore() {
+		return parametersBefore;
+	}
+
+	public int getParametersAfter() {
+		return parametersAfter;
+	}
+
+	/**
+	 * Returns the number of removed weights and bias weights
+	 */
+	public int getParametersRemoved() {
+		return parametersBefore - parametersAfter;
+	}
+
+	public int getNeuronsBefore() {
+		return neuronsBefore;
+	}
+
+	public int getNeuronsAfter() {
+		return neuronsAfter;
+	}
+
+	/**
+	 * Returns the number of removed hidden neurons
+	 */
+	public int getNeuronsRemoved() {
+		return neuronsBefore - neuronsAfter;
+	}
+
+	public double getErrorBefore() {
+		return errorBefore;
+	}
+
+	public double getErrorAfter() {
+		return errorAfter;
+	}
+
+	@Override
+	public String toString() {
+		return "Parameters " + parametersBefore + " -> " + parametersAfter + " ("
+				+ String.format("%.1f", 100.0 * getParametersRemoved() / parametersBefore) + "% removed), hidden neurons "
+				+ neuronsBefore + " -> " + neuronsAfter + ", sum of squared errors " + errorBefore + " -> "
+				+ errorAfter;
+	}
+
+}
@@ -0,0 +1,20 @@
+package edu.neuralnet.core.nn.train;
+
+/**
+ * Selects which weights a {@link MagnitudePruner} compares with each other.
+ */
+public enum PruningScope {
+
+	/**
+	 * The smallest weights of the whole network are removed, so layers with
+	 * many small weights lose more of them than others.
+	 */
+	GLOBAL,
+
+	/**
+	 * The smallest weights of each layer are removed, every layer losing the
+	 * same fraction.
+	 */
+	PER_LAYER
+
+}
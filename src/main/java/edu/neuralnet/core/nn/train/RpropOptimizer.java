@@ -0,0 +1,96 @@
+package edu.neuralnet.core.nn.train;
+
+import java.util.Arrays;
+
+import edu.neuralnet.core.nn.DenseNet;
+
+/**
+ * Resilient propagation (iRprop-): every weight has its own step size, which
+ * grows while the sign of its gradient stays the same and shrinks when it
+ * flips; only the sign of the gradient is used. Works best with full-batch
+ * training, i.e. a batch size of at least the training set size.
+ */
+public class RpropOptimizer implements Optimizer {
+
+	private static final double INCREASE = 1.2;
+
+	private static final double DECREASE = 0.5;
+
+	private static final double MAX_STEP = 50;
+
+	private static final double MIN_STEP = 1e-6;
+
+	private final double initialStep;
+
+	/**
+	 * Gradient of the previous step per parameter, zero after a sign change
+	 */
+	private double[] lastGradients;
+
+	/**
+	 * Current step size per parameter
+	 */
+	private double[] steps;
+
+	/**
+	 * Creates an optimizer with an initial step size of 0.1.
+	 */
+	public RpropOptimizer() {
+		this(0.1);
+	}
+
+	/**
+	 * Creates an optimizer.
+	 * 
+	 * @param initialStep
+	 *            step size of every weight before the first update
+	 */
+	public RpropOptimizer(double initialStep) {
+		this.initialStep = initialStep;
+	}
+
+	@Override
+	public void initialize(DenseNet net) {
+		int size = net.getParameters().length;
+		if (steps == null || steps.length != size) {
+			lastGradients = new double[size];
+			steps = new double[size];
+			Arrays.fill(steps, initialStep);
+		}
+	}
+
+	@Override
+	public void update(DenseNet net, double[] gradients, int batchSize, int from, int to) {
+		double[] parameters = net.getParameters();
+		for (int k = from; k < to; k++) {
+			double gradient = gradients[k];
+			double change = gradient * lastGradients[k];
+			if (change > 0) {
+				steps[k] = Math.min(steps[k] * INCREASE, MAX_STEP);
+			} else if (change < 0) {
+				steps[k] = Math.max(steps[k] * DECREASE, MIN_STEP);
+				gradient = 0;
+			}
+			parameters[k] -= Math.signum(gradient) * steps[k];
+			lastGradients[k] = gradient;
+		}
+	}
+
+	/**
+	 * Returns the last gradients and the step sizes
+	 */
+	@Override
+	public double[][] getState() {
+		return new double[][] { lastGradients, steps };
+	}
+
+	@Override
+	public void setState(double[][] state) {
+		if (state.length != 2 || state[0].length != state[1].length) {
+			throw new IllegalArgumentException("State does not belong to an RPROP optimizer!");
+		}
+		lastGradients = state[0].clone();
+		steps = state[1].clone();
+	}
+
+}
@@ -0,0 +1,26 @@
+package edu.neuralnet.core.nn.train;
+
+import edu.neuralnet.core.nn.DenseNet;
+
+/**
+ * Trains the weights of a {@link DenseNet} on a training set.
+ */
+public interface Trainer {
+
+	/**
+	 * Trains the network until the sum of squared errors of an epoch drops to
+	 * the minimum error or the maximum number of epochs is reached.
+	 * 
+	 * @param net
+	 *            network to train, its weights are updated in place
+	 * @param trainingSet
+	 *            samples to train on
+	 * @param maxSteps
+	 *            maximum number of epochs
+	 * @param minError
+	 *            error at which training stops
+	 * @return number of epochs run and error of the last one
+	 */
+	TrainingResult train(DenseNet net, TrainingSet trainingSet, int maxSteps, double minError);
+
+}
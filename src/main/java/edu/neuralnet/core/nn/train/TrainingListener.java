@@ -0,0 +1,54 @@
+package edu.neuralnet.core.nn.train;
+
+import edu.neuralnet.core.nn.DenseNet;
+
+/**
+ * Receives progress notifications from an {@link AbstractTrainer}. All
+ * methods are called on the training thread, between epochs, so the network's
+ * weights are not being changed while a listener runs; listeners doing slow
+ * work should hand it off to another thread.
+ */
+public interface TrainingListener {
+
+	/**
+	 * Called before the first epoch.
+	 * 
+	 * @param net
+	 *            network being trained
+	 */
+	default void trainingStarted(DenseNet net) {
+	}
+
+	/**
+	 * Called after every epoch.
+	 * 
+	 * @param net
+	 *            network being trained
+	 * @param statistics
+	 *            measurements of the epoch
+	 */
+	default void epochFinished(DenseNet net, EpochStatistics statistics) {
+	}
+
+	/**
+	 * Polled after every epoch; training ends early once any listener
+	 * returns <code>true</code>.
+	 * 
+	 * @return whether training should stop
+	 */
+	default boolean isStopRequested() {
+		return false;
+	}
+
+	/**
+	 * Called after the last epoch.
+	 * 
+	 * @param net
+	 *            network being trained
+	 * @param result
+	 *            result returned by the trainer
+	 */
+	default void trainingFinished(DenseNet net, TrainingResult result) {
+	}
+
+}
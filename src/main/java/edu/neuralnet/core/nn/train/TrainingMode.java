@@ -0,0 +1,44 @@
+package edu.neuralnet.core.nn.train;
+
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Selects how multi-threaded training combines the work of its threads.
+ */
+public enum TrainingMode {
+
+	/**
+	 * Gradients of each mini-batch are reduced before the weights are
+	 * updated, giving the same result on every run; see
+	 * {@link ParallelTrainer}.
+	 */
+	DETERMINISTIC {
+		@Override
+		public Trainer newTrainer(int batchSize, ForkJoinPool pool) {
+			return new ParallelTrainer(batchSize, pool);
+		}
+	},
+
+	/**
+	 * Threads update the shared weights after every sample without locks or
+	 * reduction; see {@link HogwildTrainer}. The batch size is ignored.
+	 */
+	HOGWILD {
+		@Override
+		public Trainer newTrainer(int batchSize, ForkJoinPool pool) {
+			return new HogwildTrainer(pool);
+		}
+	};
+
+	/**
+	 * Creates a trainer for this mode.
+	 * 
+	 * @param batchSize
+	 *            number of samples per weight update
+	 * @param pool
+	 *            pool the trainer runs on
+	 * @return new trainer
+	 */
+	public abstract Trainer newTrainer(int batchSize, ForkJoinPool pool);
+
+}
@@ -0,0 +1,170 @@
+package edu.neuralnet.core.nn.train;
+
+import java.lang.management.ManagementFactory;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import edu.neuralnet.core.nn.DenseNet;
+
+/**
+ * Publishes the progress of a trainer as a JMX MBean, so that long training
+ * runs can be watched with JConsole or any other JMX client. The monitor is
+ * registered as <code>edu.neuralnet:type=TrainingMonitor,name=...</code> and
+ * keeps the values of the last finished epoch.
+ */
+public class TrainingMonitor implements TrainingListener, TrainingMonitorMBean {
+
+	private final AbstractTrainer trainer;
+
+	private final ObjectName objectName;
+
+	private volatile boolean running;
+
+	private volatile EpochStatistics last;
+
+	private volatile long lastEpochMillis = System.currentTimeMillis();
+
+	/**
+	 * Creates a monitor and adds it to the trainer's listeners.
+	 * 
+	 * @param trainer
+	 *            trainer to monitor
+	 * @param name
+	 *            name of the MBean, distinguishing concurrent training runs
+	 * @throws IllegalArgumentException
+	 *             if the name is not a valid object name value
+	 */
+	public TrainingMonitor(AbstractTrainer trainer, String name) {
+		this.trainer = trainer;
+		try {
+			objectName = new ObjectName("edu.neuralnet:type=TrainingMonitor,name=" + ObjectName.quote(name));
+		} catch (JMException e) {
+			throw new IllegalArgumentException(e);
+		}
+		trainer.addListener(this);
+	}
+
+	/**
+	 * Registers the MBean with the platform MBean server.
+	 * 
+	 * @throws JMException
+	 *             if an MBean with the same name is already registered
+	 */
+	public void register() throws JMException {
+		ManagementFactory.getPlatformMBeanServer().registerMBean(this, objectName);
+	}
+
+	/**
+	 * Unregisters the MBean and stops listening to the trainer.
+	 * 
+	 * @throws JMException
+	 *             if the MBean is not registered
+	 */
+	public void unregister() throws JMException {
+		trainer.removeListener(this);
+		MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		if (server.isRegistered(objectName)) {
+			server.unregisterMBean(objectName);
+		}
+	}
+
+	public ObjectName getObjectName() {
+		return objectName;
+	}
+
+	@Override
+	public void trainingStarted(DenseNet net) {
+		running = true;
+		lastEpochMillis = System.currentTimeMillis();
+	}
+
+	@Override
+	public void epochFinished(DenseNet net, EpochStatistics statistics) {
+		last = statistics;
+		lastEpochMillis = System.currentTimeMillis();
+	}
+
+	@Override
+	public void trainingFinished(DenseNet net, TrainingResult result) {
+		running = false;
+	}
+
+	/**
+	 * Returns the measurements of the last finished epoch, <code>null</code>
+	 * before the first one
+	 */
+	public EpochStatistics getLastEpoch() {
+		return last;
+	}
+
+	@Override
+	public boolean isRunning() {
+		return running;
+	}
+
+	@Override
+	public int getEpoch() {
+		EpochStatistics statistics = last;
+		return statistics == null ? 0 : statistics.getEpoch();
+	}
+
+	@Override
+	public double getLoss() {
+		EpochStatistics statistics = last;
+		return statistics == null ? Double.NaN : statistics.getError();
+	}
+
+	@Override
+	public double getSamplesPerSecond() {
+		EpochStatistics statistics = last;
+		return statistics == null ? 0 : statistics.getSamplesPerSecond();
+	}
+
+	@Override
+	public double getEpochMillis() {
+		EpochStatistics statistics = last;
+		return statistics == null ? 0 : statistics.getElapsedNanos() / 1e6;
+	}
+
+	@Override
+	public double getForwardMillis() {
+		EpochStatistics statistics = last;
+		return statistics == null ? 0 : statistics.getForwardNanos() / 1e6;
+	}
+
+	@Override
+	public double getBackwardMillis() {
+		EpochStatistics statistics = last;
+		return statistics == null ? 0 : statistics.getBackwardNanos() / 1e6;
+	}
+
+	@Override
+	public double getUpdateMillis() {
+		EpochStatistics statistics = last;
+		return statistics == null ? 0 : statistics.getUpdateNanos() / 1e6;
+	}
+
+	@Override
+	public long getAllocatedBytesPerEpoch() {
+		EpochStatistics statistics = last;
+		return statistics == null ? -1 : statistics.getAllocatedBytes();
+	}
+
+	@Override
+	public long getMillisSinceLastEpoch() {
+		return System.currentTimeMillis() - lastEpochMillis;
+	}
+
+	@Override
+	public void setPhaseTiming(boolean phaseTiming) {
+		trainer.setPhaseTiming(phaseTiming);
+	}
+
+	@Override
+	public boolean isPhaseTiming() {
+		return trainer.isPhaseTiming();
+	}
+
+}
@@ -0,0 +1,41 @@
+package edu.neuralnet.core.nn.train;
+
+/**
+ * Management interface of a {@link TrainingMonitor}. Times are those of the
+ * last finished epoch.
+ */
+public interface TrainingMonitorMBean {
+
+	boolean isRunning();
+
+	int getEpoch();
+
+	double getLoss();
+
+	double getSamplesPerSecond();
+
+	double getEpochMillis();
+
+	double getForwardMillis();
+
+	double getBackwardMillis();
+
+	double getUpdateMillis();
+
+	long getAllocatedBytesPerEpoch();
+
+	/**
+	 * Returns the time since the last epoch finished, which grows without
+	 * bound if training stalls
+	 */
+	long getMillisSinceLastEpoch();
+
+	/**
+	 * Enables measuring the time per phase, at the cost of reading the clock
+	 * several times per sample.
+	 */
+	void setPhaseTiming(boolean phaseTiming);
+
+	boolean isPhaseTiming();
+
+}
@@ -0,0 +1,35 @@
+package edu.neuralnet.core.nn.train;
+
+/**
+ * Source of training samples, each an input row with its expected output.
+ */
+public interface TrainingSet {
+
+	/**
+	 * Returns the number of samples
+	 */
+	int size();
+
+	/**
+	 * Returns the number of input values per sample
+	 */
+	int getInputSize();
+
+	/**
+	 * Returns the number of expected output values per sample
+	 */
+	int getOutputSize();
+
+	/**
+	 * Copies a sample into the given buffers.
+	 * 
+	 * @param row
+	 *            index of the sample
+	 * @param input
+	 *            receives the sample's input
+	 * @param expectedOutput
+	 *            receives the sample's expected output
+	 */
+	void getRow(int row, double[] input, double[] expectedOutput);
+
+}
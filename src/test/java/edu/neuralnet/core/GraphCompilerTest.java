@@ -0,0 +1,119 @@
+package edu.neuralnet.core;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+import edu.neuralnet.core.function.activation.RectifiedLinearActivationFunction;
+import edu.neuralnet.core.function.activation.SigmoidActivationFunction;
+import edu.neuralnet.core.function.activation.StepActivationFunction;
+import edu.neuralnet.core.function.input.WeightedSumFunction;
+
+public class GraphCompilerTest {
+
+	private static final double[][] INPUTS = { { 1, 1 }, { 1, 0 }, { 0, 1 }, { 0, 0 } };
+
+	private static final double[][] EXPECTED_OUTPUTS = { { 0 }, { 1 }, { 1 }, { 0 } };
+
+	@Test
+	public void layeredNetMatchesEvaluationPlan() {
+		NeuralNet net = layeredNet(new int[] { 3, 5, 4, 2 }, false, 1);
+		CompiledGraph graph = GraphCompiler.compile(net);
+
+		assertEquals(3, graph.getBlockCount());
+		assertEquals(3, graph.getLevelCount());
+		checkOutputs(net, graph, 3);
+	}
+
+	@Test
+	public void skipConnectionsMergeIntoOneBlock() {
+		NeuralNet net = layeredNet(new int[] { 3, 5, 4, 2 }, true, 2);
+		CompiledGraph graph = GraphCompiler.compile(net);
+
+		assertEquals(3, graph.getBlockCount());
+		assertEquals(3, graph.getLevelCount());
+		checkOutputs(net, graph, 3);
+	}
+
+	@Test
+	public void reportsCycles() {
+		NeuralNet net = layeredNet(new int[] { 2, 2, 1 }, false, 3);
+		Neuron hidden = net.getHiddenLayers().get(0).getNeuronAt(0);
+		hidden.addInputConnection(net.getOutputLayer().getNeuronAt(0), 0.5);
+		try {
+			GraphCompiler.compile(net);
+			fail("Cyclic net compiled");
+		} catch (IllegalArgumentException e) {
+			assertEquals("Neural net contains a cycle: neuron 4 -> neuron 2 -> neuron 4!", e.getMessage());
+		}
+	}
+
+	@Test
+	public void updateWeightsAfterTraining() {
+		NeuralNet net = layeredNet(new int[] { 2, 4, 1 }, false, 4);
+		CompiledGraph graph = GraphCompiler.compile(net);
+		new Backpropagation(net, 0.1, 0.7).train(INPUTS, EXPECTED_OUTPUTS, 100, 0);
+		assertFalse(Arrays.equals(net.calculate(INPUTS[0]), graph.calculate(INPUTS[0])));
+
+		graph.updateWeights();
+		for (double[] input : INPUTS) {
+			assertArrayEquals(net.calculate(input), graph.calculate(input), 0);
+		}
+	}
+
+	private static void checkOutputs(NeuralNet net, CompiledGraph graph, int inputSize) {
+		Random random = new Random(5);
+		double[] input = new double[inputSize];
+		for (int s = 0; s < 20; s++) {
+			for (int i = 0; i < inputSize; i++) {
+				input[i] = random.nextDouble() * 2 - 1;
+			}
+			assertArrayEquals(net.calculate(input), graph.calculate(input), 0);
+		}
+	}
+
+	/**
+	 * Builds a fully connected network with rectified linear hidden layers, a
+	 * sigmoid output layer and a bias neuron feeding every layer. With skip
+	 * connections, every layer is also connected to the layer two below.
+	 */
+	private static NeuralNet layeredNet(int[] layerSizes, boolean skipConnections, long seed) {
+		Random random = new Random(seed);
+		Neuron bias = new Neuron(new WeightedSumFunction(), new StepActivationFunction(0));
+		List<NeuralNetLayer> layers = new ArrayList<>();
+		for (int l = 0; l < layerSizes.length; l++) {
+			NeuralNetLayer layer = new NeuralNetLayer("layer" + l, layerSizes[l]);
+			for (int j = 0; j < layerSizes[l]; j++) {
+				Neuron neuron;
+				if (l == 0) {
+					neuron = new Neuron();
+				} else {
+					neuron = new Neuron(new WeightedSumFunction(), l == layerSizes.length - 1
+							? new SigmoidActivationFunction() : new RectifiedLinearActivationFunction());
+					for (Neuron from : layers.get(l - 1).getNeurons()) {
+						neuron.addInputConnection(from, random.nextDouble() * 2 - 1);
+					}
+					if (skipConnections && l > 1) {
+						for (Neuron from : layers.get(l - 2).getNeurons()) {
+							neuron.addInputConnection(from, random.nextDouble() * 2 - 1);
+						}
+					}
+					neuron.addInputConnection(bias, random.nextDouble() * 2 - 1);
+				}
+				layer.addNeuron(neuron);
+			}
+			layers.add(layer);
+		}
+		return new NeuralNet("test", layers.get(0), layers.subList(1, layers.size() - 1),
+				layers.get(layers.size() - 1));
+	}
+
+}
@@ -0,0 +1,53 @@
+package edu.neuralnet.core.function.activation;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class FastSigmoidActivationFunctionTest {
+
+	private static final double MAX_ERROR = 3e-6;
+
+	@Test
+	public void staysWithinMaximumError() {
+		for (double slope : new double[] { 0.5, 1, 2 }) {
+			SigmoidActivationFunction exact = new SigmoidActivationFunction(slope);
+			FastSigmoidActivationFunction fast = new FastSigmoidActivationFunction(slope);
+			double maxError = 0;
+			for (double x = -40; x <= 40; x += 1e-3) {
+				maxError = Math.max(maxError, Math.abs(fast.calculateOutput(x) - exact.calculateOutput(x)));
+			}
+			assertTrue("slope " + slope + ": " + maxError, maxError <= MAX_ERROR);
+		}
+	}
+
+	@Test
+	public void bulkOutputsMatchScalarOutputs() {
+		FastSigmoidActivationFunction fast = new FastSigmoidActivationFunction();
+		double[] values = new double[201];
+		for (int i = 0; i < values.length; i++) {
+			values[i] = (i - 100) * 0.2;
+		}
+		double[] inputs = values.clone();
+		fast.calculateOutputs(values, 0, values.length);
+		for (int i = 0; i < values.length; i++) {
+			assertEquals(fast.calculateOutput(inputs[i]), values[i], 0);
+		}
+	}
+
+	@Test
+	public void derivativesReuseOutputs() {
+		FastSigmoidActivationFunction fast = new FastSigmoidActivationFunction();
+		double[] inputs = { -20, -3, -0.5, 0, 0.5, 3, 20 };
+		double[] outputs = inputs.clone();
+		fast.calculateOutputs(outputs, 0, outputs.length);
+		double[] derivatives = new double[inputs.length];
+		fast.calculateDerivatives(inputs, outputs, derivatives, 0, inputs.length);
+		for (int i = 0; i < inputs.length; i++) {
+			assertEquals(outputs[i] * (1 - outputs[i]), derivatives[i], 0);
+			assertEquals(fast.calculateDerivative(inputs[i]), derivatives[i], 0);
+		}
+	}
+
+}
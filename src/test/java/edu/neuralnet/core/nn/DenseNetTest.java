@@ -0,0 +1,90 @@
+package edu.neuralnet.core.nn;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+import edu.neuralnet.core.function.activation.ActivationFunction;
+import edu.neuralnet.core.function.activation.SigmoidActivationFunction;
+
+public class DenseNetTest {
+
+	private static final double[][] INPUTS = { { 1, 1 }, { 1, 0 }, { 0, 1 }, { 0, 0 } };
+
+	private static final double[][] EXPECTED_OUTPUTS = { { 0 }, { 1 }, { 1 }, { 0 } };
+
+	@Test
+	public void trainsLikeTheObjectModel() {
+		NeuralNet neuralNet = new NeuralNet(2, 4, 1, new SigmoidActivationFunction(),
+				new WeightInitializer(WeightInitialization.XAVIER, 7));
+		DenseNet denseNet = neuralNet.compile();
+
+		for (int epoch = 0; epoch < 2000; epoch++) {
+			for (int p = 0; p < INPUTS.length; p++) {
+				neuralNet.setInput(INPUTS[p]);
+				neuralNet.activate();
+				neuralNet.applyBackpropagation(EXPECTED_OUTPUTS[p]);
+
+				denseNet.setInput(INPUTS[p]);
+				denseNet.activate();
+				denseNet.applyBackpropagation(EXPECTED_OUTPUTS[p]);
+			}
+		}
+
+		assertArrayEquals(neuralNet.compile().getParameters(), denseNet.getParameters(), 0);
+		for (double[] input : INPUTS) {
+			neuralNet.setInput(input);
+			neuralNet.activate();
+			denseNet.setInput(input);
+			denseNet.activate();
+			assertArrayEquals(neuralNet.getOutput(), denseNet.getOutput(), 0);
+		}
+	}
+
+	@Test
+	public void compactPreservesOutputs() {
+		DenseNet net = createNet(new int[] { 4, 6, 5, 3 }, 11);
+		double[] parameters = net.getParameters();
+
+		// neuron 2 of layer 1 without input weights, only its bias remains
+		int row = net.getOffset(1) + 2 * (4 + 1);
+		for (int i = 0; i < 4; i++) {
+			parameters[row + i] = 0;
+		}
+		// neuron 4 of layer 2 without outgoing weights
+		for (int k = 0; k < 3; k++) {
+			parameters[net.getOffset(3) + k * (5 + 1) + 4] = 0;
+		}
+
+		DenseNet compact = net.compact();
+		assertEquals(5, compact.getLayerSize(1));
+		assertEquals(4, compact.getLayerSize(2));
+
+		Random random = new Random(3);
+		for (int s = 0; s < 20; s++) {
+			double[] input = new double[4];
+			for (int i = 0; i < input.length; i++) {
+				input[i] = random.nextDouble();
+			}
+			net.setInput(input);
+			net.activate();
+			compact.setInput(input);
+			compact.activate();
+			assertArrayEquals(net.getOutput(), compact.getOutput(), 1e-12);
+		}
+	}
+
+	static DenseNet createNet(int[] layerSizes, long seed) {
+		ActivationFunction[] activationFunctions = new ActivationFunction[layerSizes.length];
+		for (int l = 1; l < layerSizes.length; l++) {
+			activationFunctions[l] = new SigmoidActivationFunction();
+		}
+		DenseNet net = new DenseNet(layerSizes, activationFunctions, 0, 0.7, 0.5);
+		new WeightInitializer(WeightInitialization.UNIFORM, seed).initialize(net);
+		return net;
+	}
+
+}
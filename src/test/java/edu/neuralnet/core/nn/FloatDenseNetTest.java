@@ -0,0 +1,81 @@
+package edu.neuralnet.core.nn;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+import edu.neuralnet.core.function.activation.ActivationFunction;
+import edu.neuralnet.core.function.activation.IdentityActivationFunction;
+import edu.neuralnet.core.function.activation.RectifiedLinearActivationFunction;
+import edu.neuralnet.core.nn.train.ArrayTrainingSet;
+import edu.neuralnet.core.nn.train.BatchTrainer;
+
+public class FloatDenseNetTest {
+
+	/**
+	 * Tolerances documented by {@link FloatDenseNet}, for weights in [-1, 1]
+	 * and sigmoid units
+	 */
+	@Test
+	public void largeNetForwardPassStaysWithinTolerance() {
+		checkForwardPass(DenseNetTest.createNet(new int[] { 784, 1024, 10 }, 5), 1e-5);
+	}
+
+	@Test
+	public void smallNetForwardPassStaysWithinTolerance() {
+		checkForwardPass(DenseNetTest.createNet(new int[] { 2, 4, 1 }, 6), 1e-6);
+	}
+
+	/**
+	 * ReLU and identity layers follow the double engine's trajectory, which
+	 * they would not with sigmoid derivatives
+	 */
+	@Test
+	public void trainsNonSigmoidLayers() {
+		int[] layerSizes = { 3, 6, 2 };
+		ActivationFunction[] activationFunctions = { null, new RectifiedLinearActivationFunction(),
+				new IdentityActivationFunction() };
+		DenseNet net = new DenseNet(layerSizes, activationFunctions, -1, 0.05, 0.5);
+		new WeightInitializer(WeightInitialization.HE, 9).initialize(net);
+		FloatDenseNet floatNet = new FloatDenseNet(net);
+
+		Random random = new Random(10);
+		double[][] inputs = new double[40][3];
+		double[][] expectedOutputs = new double[40][2];
+		for (int p = 0; p < inputs.length; p++) {
+			for (int i = 0; i < 3; i++) {
+				inputs[p][i] = random.nextDouble();
+			}
+			expectedOutputs[p][0] = inputs[p][0] + 2 * inputs[p][1];
+			expectedOutputs[p][1] = inputs[p][2] - inputs[p][0];
+		}
+		ArrayTrainingSet trainingSet = new ArrayTrainingSet(inputs, expectedOutputs);
+
+		new BatchTrainer(1).train(net, trainingSet, 20, 0);
+		new BatchTrainer(1).train(floatNet, trainingSet, 20, 0);
+
+		for (int k = 0; k < net.getParameters().length; k++) {
+			assertEquals(net.getParameters()[k], floatNet.getParameters()[k], 1e-4);
+		}
+	}
+
+	private static void checkForwardPass(DenseNet net, double delta) {
+		FloatDenseNet floatNet = new FloatDenseNet(net);
+		Random random = new Random(4);
+		double[] input = new double[net.getLayerSize(0)];
+		for (int s = 0; s < 20; s++) {
+			for (int i = 0; i < input.length; i++) {
+				input[i] = random.nextDouble();
+			}
+			net.setInput(input);
+			net.activate();
+			floatNet.setInput(input);
+			floatNet.activate();
+			assertArrayEquals(net.getOutput(), floatNet.getOutput(), delta);
+		}
+	}
+
+}
@@ -0,0 +1,51 @@
+package edu.neuralnet.core.nn;
+
+import static org.junit.Assert.assertArrayEquals;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+public class IncrementalEvaluatorTest {
+
+	private static final int INPUTS = 200;
+
+	@Test
+	public void matchesSnapshotForDenseLayers() {
+		DenseNet net = DenseNetTest.createNet(new int[] { INPUTS, 30, 10, 4 }, 5);
+		checkAgainstSnapshot(net.snapshot());
+	}
+
+	@Test
+	public void matchesSnapshotForSparseLayers() {
+		DenseNet net = DenseNetTest.createNet(new int[] { INPUTS, 30, 10, 4 }, 5);
+		Random random = new Random(9);
+		double[] parameters = net.getParameters();
+		for (int k = net.getOffset(1); k < net.getOffset(2); k++) {
+			if (random.nextDouble() < 0.95) {
+				parameters[k] = 0;
+			}
+		}
+		net.updateSparsity();
+		checkAgainstSnapshot(net.snapshot());
+	}
+
+	private static void checkAgainstSnapshot(ModelSnapshot snapshot) {
+		IncrementalEvaluator evaluator = new IncrementalEvaluator(snapshot, 100);
+		double[] input = new double[INPUTS];
+		double[] expected = new double[snapshot.getOutputSize()];
+		Random random = new Random(1);
+		for (int s = 0; s < 500; s++) {
+			// mostly a few changed inputs, now and then most of them
+			int changes = s % 50 == 0 ? INPUTS : 1 + random.nextInt(5);
+			for (int c = 0; c < changes; c++) {
+				input[random.nextInt(INPUTS)] = random.nextDouble();
+			}
+			evaluator.setInput(input);
+			evaluator.activate();
+			snapshot.predict(input, expected);
+			assertArrayEquals("sample " + s, expected, evaluator.getOutput(), 1e-10);
+		}
+	}
+
+}
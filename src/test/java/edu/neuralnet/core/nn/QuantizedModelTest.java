@@ -0,0 +1,75 @@
+package edu.neuralnet.core.nn;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+public class QuantizedModelTest {
+
+	/**
+	 * Bounds of the output error for inputs within the calibrated range, two
+	 * to three times the error observed for the network below
+	 */
+	private static final double MAX_INT8_ERROR = 1e-2;
+
+	private static final double MAX_INT16_ERROR = 5e-5;
+
+	@Test
+	public void staysWithinErrorBound() {
+		ModelSnapshot model = DenseNetTest.createNet(new int[] { 32, 24, 16, 4 }, 21).snapshot();
+		double[][] samples = createSamples(200, 32);
+
+		for (QuantizationScope scope : QuantizationScope.values()) {
+			double int8Error = maxError(model, QuantizedModel.calibrate(model, samples, IntegerPrecision.INT8, scope),
+					samples);
+			double int16Error = maxError(model,
+					QuantizedModel.calibrate(model, samples, IntegerPrecision.INT16, scope), samples);
+			assertTrue(scope + " INT8: " + int8Error, int8Error <= MAX_INT8_ERROR);
+			assertTrue(scope + " INT16: " + int16Error, int16Error <= MAX_INT16_ERROR);
+		}
+	}
+
+	@Test
+	public void batchPredictionMatchesSingle() {
+		ModelSnapshot model = DenseNetTest.createNet(new int[] { 8, 6, 3 }, 2).snapshot();
+		double[][] samples = createSamples(20, 8);
+		QuantizedModel quantized = QuantizedModel.calibrate(model, samples, IntegerPrecision.INT8,
+				QuantizationScope.PER_NEURON);
+
+		double[][] batch = quantized.predict(samples);
+		double[] output = new double[3];
+		for (int s = 0; s < samples.length; s++) {
+			quantized.predict(samples[s], output);
+			assertArrayEquals(output, batch[s], 0);
+		}
+	}
+
+	private static double maxError(ModelSnapshot model, QuantizedModel quantized, double[][] samples) {
+		double[] expected = new double[model.getOutputSize()];
+		double[] actual = new double[quantized.getOutputSize()];
+		double maxError = 0;
+		for (double[] input : samples) {
+			model.predict(input, expected);
+			quantized.predict(input, actual);
+			for (int j = 0; j < expected.length; j++) {
+				maxError = Math.max(maxError, Math.abs(expected[j] - actual[j]));
+			}
+		}
+		return maxError;
+	}
+
+	private static double[][] createSamples(int count, int size) {
+		Random random = new Random(8);
+		double[][] samples = new double[count][size];
+		for (double[] sample : samples) {
+			for (int i = 0; i < size; i++) {
+				sample[i] = random.nextDouble();
+			}
+		}
+		return samples;
+	}
+
+}
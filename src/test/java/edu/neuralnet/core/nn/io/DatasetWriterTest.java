@@ -0,0 +1,101 @@
+package edu.neuralnet.core.nn.io;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import edu.neuralnet.core.nn.Precision;
+import edu.neuralnet.core.nn.train.ArrayTrainingSet;
+
+public class DatasetWriterTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@Test
+	public void roundTripsDoubleValues() throws IOException {
+		ArrayTrainingSet trainingSet = createTrainingSet(3000, 7, 2);
+		Path file = folder.getRoot().toPath().resolve("data.bin");
+		DatasetWriter.write(trainingSet, Precision.DOUBLE, file);
+
+		MappedTrainingSet mapped = MappedTrainingSet.open(file);
+		assertEquals(Precision.DOUBLE, mapped.getPrecision());
+		checkRows(trainingSet, mapped, false);
+		assertFalse(Files.exists(file.resolveSibling("data.bin.tmp")));
+	}
+
+	@Test
+	public void roundTripsFloatValues() throws IOException {
+		ArrayTrainingSet trainingSet = createTrainingSet(3000, 7, 2);
+		Path file = folder.getRoot().toPath().resolve("data.bin");
+		DatasetWriter.write(trainingSet, Precision.FLOAT, file);
+
+		MappedTrainingSet mapped = MappedTrainingSet.open(file);
+		assertEquals(Precision.FLOAT, mapped.getPrecision());
+		checkRows(trainingSet, mapped, true);
+	}
+
+	@Test
+	public void incompleteDatasetLeavesTargetUnchanged() throws IOException {
+		ArrayTrainingSet trainingSet = createTrainingSet(10, 3, 1);
+		Path file = folder.getRoot().toPath().resolve("data.bin");
+		DatasetWriter.write(trainingSet, Precision.DOUBLE, file);
+
+		DatasetWriter writer = new DatasetWriter(file, 3, 1, 5, Precision.DOUBLE);
+		writer.addRow(new double[3], new double[1]);
+		try {
+			writer.close();
+			fail("Incomplete dataset closed");
+		} catch (IllegalStateException e) {
+			// expected
+		}
+
+		assertFalse(Files.exists(file.resolveSibling("data.bin.tmp")));
+		checkRows(trainingSet, MappedTrainingSet.open(file), false);
+	}
+
+	private static void checkRows(ArrayTrainingSet expected, MappedTrainingSet actual, boolean rounded) {
+		assertEquals(expected.size(), actual.size());
+		assertEquals(expected.getInputSize(), actual.getInputSize());
+		assertEquals(expected.getOutputSize(), actual.getOutputSize());
+		double[] expectedInput = new double[expected.getInputSize()];
+		double[] expectedOutput = new double[expected.getOutputSize()];
+		double[] input = new double[actual.getInputSize()];
+		double[] output = new double[actual.getOutputSize()];
+		for (int p = 0; p < expected.size(); p++) {
+			expected.getRow(p, expectedInput, expectedOutput);
+			actual.getRow(p, input, output);
+			for (int i = 0; i < input.length; i++) {
+				assertEquals(rounded ? (float) expectedInput[i] : expectedInput[i], input[i], 0);
+			}
+			for (int j = 0; j < output.length; j++) {
+				assertEquals(rounded ? (float) expectedOutput[j] : expectedOutput[j], output[j], 0);
+			}
+		}
+	}
+
+	private static ArrayTrainingSet createTrainingSet(int size, int inputSize, int outputSize) {
+		Random random = new Random(4);
+		double[][] inputs = new double[size][inputSize];
+		double[][] expectedOutputs = new double[size][outputSize];
+		for (int p = 0; p < size; p++) {
+			for (int i = 0; i < inputSize; i++) {
+				inputs[p][i] = random.nextGaussian();
+			}
+			for (int j = 0; j < outputSize; j++) {
+				expectedOutputs[p][j] = random.nextDouble();
+			}
+		}
+		return new ArrayTrainingSet(inputs, expectedOutputs);
+	}
+
+}
@@ -0,0 +1,155 @@
+package edu.neuralnet.core.nn.io;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import edu.neuralnet.core.function.activation.ActivationFunction;
+import edu.neuralnet.core.function.activation.FastSigmoidActivationFunction;
+import edu.neuralnet.core.function.activation.RectifiedLinearActivationFunction;
+import edu.neuralnet.core.function.activation.SigmoidActivationFunction;
+import edu.neuralnet.core.nn.DenseNet;
+import edu.neuralnet.core.nn.ModelSnapshot;
+import edu.neuralnet.core.nn.Precision;
+import edu.neuralnet.core.nn.Predictor;
+import edu.neuralnet.core.nn.WeightInitialization;
+import edu.neuralnet.core.nn.WeightInitializer;
+
+public class ModelWriterTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@Test
+	public void roundTripsDoubleWeights() throws IOException {
+		DenseNet net = createNet();
+		Path file = folder.getRoot().toPath().resolve("model.bin");
+		ModelWriter.write(net, Precision.DOUBLE, file);
+
+		ModelSnapshot read = ModelReader.read(file);
+		assertArrayEquals(net.getParameters(), read.getParameters(), 0);
+		assertEquals(net.getBiasInput(), read.getBiasInput(), 0);
+		for (int l = 0; l < net.getLayerCount(); l++) {
+			assertEquals(net.getLayerSize(l), read.getLayerSize(l));
+		}
+		assertEquals(SigmoidActivationFunction.class, read.getActivationFunction(1).getClass());
+		assertEquals(2.0, ((SigmoidActivationFunction) read.getActivationFunction(1)).getSlope(), 0);
+		assertEquals(RectifiedLinearActivationFunction.class, read.getActivationFunction(2).getClass());
+		assertEquals(FastSigmoidActivationFunction.class, read.getActivationFunction(3).getClass());
+
+		checkPredictions(net.snapshot(), ModelReader.map(file), 0);
+		assertFalse(Files.exists(file.resolveSibling("model.bin.tmp")));
+	}
+
+	@Test
+	public void roundTripsFloatWeights() throws IOException {
+		DenseNet net = createNet();
+		Path file = folder.getRoot().toPath().resolve("model.bin");
+		ModelWriter.write(net, Precision.FLOAT, file);
+
+		ModelSnapshot read = ModelReader.read(file);
+		for (int k = 0; k < net.getParameters().length; k++) {
+			assertEquals((float) net.getParameters()[k], read.getParameters()[k], 0);
+		}
+		checkPredictions(net.snapshot(), ModelReader.map(file), 1e-5);
+	}
+
+	@Test
+	public void replacesExistingFile() throws IOException {
+		Path file = folder.getRoot().toPath().resolve("model.bin");
+		ModelWriter.write(createNet(), Precision.DOUBLE, file);
+		DenseNet net = createNet();
+		net.getParameters()[0] = 42;
+		ModelWriter.write(net, Precision.FLOAT, file);
+
+		assertEquals(42, ModelReader.read(file).getParameters()[0], 0);
+	}
+
+	@Test
+	public void failedWriteRemovesTemporaryFile() throws IOException {
+		// a non-empty directory cannot be replaced by the written model
+		Path file = folder.newFolder("model.bin").toPath();
+		Files.createFile(file.resolve("entry"));
+		try {
+			ModelWriter.write(createNet(), Precision.DOUBLE, file);
+			fail("Model written over a directory");
+		} catch (IOException e) {
+			// expected
+		}
+		assertFalse(Files.exists(file.resolveSibling("model.bin.tmp")));
+	}
+
+	@Test
+	public void rejectsInvalidHeaders() throws IOException {
+		Path file = folder.getRoot().toPath().resolve("model.bin");
+		ModelWriter.write(createNet(), Precision.DOUBLE, file);
+		byte[] valid = Files.readAllBytes(file);
+
+		expectInvalid(file, valid, 8, 3);
+		expectInvalid(file, valid, 12, -1);
+		expectInvalid(file, valid, 12, Integer.MAX_VALUE);
+		expectInvalid(file, valid, 28, -5);
+
+		Files.write(file, Arrays.copyOf(valid, valid.length - 8));
+		try {
+			ModelReader.read(file);
+			fail("Truncated model read");
+		} catch (IOException e) {
+			// expected
+		}
+	}
+
+	/**
+	 * Overwrites one header int and expects reading to fail with an
+	 * IOException.
+	 */
+	private static void expectInvalid(Path file, byte[] valid, int position, int value) throws IOException {
+		byte[] bytes = valid.clone();
+		ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN).putInt(position, value);
+		Files.write(file, bytes);
+		try {
+			ModelReader.map(file);
+			fail("Invalid value " + value + " at " + position + " accepted");
+		} catch (IOException e) {
+			// expected
+		}
+	}
+
+	private static void checkPredictions(ModelSnapshot expected, Predictor actual, double delta) {
+		Random random = new Random(2);
+		double[] input = new double[expected.getInputSize()];
+		double[] expectedOutput = new double[expected.getOutputSize()];
+		double[] actualOutput = new double[actual.getOutputSize()];
+		for (int s = 0; s < 20; s++) {
+			for (int i = 0; i < input.length; i++) {
+				input[i] = random.nextDouble();
+			}
+			expected.predict(input, expectedOutput);
+			actual.predict(input, actualOutput);
+			assertArrayEquals(expectedOutput, actualOutput, delta);
+		}
+	}
+
+	private static DenseNet createNet() {
+		int[] layerSizes = { 6, 5, 4, 2 };
+		ActivationFunction[] activationFunctions = { null, new SigmoidActivationFunction(2),
+				new RectifiedLinearActivationFunction(), new FastSigmoidActivationFunction() };
+		DenseNet net = new DenseNet(layerSizes, activationFunctions, -1, 0.7, 0.5);
+		new WeightInitializer(WeightInitialization.XAVIER, 13).initialize(net);
+		return net;
+	}
+
+}
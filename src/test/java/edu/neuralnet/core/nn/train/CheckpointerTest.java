@@ -0,0 +1,124 @@
+package edu.neuralnet.core.nn.train;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import edu.neuralnet.core.function.activation.ActivationFunction;
+import edu.neuralnet.core.function.activation.SigmoidActivationFunction;
+import edu.neuralnet.core.nn.DenseNet;
+import edu.neuralnet.core.nn.WeightInitialization;
+import edu.neuralnet.core.nn.WeightInitializer;
+import edu.neuralnet.core.nn.io.Checkpoint;
+
+public class CheckpointerTest {
+
+	private static final long SEED = 17;
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@Test
+	public void resumedRunMatchesUninterruptedRun() throws IOException {
+		TrainingSet trainingSet = createTrainingSet();
+
+		DenseNet uninterrupted = createNet();
+		new BatchTrainer(8, new AdamOptimizer(0.01)).train(uninterrupted, trainingSet, 10, 0);
+
+		Path file = folder.getRoot().toPath().resolve("checkpoint.bin");
+		DenseNet first = createNet();
+		AdamOptimizer optimizer = new AdamOptimizer(0.01);
+		BatchTrainer trainer = new BatchTrainer(8, optimizer);
+		trainer.addListener(new Checkpointer(file, 3, SEED, optimizer));
+		trainer.train(first, trainingSet, 5, 0);
+
+		Checkpoint checkpoint = Checkpoint.read(file);
+		assertEquals(5, checkpoint.getEpoch());
+		assertEquals(SEED, checkpoint.getSeed());
+
+		DenseNet resumed = checkpoint.toDenseNet();
+		AdamOptimizer resumedOptimizer = new AdamOptimizer(0.01);
+		resumedOptimizer.setState(checkpoint.getOptimizerState());
+		BatchTrainer resumedTrainer = new BatchTrainer(8, resumedOptimizer);
+		resumedTrainer.addListener(new Checkpointer(file, 3, checkpoint, resumedOptimizer));
+		resumedTrainer.train(resumed, trainingSet, 5, 0);
+
+		assertArrayEquals(uninterrupted.getParameters(), resumed.getParameters(), 0);
+		assertEquals(10, Checkpoint.read(file).getEpoch());
+	}
+
+	@Test
+	public void momentumRunResumesExactly() throws IOException {
+		TrainingSet trainingSet = createTrainingSet();
+
+		DenseNet uninterrupted = createNet();
+		new BatchTrainer(1).train(uninterrupted, trainingSet, 6, 0);
+
+		Path file = folder.getRoot().toPath().resolve("checkpoint.bin");
+		DenseNet first = createNet();
+		BatchTrainer trainer = new BatchTrainer(1);
+		trainer.addListener(new Checkpointer(file, 2, SEED));
+		trainer.train(first, trainingSet, 4, 0);
+
+		Checkpoint checkpoint = Checkpoint.read(file);
+		DenseNet resumed = checkpoint.toDenseNet();
+		new BatchTrainer(1).train(resumed, trainingSet, 2, 0);
+
+		assertArrayEquals(uninterrupted.getParameters(), resumed.getParameters(), 0);
+		assertArrayEquals(uninterrupted.getDeltas(), resumed.getDeltas(), 0);
+	}
+
+	@Test
+	public void failedWriteRemovesTemporaryFile() throws IOException {
+		Path file = folder.getRoot().toPath().resolve("checkpoint.bin");
+		BatchTrainer trainer = new BatchTrainer(1);
+		trainer.addListener(new Checkpointer(file, 1, SEED));
+		trainer.train(createNet(), createTrainingSet(), 1, 0);
+		Checkpoint checkpoint = Checkpoint.read(file);
+
+		// a non-empty directory cannot be replaced by the checkpoint
+		Path directory = folder.newFolder("directory").toPath();
+		Files.createFile(directory.resolve("entry"));
+		try {
+			checkpoint.write(directory);
+			fail("Checkpoint written over a directory");
+		} catch (IOException e) {
+			// expected
+		}
+		assertFalse(Files.exists(directory.resolveSibling("directory.tmp")));
+	}
+
+	private static DenseNet createNet() {
+		int[] layerSizes = { 5, 8, 2 };
+		ActivationFunction[] activationFunctions = { null, new SigmoidActivationFunction(),
+				new SigmoidActivationFunction() };
+		DenseNet net = new DenseNet(layerSizes, activationFunctions, -1, 0.7, 0.5);
+		new WeightInitializer(WeightInitialization.XAVIER, SEED).initialize(net);
+		return net;
+	}
+
+	private static TrainingSet createTrainingSet() {
+		Random random = new Random(SEED);
+		double[][] inputs = new double[50][5];
+		double[][] expectedOutputs = new double[50][2];
+		for (int p = 0; p < inputs.length; p++) {
+			for (int i = 0; i < 5; i++) {
+				inputs[p][i] = random.nextDouble();
+			}
+			expectedOutputs[p][0] = inputs[p][0] > inputs[p][1] ? 1 : 0;
+			expectedOutputs[p][1] = inputs[p][2] * inputs[p][3];
+		}
+		return new ArrayTrainingSet(inputs, expectedOutputs);
+	}
+
+}
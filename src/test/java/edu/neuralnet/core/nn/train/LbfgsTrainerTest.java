@@ -0,0 +1,34 @@
+package edu.neuralnet.core.nn.train;
+
+import static org.junit.Assert.assertArrayEquals;
+
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.Test;
+
+import edu.neuralnet.core.nn.DenseNet;
+
+public class LbfgsTrainerTest {
+
+	private static final int[] PARALLELISMS = { 1, 2, 4 };
+
+	@Test
+	public void resultsDoNotDependOnParallelism() {
+		TrainingSet trainingSet = ParallelTrainerTest.createTrainingSet();
+		double[] expected = null;
+		for (int parallelism : PARALLELISMS) {
+			ForkJoinPool pool = new ForkJoinPool(parallelism);
+			try {
+				DenseNet net = ParallelTrainerTest.createNet();
+				new LbfgsTrainer(5, pool, 4).train(net, trainingSet, 15, 0);
+				if (expected == null) {
+					expected = net.getParameters();
+				}
+				assertArrayEquals("Parallelism " + parallelism, expected, net.getParameters(), 0);
+			} finally {
+				pool.shutdown();
+			}
+		}
+	}
+
+}
@@ -0,0 +1,82 @@
+package edu.neuralnet.core.nn.train;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import edu.neuralnet.core.function.activation.ActivationFunction;
+import edu.neuralnet.core.function.activation.SigmoidActivationFunction;
+import edu.neuralnet.core.nn.DenseNet;
+import edu.neuralnet.core.nn.WeightInitialization;
+import edu.neuralnet.core.nn.WeightInitializer;
+
+public class OptimizerTest {
+
+	private static final TrainingSet XOR = new ArrayTrainingSet(
+			new double[][] { { 1, 1 }, { 1, 0 }, { 0, 1 }, { 0, 0 } }, new double[][] { { 0 }, { 1 }, { 1 }, { 0 } });
+
+	private static final int MAX_EPOCHS = 100000;
+
+	private static final double MIN_ERROR = 0.01;
+
+	private static final long SEED = 1;
+
+	@Test
+	public void adamConvergesFasterThanMomentum() {
+		checkConvergesFasterThanMomentum(new AdamOptimizer(0.05));
+	}
+
+	@Test
+	public void rpropConvergesFasterThanMomentum() {
+		checkConvergesFasterThanMomentum(new RpropOptimizer());
+	}
+
+	@Test
+	public void adamResumesFromItsState() {
+		checkResumesFromState(new AdamOptimizer(0.05), new AdamOptimizer(0.05), new AdamOptimizer(0.05));
+	}
+
+	@Test
+	public void rpropResumesFromItsState() {
+		checkResumesFromState(new RpropOptimizer(), new RpropOptimizer(), new RpropOptimizer());
+	}
+
+	private static void checkConvergesFasterThanMomentum(Optimizer optimizer) {
+		TrainingResult momentum = train(new MomentumOptimizer(), createNet());
+		TrainingResult result = train(optimizer, createNet());
+		assertTrue(momentum.toString(), momentum.getError() <= MIN_ERROR);
+		assertTrue(result.toString(), result.getError() <= MIN_ERROR);
+		assertTrue(result + " vs momentum " + momentum, result.getEpochs() < momentum.getEpochs());
+	}
+
+	/**
+	 * Trains one network for 20 epochs and another for 10 epochs, then
+	 * continues the second with a new optimizer restored from the state of
+	 * the first.
+	 */
+	private static void checkResumesFromState(Optimizer uninterrupted, Optimizer first, Optimizer resumed) {
+		DenseNet expected = createNet();
+		new BatchTrainer(4, uninterrupted).train(expected, XOR, 20, 0);
+
+		DenseNet net = createNet();
+		new BatchTrainer(4, first).train(net, XOR, 10, 0);
+		resumed.setState(first.getState());
+		new BatchTrainer(4, resumed).train(net, XOR, 10, 0);
+
+		assertArrayEquals(expected.getParameters(), net.getParameters(), 0);
+	}
+
+	private static TrainingResult train(Optimizer optimizer, DenseNet net) {
+		return new BatchTrainer(4, optimizer).train(net, XOR, MAX_EPOCHS, MIN_ERROR);
+	}
+
+	private static DenseNet createNet() {
+		ActivationFunction[] activationFunctions = { null, new SigmoidActivationFunction(),
+				new SigmoidActivationFunction() };
+		DenseNet net = new DenseNet(new int[] { 2, 4, 1 }, activationFunctions, -1, 0.7, 0.5);
+		new WeightInitializer(WeightInitialization.XAVIER, SEED).initialize(net);
+		return net;
+	}
+
+}
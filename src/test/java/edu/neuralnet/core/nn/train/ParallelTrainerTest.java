@@ -0,0 +1,62 @@
+package edu.neuralnet.core.nn.train;
+
+import static org.junit.Assert.assertArrayEquals;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.Test;
+
+import edu.neuralnet.core.function.activation.ActivationFunction;
+import edu.neuralnet.core.function.activation.SigmoidActivationFunction;
+import edu.neuralnet.core.nn.DenseNet;
+import edu.neuralnet.core.nn.WeightInitialization;
+import edu.neuralnet.core.nn.WeightInitializer;
+
+public class ParallelTrainerTest {
+
+	private static final int[] PARALLELISMS = { 1, 2, 4 };
+
+	@Test
+	public void resultsDoNotDependOnParallelism() {
+		TrainingSet trainingSet = createTrainingSet();
+		double[] expected = null;
+		for (int parallelism : PARALLELISMS) {
+			ForkJoinPool pool = new ForkJoinPool(parallelism);
+			try {
+				DenseNet net = createNet();
+				new ParallelTrainer(16, new AdamOptimizer(0.01), pool, 4).train(net, trainingSet, 10, 0);
+				if (expected == null) {
+					expected = net.getParameters();
+				}
+				assertArrayEquals("Parallelism " + parallelism, expected, net.getParameters(), 0);
+			} finally {
+				pool.shutdown();
+			}
+		}
+	}
+
+	static DenseNet createNet() {
+		ActivationFunction[] activationFunctions = { null, new SigmoidActivationFunction(),
+				new SigmoidActivationFunction() };
+		DenseNet net = new DenseNet(new int[] { 6, 10, 3 }, activationFunctions, -1, 0.7, 0.5);
+		new WeightInitializer(WeightInitialization.XAVIER, 23).initialize(net);
+		return net;
+	}
+
+	static TrainingSet createTrainingSet() {
+		Random random = new Random(23);
+		double[][] inputs = new double[100][6];
+		double[][] expectedOutputs = new double[100][3];
+		for (int p = 0; p < inputs.length; p++) {
+			for (int i = 0; i < 6; i++) {
+				inputs[p][i] = random.nextDouble();
+			}
+			expectedOutputs[p][0] = inputs[p][0] > inputs[p][1] ? 1 : 0;
+			expectedOutputs[p][1] = inputs[p][2] * inputs[p][3];
+			expectedOutputs[p][2] = (inputs[p][4] + inputs[p][5]) / 2;
+		}
+		return new ArrayTrainingSet(inputs, expectedOutputs);
+	}
+
+}